@@ -0,0 +1,125 @@
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntSupplier;
+
+// Dashboard under the inventory table: the per-category valuation and the
+// value expiring in each of the coming weeks. A timer polls the analytics
+// version, so a burst of movements costs one repaint and an unchanged
+// inventory is not redrawn at all.
+class AnalyticsPanel extends JPanel {
+    private static final int WEEKS_SHOWN = 8;
+    private static final DateTimeFormatter WEEK = DateTimeFormatter.ofPattern("MMM d");
+
+    private final InventoryAnalytics analytics;
+    private final IntSupplier today;
+    private final SummaryModel summaryModel;
+    private final JLabel weeksLabel = new JLabel(" ");
+    private final Timer timer;
+    private long shownVersion = -1;
+
+    public AnalyticsPanel(InventoryAnalytics analytics, IntSupplier today) {
+        super(new BorderLayout());
+        this.analytics = analytics;
+        this.today = today;
+        this.summaryModel = new SummaryModel();
+        setBackground(new Color(245, 255, 245));
+        setBorder(BorderFactory.createTitledBorder("Inventory Value"));
+
+        JTable table = new JTable(summaryModel);
+        table.setDefaultRenderer(Long.class, new PriceCellRenderer());
+        table.setRowHeight(22);
+        table.setFillsViewportHeight(true);
+        table.getTableHeader().setReorderingAllowed(false);
+        weeksLabel.setBorder(BorderFactory.createEmptyBorder(6, 6, 6, 6));
+
+        add(new JScrollPane(table), BorderLayout.CENTER);
+        add(weeksLabel, BorderLayout.SOUTH);
+        timer = new Timer(500, e -> refresh());
+    }
+
+    public void addNotify() {
+        super.addNotify();
+        refresh();
+        timer.start();
+    }
+
+    public void removeNotify() {
+        timer.stop();
+        super.removeNotify();
+    }
+
+    private void refresh() {
+        // summaries() rolls the at-risk horizon to today, which itself bumps
+        // the version on a new day.
+        List<InventoryAnalytics.Summary> summaries = analytics.summaries(today.getAsInt());
+        long version = analytics.getVersion();
+        if (version == shownVersion) return;
+        shownVersion = version;
+        summaryModel.setRows(summaries);
+
+        StringBuilder weeks = new StringBuilder("<html><b>Value by expiry week:</b> ");
+        LocalDate monday = LocalDate.ofEpochDay(today.getAsInt());
+        monday = monday.minusDays(monday.getDayOfWeek().getValue() - 1);
+        long overdue = 0;
+        for (Map.Entry<LocalDate, Long> week : analytics.valueByExpiryWeek().headMap(monday).entrySet())
+            overdue += week.getValue();
+        if (overdue > 0) weeks.append("earlier ").append(PriceCellRenderer.formatCents(overdue)).append(" &nbsp; ");
+        Map<LocalDate, Long> upcoming = analytics.valueByExpiryWeek().subMap(monday, monday.plusWeeks(WEEKS_SHOWN));
+        for (int w = 0; w < WEEKS_SHOWN; w++) {
+            LocalDate start = monday.plusWeeks(w);
+            weeks.append(start.format(WEEK)).append(' ')
+                    .append(PriceCellRenderer.formatCents(upcoming.getOrDefault(start, 0L))).append(" &nbsp; ");
+        }
+        weeksLabel.setText(weeks.append("</html>").toString());
+    }
+
+    private final class SummaryModel extends AbstractTableModel {
+        private final String[] columns = {"Category", "Items", "Units", "Value", "Avg Price",
+                "At Risk (" + analytics.getRiskDays() + " days)"};
+        private List<InventoryAnalytics.Summary> rows = new ArrayList<>();
+
+        void setRows(List<InventoryAnalytics.Summary> rows) {
+            this.rows = rows;
+            fireTableDataChanged();
+        }
+
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        public int getColumnCount() {
+            return columns.length;
+        }
+
+        public String getColumnName(int column) {
+            return columns[column];
+        }
+
+        public Class<?> getColumnClass(int column) {
+            return switch (column) {
+                case 0 -> String.class;
+                case 1 -> Integer.class;
+                case 2 -> Number.class;
+                default -> Long.class;
+            };
+        }
+
+        public Object getValueAt(int row, int column) {
+            InventoryAnalytics.Summary summary = rows.get(row);
+            return switch (column) {
+                case 0 -> summary.category();
+                case 1 -> summary.items();
+                case 2 -> summary.units();
+                case 3 -> summary.valueCents();
+                case 4 -> summary.averagePriceCents();
+                default -> summary.atRiskCents();
+            };
+        }
+    }
+}
@@ -0,0 +1,103 @@
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.IntConsumer;
+
+// A unit of work for TaskScheduler, shaped like a SwingWorker:
+// doInBackground() runs on the scheduler's pool, and done() runs on the EDT
+// once it has finished, failed or been cancelled, where get() returns the
+// result. Progress and completion can also be observed by whoever submits
+// the task through whenProgress() and whenDone().
+abstract class BackgroundTask<T> {
+    private volatile boolean cancelled;
+    private volatile int progress;
+    private Thread runner;
+    private TaskScheduler scheduler;
+    private T result;
+    private Throwable failure;
+    private IntConsumer progressListener;
+    private Runnable doneListener;
+
+    protected abstract T doInBackground() throws Exception;
+
+    // Called on the EDT exactly once.
+    protected void done() {}
+
+    // Called on the EDT with the latest progress; updates that arrive
+    // faster than the EDT drains them are skipped.
+    protected void progressChanged(int progress) {}
+
+    public final void whenProgress(IntConsumer listener) {
+        progressListener = listener;
+    }
+
+    public final void whenDone(Runnable listener) {
+        doneListener = listener;
+    }
+
+    protected final void setProgress(int progress) {
+        if (progress == this.progress) return;
+        this.progress = progress;
+        TaskScheduler owner = scheduler;
+        if (owner != null) owner.progressed(this);
+    }
+
+    public final int getProgress() {
+        return progress;
+    }
+
+    public final boolean isCancelled() {
+        return cancelled;
+    }
+
+    // Interrupts the task if it is running. done() still follows.
+    public final void cancel() {
+        cancelled = true;
+        synchronized (this) {
+            if (runner != null) runner.interrupt();
+        }
+    }
+
+    // Only meaningful from done() or after it.
+    public final T get() throws ExecutionException {
+        if (cancelled) throw new CancellationException();
+        if (failure != null) throw new ExecutionException(failure);
+        return result;
+    }
+
+    final void bind(TaskScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    final void run() {
+        synchronized (this) {
+            runner = Thread.currentThread();
+        }
+        try {
+            if (!cancelled) result = doInBackground();
+        } catch (Throwable e) {
+            failure = e;
+        } finally {
+            synchronized (this) {
+                runner = null;
+                // A cancel that raced with the end of the task must not leak
+                // into the pool thread's next task.
+                Thread.interrupted();
+            }
+        }
+    }
+
+    final void fail(Throwable e) {
+        failure = e;
+    }
+
+    final void deliverProgress() {
+        int current = progress;
+        progressChanged(current);
+        if (progressListener != null) progressListener.accept(current);
+    }
+
+    final void deliverDone() {
+        done();
+        if (doneListener != null) doneListener.run();
+    }
+}
@@ -0,0 +1,452 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+// Keeps branches' inventories in step through delta files in a shared
+// directory; there is no server. Name, category, expiry and price are
+// last-writer-wins by DeltaFile.Stamp, and so is removal, and they are
+// applied to the service. Stock is not: each branch keeps its own, and the
+// service only ever holds this branch's. Every SKU has a counter per branch
+// of units added and removed there, and stockByBranch() reads them as the
+// chain-wide view. Merging takes the larger of each counter and the later
+// stamp, so files can be merged in any order and more than once and every
+// branch ends up with the same state.
+//
+// Each change gets the next local sequence number and export() writes only
+// the SKUs changed since the last export, so a file holds one record per SKU
+// touched however often it moved. Lots are not replicated: a merged edit
+// keeps the quantity here and makes it a single lot.
+//
+// Changes merged into the service run through InventoryService.replicated(),
+// so listeners such as the consumption history can skip them. Besides the
+// counters, each SKU keeps the quantity the service last reported, and any
+// change to it, whether made here or by a merged removal, is booked to this
+// branch's counter.
+//
+// Movements only lock their SKU's stripe, so the service's threads do not
+// queue up behind one another here; exporting and saving lock every stripe
+// for the moment it takes to copy the changes.
+class BranchReplicator implements InventoryListener {
+    static final String STATE_FILE = "replication.state";
+    private static final int STATE_MAGIC = 0x46495253;
+    // Version 2 adds what the service last reported for each SKU. A version 1
+    // service held the whole chain's stock, which is read as this branch's
+    // own from then on.
+    private static final int FORMAT_VERSION = 2;
+    private static final Pattern BRANCH_NAME = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private final InventoryService service;
+    private final String branch;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Entry> bySeq = new ConcurrentSkipListMap<>();
+    private final ReentrantLock[] stripes = new ReentrantLock[64];
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicLong seq = new AtomicLong();
+    // Highest sequence number merged from each other branch; this and
+    // exportedSeq are guarded by this object.
+    private final Map<String, Long> merged = new HashMap<>();
+    private long exportedSeq;
+
+    public BranchReplicator(InventoryService service, String branch) {
+        if (!BRANCH_NAME.matcher(branch).matches())
+            throw new IllegalArgumentException("Branch names may only use letters, digits, '-' and '_': " + branch);
+        this.service = service;
+        this.branch = branch;
+        for (int i = 0; i < stripes.length; i++) stripes[i] = new ReentrantLock();
+    }
+
+    private static final class Entry {
+        Ingredient item;
+        DeltaFile.Stamp stamp;
+        boolean deleted;
+        final Map<String, long[]> counters = new HashMap<>(4);
+        // What the service last reported; zero while it has no such SKU.
+        long seen;
+        long seq;
+    }
+
+    record Result(int exported, long exportedBytes, int files, int merged, int applied) {}
+
+    public String getBranch() {
+        return branch;
+    }
+
+    // Starts following the service. Anything that changed while no state was
+    // saved, including all of it the first time, counts as a local change.
+    public void attach() {
+        service.addInventoryListener(this);
+        for (Ingredient item : service.items()) record(item, false);
+        List<Ingredient> gone = new ArrayList<>();
+        lockAll();
+        try {
+            for (Map.Entry<String, Entry> entry : entries.entrySet())
+                if (!entry.getValue().deleted && service.get(entry.getKey()) == null) gone.add(entry.getValue().item);
+        } finally {
+            unlockAll();
+        }
+        for (Ingredient item : gone) record(item, true);
+    }
+
+    public void ingredientAdded(Ingredient ingredient) {
+        record(ingredient, false);
+    }
+
+    public void ingredientRemoved(Ingredient ingredient) {
+        record(ingredient, true);
+    }
+
+    public void ingredientUpdated(Ingredient old, Ingredient updated) {
+        if (!old.getSku().equals(updated.getSku())) record(old, true);
+        record(updated, false);
+    }
+
+    // A merged change already carries its attributes and stamp; only what
+    // it did to the stock here is booked.
+    private void record(Ingredient item, boolean deleted) {
+        ReentrantLock lock = stripe(item.getSku());
+        lock.lock();
+        try {
+            record(item.getSku(), item, deleted);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void record(String sku, Ingredient item, boolean deleted) {
+        Entry entry = entries.computeIfAbsent(sku, k -> new Entry());
+        long now = deleted ? 0 : item.getQuantity();
+        long delta = now - entry.seen;
+        entry.seen = now;
+        if (delta != 0) {
+            long[] own = entry.counters.computeIfAbsent(branch, k -> new long[2]);
+            if (delta > 0) own[0] += delta;
+            else own[1] -= delta;
+        }
+        boolean edited = !InventoryService.isReplicated() && (entry.stamp == null || entry.deleted != deleted
+                || (!deleted && !sameAttributes(entry.item, item)));
+        if (edited) {
+            entry.item = item;
+            entry.stamp = new DeltaFile.Stamp(clock.incrementAndGet(), branch);
+            entry.deleted = deleted;
+        }
+        if (delta != 0 || edited) touch(entry);
+    }
+
+    private static boolean sameAttributes(Ingredient a, Ingredient b) {
+        return a.getName().equals(b.getName()) && a.getCategory().equals(b.getCategory())
+                && a.getExpiryEpochDay() == b.getExpiryEpochDay() && a.getPriceCents() == b.getPriceCents();
+    }
+
+    // Units on hand at each branch that has moved sku, this one included, as
+    // of the last sync with each; empty if no branch has.
+    public Map<String, Long> stockByBranch(String sku) {
+        Map<String, Long> stock = new TreeMap<>();
+        ReentrantLock lock = stripe(sku);
+        lock.lock();
+        try {
+            Entry entry = entries.get(sku);
+            if (entry != null)
+                for (Map.Entry<String, long[]> counter : entry.counters.entrySet())
+                    stock.put(counter.getKey(), counter.getValue()[0] - counter.getValue()[1]);
+        } finally {
+            lock.unlock();
+        }
+        return stock;
+    }
+
+    private ReentrantLock stripe(String sku) {
+        int h = sku.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (stripes.length - 1)];
+    }
+
+    // In index order, so two threads taking them all cannot deadlock.
+    private void lockAll() {
+        for (ReentrantLock lock : stripes) lock.lock();
+    }
+
+    private void unlockAll() {
+        for (ReentrantLock lock : stripes) lock.unlock();
+    }
+
+    // Called with the entry's stripe held, so an export, which holds them
+    // all, never sees a sequence number taken but not yet in bySeq.
+    private void touch(Entry entry) {
+        if (entry.seq != 0) bySeq.remove(entry.seq);
+        entry.seq = seq.incrementAndGet();
+        bySeq.put(entry.seq, entry);
+    }
+
+    // Exports, then merges what the other branches exported, then saves the
+    // state so neither is repeated.
+    public Result sync(Path syncDir, Path dataDir) throws IOException {
+        Files.createDirectories(syncDir);
+        long[] exported = export(syncDir, exportedSeq());
+        int[] counts = merge(syncDir);
+        save(dataDir);
+        return new Result((int) exported[0], exported[1], counts[0], counts[1], counts[2]);
+    }
+
+    private synchronized long exportedSeq() {
+        return exportedSeq;
+    }
+
+    // Writes the changes after sinceSeq to a new file, if there are any;
+    // returns the number of changes and the bytes written.
+    public long[] export(Path syncDir, long sinceSeq) throws IOException {
+        List<DeltaFile.Change> changes = new ArrayList<>();
+        long toSeq;
+        lockAll();
+        try {
+            for (Entry entry : bySeq.tailMap(sinceSeq, false).values()) changes.add(change(entry));
+            toSeq = seq.get();
+        } finally {
+            unlockAll();
+        }
+        if (changes.isEmpty()) return new long[] {0, 0};
+        long bytes = DeltaFile.write(syncDir, new DeltaFile.Header(branch, sinceSeq, toSeq), changes);
+        synchronized (this) {
+            exportedSeq = Math.max(exportedSeq, toSeq);
+        }
+        return new long[] {changes.size(), bytes};
+    }
+
+    private static DeltaFile.Change change(Entry entry) {
+        Map<String, long[]> counters = new LinkedHashMap<>(entry.counters.size() * 2);
+        for (Map.Entry<String, long[]> counter : entry.counters.entrySet())
+            counters.put(counter.getKey(), counter.getValue().clone());
+        return new DeltaFile.Change(entry.item, entry.stamp, entry.deleted, counters);
+    }
+
+    // Merges every other branch's files that continue from what was merged
+    // before, in order. A branch whose next file is missing (still being
+    // copied, say) is picked up from there next time. Returns the number of
+    // files, changes merged and SKUs changed in the service.
+    public int[] merge(Path syncDir) throws IOException {
+        Map<String, List<DeltaFile.Header>> files = new HashMap<>();
+        try (DirectoryStream<Path> dir = Files.newDirectoryStream(syncDir, "*" + DeltaFile.SUFFIX)) {
+            for (Path file : dir) {
+                DeltaFile.Header header = DeltaFile.parseName(file.getFileName().toString());
+                if (header != null && !header.branch().equals(branch))
+                    files.computeIfAbsent(header.branch(), k -> new ArrayList<>()).add(header);
+            }
+        }
+        int fileCount = 0;
+        int changeCount = 0;
+        int applied = 0;
+        for (Map.Entry<String, List<DeltaFile.Header>> peer : files.entrySet()) {
+            List<DeltaFile.Header> headers = peer.getValue();
+            headers.sort(Comparator.comparingLong(DeltaFile.Header::fromSeq).thenComparingLong(DeltaFile.Header::toSeq));
+            long mark = mergedSeq(peer.getKey());
+            for (DeltaFile.Header header : headers) {
+                if (header.toSeq() <= mark) continue;
+                if (header.fromSeq() > mark) break;
+                List<DeltaFile.Change> changes = new ArrayList<>();
+                DeltaFile.read(syncDir.resolve(DeltaFile.fileName(header.branch(), header.fromSeq(), header.toSeq())),
+                        changes::add);
+                for (Map.Entry<String, Boolean> change : fold(changes).entrySet())
+                    if (apply(change.getKey(), change.getValue())) applied++;
+                synchronized (this) {
+                    merged.put(peer.getKey(), header.toSeq());
+                }
+                mark = header.toSeq();
+                fileCount++;
+                changeCount += changes.size();
+            }
+        }
+        return new int[] {fileCount, changeCount, applied};
+    }
+
+    private synchronized long mergedSeq(String peer) {
+        return merged.getOrDefault(peer, 0L);
+    }
+
+    // Merged changes are exported again, so a branch passes on what it
+    // learned from others.
+    // Returns the SKUs that changed, and whether their attributes did.
+    private Map<String, Boolean> fold(List<DeltaFile.Change> changes) {
+        Map<String, Boolean> changed = new LinkedHashMap<>();
+        for (DeltaFile.Change change : changes) {
+            String sku = change.item().getSku();
+            ReentrantLock lock = stripe(sku);
+            lock.lock();
+            try {
+                Entry entry = entries.computeIfAbsent(sku, k -> new Entry());
+                boolean moved = false;
+                for (Map.Entry<String, long[]> counter : change.counters().entrySet()) {
+                    long[] theirs = counter.getValue();
+                    long[] ours = entry.counters.computeIfAbsent(counter.getKey(), k -> new long[2]);
+                    if (theirs[0] > ours[0]) {
+                        ours[0] = theirs[0];
+                        moved = true;
+                    }
+                    if (theirs[1] > ours[1]) {
+                        ours[1] = theirs[1];
+                        moved = true;
+                    }
+                }
+                clock.accumulateAndGet(change.stamp().clock(), Math::max);
+                boolean edited = entry.stamp == null || change.stamp().compareTo(entry.stamp) > 0;
+                if (edited) {
+                    entry.item = change.item();
+                    entry.stamp = change.stamp();
+                    entry.deleted = change.deleted();
+                }
+                if (moved || edited) {
+                    touch(entry);
+                    changed.merge(sku, edited, Boolean::logicalOr);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return changed;
+    }
+
+    // Called without holding any of this object's locks: the service calls
+    // its listeners, this one included, under its own locks. A SKU new to this
+    // branch arrives with none in stock; the others' stock stays in the
+    // counters.
+    private boolean apply(String sku, boolean edited) {
+        Ingredient item;
+        boolean deleted;
+        ReentrantLock lock = stripe(sku);
+        lock.lock();
+        try {
+            Entry entry = entries.get(sku);
+            item = entry.item;
+            deleted = entry.deleted;
+        } finally {
+            lock.unlock();
+        }
+        return service.replicated(() -> {
+            try {
+                if (deleted) return service.remove(sku) != null;
+                Ingredient current = service.get(sku);
+                if (current == null) {
+                    service.add(item.withQuantity(0));
+                    return true;
+                }
+                if (!edited || sameAttributes(current, item)) return false;
+                service.updateAttributes(sku, item);
+                return true;
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                // Raced a local change to the same SKU; the merged state is
+                // still there for the next sync.
+                return false;
+            }
+        });
+    }
+
+    // Written to a temporary file and moved over the old one, like the
+    // consumption history.
+    public void save(Path dataDir) throws IOException {
+        List<DeltaFile.Change> changes;
+        long[] seqs;
+        long[] seen;
+        long savedClock, savedSeq, savedExported;
+        Map<String, Long> savedMerged;
+        lockAll();
+        try {
+            int count = bySeq.size();
+            changes = new ArrayList<>(count);
+            seqs = new long[count];
+            seen = new long[count];
+            for (Entry entry : bySeq.values()) {
+                seqs[changes.size()] = entry.seq;
+                seen[changes.size()] = entry.seen;
+                changes.add(change(entry));
+            }
+            savedClock = clock.get();
+            savedSeq = seq.get();
+            synchronized (this) {
+                savedExported = exportedSeq;
+                savedMerged = new HashMap<>(merged);
+            }
+        } finally {
+            unlockAll();
+        }
+        Path file = dataDir.resolve(STATE_FILE);
+        Path tmp = dataDir.resolve(STATE_FILE + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(STATE_MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(branch);
+            out.writeLong(savedClock);
+            out.writeLong(savedSeq);
+            out.writeLong(savedExported);
+            out.writeInt(savedMerged.size());
+            for (Map.Entry<String, Long> peer : savedMerged.entrySet()) {
+                out.writeUTF(peer.getKey());
+                out.writeLong(peer.getValue());
+            }
+            DeltaFile.writeChanges(out, changes, seqs);
+            for (long quantity : seen) DeltaFile.writeVarLong(out, quantity);
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // The branch is inventory.branch if set, else the one saved before, else
+    // a new random one. Renaming a branch exports everything again under
+    // the new name.
+    public static BranchReplicator load(Path dataDir, InventoryService service) throws IOException {
+        String named = System.getProperty("inventory.branch");
+        Path file = dataDir.resolve(STATE_FILE);
+        if (!Files.exists(file))
+            return new BranchReplicator(service, named != null ? named
+                    : "branch-" + Integer.toHexString(ThreadLocalRandom.current().nextInt() | 0x10000000));
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != STATE_MAGIC) throw new IOException("Not a replication state: " + file);
+            int version = in.readInt();
+            if (version != 1 && version != FORMAT_VERSION) throw new IOException("Unsupported replication state version " + version);
+            String saved = in.readUTF();
+            BranchReplicator replicator = new BranchReplicator(service, named != null ? named : saved);
+            replicator.clock.set(in.readLong());
+            replicator.seq.set(in.readLong());
+            long exported = in.readLong();
+            replicator.exportedSeq = replicator.branch.equals(saved) ? exported : 0;
+            int peers = in.readInt();
+            for (int i = 0; i < peers; i++) replicator.merged.put(in.readUTF(), in.readLong());
+            List<Long> seqs = new ArrayList<>();
+            List<DeltaFile.Change> changes = new ArrayList<>();
+            DeltaFile.readChanges(in, changes::add, seqs);
+            for (int i = 0; i < changes.size(); i++) {
+                DeltaFile.Change change = changes.get(i);
+                Entry entry = new Entry();
+                entry.item = change.item();
+                entry.stamp = change.stamp();
+                entry.deleted = change.deleted();
+                entry.counters.putAll(change.counters());
+                entry.seq = seqs.get(i);
+                long[] own = entry.counters.get(replicator.branch);
+                entry.seen = version == 1 && own != null ? own[0] - own[1] : 0;
+                replicator.entries.put(entry.item.getSku(), entry);
+                replicator.bySeq.put(entry.seq, entry);
+            }
+            if (version > 1)
+                for (Entry entry : replicator.bySeq.values()) entry.seen = DeltaFile.readVarLong(in);
+            return replicator;
+        } catch (EOFException e) {
+            throw new IOException("Truncated replication state: " + file, e);
+        }
+    }
+}
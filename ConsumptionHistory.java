@@ -0,0 +1,258 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+// Per-SKU history of stock movements by day: units taken out and units put
+// in. Each SKU's days go into a byte array as varints of (days since the
+// previous entry, out, in), so a year of daily movements costs about a
+// kilobyte per SKU; the current day is kept unencoded until the next one
+// starts. Loading and adding ingredients is not a movement and is not
+// recorded, nor is anything merged from another branch, and a renamed SKU
+// starts a new history.
+class ConsumptionHistory implements InventoryListener {
+    static final String FILE_NAME = "consumption.history";
+    private static final int FILE_MAGIC = 0x46494853;
+    private static final int FORMAT_VERSION = 1;
+    private static final int NONE = Integer.MIN_VALUE;
+
+    private final IntSupplier today;
+    private final Map<String, Series> series = new ConcurrentHashMap<>();
+    // A LongAdder, so movements on different SKUs do not contend on it; only
+    // the series of the SKU that moved is locked.
+    private final LongAdder version = new LongAdder();
+    private ScheduledExecutorService saver;
+    private long savedVersion = -1;
+
+    public ConsumptionHistory(IntSupplier today) {
+        this.today = today;
+    }
+
+    public void ingredientAdded(Ingredient ingredient) {
+    }
+
+    public void ingredientRemoved(Ingredient ingredient) {
+    }
+
+    public void ingredientUpdated(Ingredient old, Ingredient updated) {
+        if (InventoryService.isReplicated() || !old.getSku().equals(updated.getSku())) return;
+        int delta = updated.getQuantity() - old.getQuantity();
+        if (delta != 0) record(old.getSku(), today.getAsInt(), delta);
+    }
+
+    public void record(String sku, int day, int delta) {
+        Series history = series.computeIfAbsent(sku, k -> new Series());
+        synchronized (history) {
+            history.record(day, delta);
+        }
+        version.increment();
+    }
+
+    // Bumped on every movement, so a view can tell whether to recompute.
+    public long getVersion() {
+        return version.sum();
+    }
+
+    public int size() {
+        return series.size();
+    }
+
+    // Units taken out on each day up to and including through, earliest
+    // first: days entries, or fewer if the history starts later. Empty if
+    // the SKU has none.
+    public long[] consumption(String sku, int through, int days) {
+        Series history = series.get(sku);
+        if (history == null) return new long[0];
+        synchronized (history) {
+            return history.consumption(through, days);
+        }
+    }
+
+    // Saves into dataDir every period in which there were movements, so a
+    // crash loses at most one period of history rather than everything
+    // since launch. stop() saves what is left.
+    public synchronized void startSaving(Path dataDir, long period, TimeUnit unit) {
+        if (saver != null) throw new IllegalStateException("The history is already being saved.");
+        saver = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "inventory-history");
+            thread.setDaemon(true);
+            return thread;
+        });
+        saver.scheduleWithFixedDelay(() -> {
+            try {
+                saveIfChanged(dataDir);
+            } catch (IOException e) {
+                System.err.println("Could not save consumption history: " + e.getMessage());
+            }
+        }, period, period, unit);
+    }
+
+    // Not interrupted: a save in progress finishes before the last one runs.
+    public synchronized void stop(Path dataDir) throws IOException {
+        if (saver != null) {
+            saver.shutdown();
+            saver = null;
+        }
+        saveIfChanged(dataDir);
+    }
+
+    public synchronized void saveIfChanged(Path dataDir) throws IOException {
+        long current = version.sum();
+        if (current == savedVersion) return;
+        save(dataDir);
+        savedVersion = current;
+    }
+
+    // Written to a temporary file and moved over the old one, so a crash
+    // leaves either the previous history or the new one. Movements carry on
+    // meanwhile; the SKUs are copied first so the count written matches the
+    // entries that follow even if a new SKU shows up mid-save.
+    public synchronized void save(Path dataDir) throws IOException {
+        Path file = dataDir.resolve(FILE_NAME);
+        Path tmp = dataDir.resolve(FILE_NAME + ".tmp");
+        List<Map.Entry<String, Series>> entries = new ArrayList<>(series.entrySet());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Series> entry : entries) {
+                Series history = entry.getValue();
+                synchronized (history) {
+                    out.writeUTF(entry.getKey());
+                    history.write(out);
+                }
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Empty if nothing was saved yet.
+    public static ConsumptionHistory load(Path dataDir, IntSupplier today) throws IOException {
+        ConsumptionHistory history = new ConsumptionHistory(today);
+        Path file = dataDir.resolve(FILE_NAME);
+        if (!Files.exists(file)) return history;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != FILE_MAGIC) throw new IOException("Not a consumption history: " + file);
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) throw new IOException("Unsupported consumption history version " + version);
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String sku = in.readUTF();
+                history.series.put(sku, Series.read(in));
+            }
+        } catch (EOFException e) {
+            throw new IOException("Truncated consumption history: " + file, e);
+        }
+        return history;
+    }
+
+    private static final class Series {
+        private byte[] data = new byte[16];
+        private int length;
+        private int lastDay = NONE;
+        private int openDay = NONE;
+        private long openOut;
+        private long openIn;
+
+        void record(int day, int delta) {
+            // A clock set back lands on the day already open.
+            if (day > openDay) {
+                close();
+                openDay = day;
+            }
+            if (delta < 0) openOut -= delta;
+            else openIn += delta;
+        }
+
+        private void close() {
+            if (openDay == NONE) return;
+            if (data.length - length < 30) data = Arrays.copyOf(data, data.length * 2);
+            writeVarint(lastDay == NONE ? openDay : openDay - lastDay);
+            writeVarint(openOut);
+            writeVarint(openIn);
+            lastDay = openDay;
+            openOut = 0;
+            openIn = 0;
+        }
+
+        long[] consumption(int through, int days) {
+            int first = through - days + 1;
+            int firstRecorded = firstDay();
+            if (firstRecorded == NONE || firstRecorded > through) return new long[0];
+            if (firstRecorded > first) first = firstRecorded;
+            long[] out = new long[through - first + 1];
+            int[] position = {0};
+            int day = NONE;
+            while (position[0] < length) {
+                long gap = readVarint(position);
+                long taken = readVarint(position);
+                readVarint(position);
+                day = day == NONE ? (int) gap : day + (int) gap;
+                if (day > through) break;
+                if (day >= first) out[day - first] += taken;
+            }
+            if (openDay >= first && openDay <= through) out[openDay - first] += openOut;
+            return out;
+        }
+
+        private int firstDay() {
+            if (length == 0) return openDay;
+            return (int) readVarint(new int[] {0});
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeInt(lastDay);
+            out.writeInt(openDay);
+            out.writeLong(openOut);
+            out.writeLong(openIn);
+            out.writeInt(length);
+            out.write(data, 0, length);
+        }
+
+        static Series read(DataInputStream in) throws IOException {
+            Series series = new Series();
+            series.lastDay = in.readInt();
+            series.openDay = in.readInt();
+            series.openOut = in.readLong();
+            series.openIn = in.readLong();
+            series.length = in.readInt();
+            if (series.length < 0) throw new IOException("Corrupt consumption history");
+            series.data = new byte[Math.max(16, series.length)];
+            in.readFully(series.data, 0, series.length);
+            return series;
+        }
+
+        // The first entry's gap is the day itself; days are non-negative.
+        private void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                data[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[length++] = (byte) value;
+        }
+
+        private long readVarint(int[] position) {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = data[position[0]++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) return value;
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Reads "name,category,quantity,expiration_date,price" rows. Fields may be
+// quoted with double quotes ("" escapes a quote), and a quoted field may
+// span lines. A header row is optional; when present it may list the
+// columns in any order.
+class CsvIngredientReader implements IngredientReader {
+    private static final String[] COLUMNS = {"name", "category", "quantity", "expiration_date", "price"};
+
+    private final BufferedReader reader;
+    private final List<String> fields = new ArrayList<>();
+    private final StringBuilder field = new StringBuilder();
+    private int[] columnOrder = {0, 1, 2, 3, 4};
+    private long line;
+    private long rowLine;
+    private boolean started;
+
+    public CsvIngredientReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader, 1 << 16);
+    }
+
+    public Ingredient next() throws IOException {
+        while (true) {
+            String text = reader.readLine();
+            if (text == null) return null;
+            line++;
+            if (text.isBlank()) continue;
+            rowLine = line;
+            split(text);
+            if (!started) {
+                started = true;
+                if (readHeader()) continue;
+            }
+            if (fields.size() < COLUMNS.length)
+                throw new IllegalArgumentException("expected " + COLUMNS.length + " fields but found " + fields.size());
+            return IngredientReader.toIngredient(fields.get(columnOrder[0]), fields.get(columnOrder[1]),
+                    fields.get(columnOrder[2]), fields.get(columnOrder[3]), fields.get(columnOrder[4]));
+        }
+    }
+
+    // The line the row starts on.
+    public long position() {
+        return rowLine;
+    }
+
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private boolean readHeader() {
+        int[] order = new int[COLUMNS.length];
+        for (int c = 0; c < COLUMNS.length; c++) {
+            order[c] = -1;
+            for (int f = 0; f < fields.size(); f++) {
+                String header = fields.get(f).trim().toLowerCase(Locale.ROOT).replace(' ', '_');
+                if (header.equals(COLUMNS[c]) || (c == 3 && header.equals("expirationdate"))) order[c] = f;
+            }
+            if (order[c] < 0) return false;
+        }
+        columnOrder = order;
+        return true;
+    }
+
+    // A line that ends inside quotes continues on the next one; the line
+    // break is part of the field.
+    private void split(String text) throws IOException {
+        fields.clear();
+        field.setLength(0);
+        boolean quoted = false;
+        while (true) {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            if (!quoted) break;
+            text = reader.readLine();
+            if (text == null) throw new IllegalArgumentException("unterminated quoted field");
+            line++;
+            field.append('\n');
+        }
+        fields.add(field.toString());
+    }
+}
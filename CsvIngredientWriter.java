@@ -0,0 +1,40 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+class CsvIngredientWriter implements IngredientWriter {
+    private final Writer writer;
+
+    public CsvIngredientWriter(Writer writer) throws IOException {
+        this.writer = writer instanceof BufferedWriter ? writer : new BufferedWriter(writer, 1 << 16);
+        this.writer.write("name,category,quantity,expiration_date,price\n");
+    }
+
+    public void write(Ingredient ingredient) throws IOException {
+        writeField(ingredient.getName());
+        writer.write(',');
+        writeField(ingredient.getCategory());
+        writer.write(',');
+        writer.write(Integer.toString(ingredient.getQuantity()));
+        writer.write(',');
+        writer.write(ingredient.getExpirationDate().toString());
+        writer.write(',');
+        writer.write(IngredientWriter.formatCents(ingredient.getPriceCents()));
+        writer.write('\n');
+    }
+
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private void writeField(String value) throws IOException {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,35 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+class CsvReportWriter implements ReportWriter {
+    private final Writer writer;
+
+    public CsvReportWriter(Writer writer, String... columns) throws IOException {
+        this.writer = writer instanceof BufferedWriter ? writer : new BufferedWriter(writer, 1 << 16);
+        this.writer.write(String.join(",", columns));
+        this.writer.write('\n');
+    }
+
+    public void row(Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) writer.write(',');
+            writeField(String.valueOf(values[i]));
+        }
+        writer.write('\n');
+    }
+
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private void writeField(String value) throws IOException {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
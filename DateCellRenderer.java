@@ -0,0 +1,15 @@
+import javax.swing.table.DefaultTableCellRenderer;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+class DateCellRenderer extends DefaultTableCellRenderer {
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+
+    protected void setValue(Object value) {
+        setText(value == null ? "" : format((LocalDate) value));
+    }
+
+    static String format(LocalDate date) {
+        return FORMAT.format(date);
+    }
+}
@@ -0,0 +1,190 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// A branch's change set between two of its sequence numbers, gzipped (which
+// also checks it with a CRC). Each change is the whole replicated state of
+// one SKU: its attributes with their version stamp, a tombstone flag and
+// every branch's added/removed counters. Branch names go in a table at the
+// front and the numbers are varints, so a change is typically 20-30 bytes
+// before compression. Files are named <branch>.<from>-<to>.delta.
+final class DeltaFile {
+    static final String SUFFIX = ".delta";
+    private static final int FILE_MAGIC = 0x46494444;
+    private static final int FORMAT_VERSION = 1;
+    private static final Pattern NAME = Pattern.compile("([A-Za-z0-9_-]+)\\.(\\d+)-(\\d+)\\.delta");
+
+    private DeltaFile() {}
+
+    // Orders edits to the same SKU: the higher Lamport clock wins and equal
+    // clocks fall back to the branch name, so every branch picks the same
+    // winner whatever order it merges in.
+    record Stamp(long clock, String branch) implements Comparable<Stamp> {
+        public int compareTo(Stamp other) {
+            return clock != other.clock ? Long.compare(clock, other.clock) : branch.compareTo(other.branch);
+        }
+    }
+
+    // The item's quantity is not used; counters holds {added, removed} by
+    // branch.
+    record Change(Ingredient item, Stamp stamp, boolean deleted, Map<String, long[]> counters) {}
+
+    record Header(String branch, long fromSeq, long toSeq) {}
+
+    static String fileName(String branch, long fromSeq, long toSeq) {
+        return branch + "." + fromSeq + "-" + toSeq + SUFFIX;
+    }
+
+    // Null if the name is not one of ours.
+    static Header parseName(String fileName) {
+        Matcher m = NAME.matcher(fileName);
+        if (!m.matches()) return null;
+        try {
+            return new Header(m.group(1), Long.parseLong(m.group(2)), Long.parseLong(m.group(3)));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Written next to its final name and moved there, so a branch merging
+    // from the same directory never sees half a file. Returns its size.
+    static long write(Path dir, Header header, List<Change> changes) throws IOException {
+        Path file = dir.resolve(fileName(header.branch(), header.fromSeq(), header.toSeq()));
+        Path tmp = dir.resolve(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(tmp), 1 << 16), 1 << 16))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(header.branch());
+            writeVarLong(out, header.fromSeq());
+            writeVarLong(out, header.toSeq());
+            writeChanges(out, changes, null);
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return Files.size(file);
+    }
+
+    static Header read(Path file, Consumer<Change> sink) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(file), 1 << 16), 1 << 16))) {
+            if (in.readInt() != FILE_MAGIC) throw new IOException("Not a delta file: " + file);
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) throw new IOException("Unsupported delta file version " + version);
+            Header header = new Header(in.readUTF(), readVarLong(in), readVarLong(in));
+            readChanges(in, sink, null);
+            // Reading past the end checks the gzip trailer.
+            if (in.read() != -1) throw new IOException("Trailing data in delta file: " + file);
+            return header;
+        } catch (EOFException e) {
+            throw new IOException("Truncated delta file: " + file, e);
+        }
+    }
+
+    // With seqs, each change is preceded by its sequence number; the
+    // replication state uses this to keep its export order.
+    static void writeChanges(DataOutputStream out, List<Change> changes, long[] seqs) throws IOException {
+        Map<String, Integer> branches = new LinkedHashMap<>();
+        for (Change change : changes) {
+            branches.putIfAbsent(change.stamp().branch(), branches.size());
+            for (String branch : change.counters().keySet()) branches.putIfAbsent(branch, branches.size());
+        }
+        writeVarLong(out, branches.size());
+        for (String branch : branches.keySet()) out.writeUTF(branch);
+        writeVarLong(out, changes.size());
+        for (int i = 0; i < changes.size(); i++) {
+            Change change = changes.get(i);
+            if (seqs != null) writeVarLong(out, seqs[i]);
+            Ingredient item = change.item();
+            out.writeUTF(item.getName());
+            out.writeUTF(item.getCategory());
+            out.writeByte(change.deleted() ? 1 : 0);
+            writeVarLong(out, zigZag(item.getExpiryEpochDay()));
+            writeVarLong(out, zigZag(item.getPriceCents()));
+            writeVarLong(out, change.stamp().clock());
+            writeVarLong(out, branches.get(change.stamp().branch()));
+            writeVarLong(out, change.counters().size());
+            for (Map.Entry<String, long[]> counter : change.counters().entrySet()) {
+                writeVarLong(out, branches.get(counter.getKey()));
+                writeVarLong(out, counter.getValue()[0]);
+                writeVarLong(out, counter.getValue()[1]);
+            }
+        }
+    }
+
+    // Fills seqs, if given, with each change's sequence number in order.
+    static int readChanges(DataInputStream in, Consumer<Change> sink, List<Long> seqs) throws IOException {
+        int branchCount = count(in);
+        List<String> branches = new ArrayList<>(branchCount);
+        for (int i = 0; i < branchCount; i++) branches.add(in.readUTF());
+        int count = count(in);
+        for (int i = 0; i < count; i++) {
+            if (seqs != null) seqs.add(readVarLong(in));
+            String name = in.readUTF();
+            String category = in.readUTF();
+            boolean deleted = in.readByte() != 0;
+            LocalDate expirationDate = LocalDate.ofEpochDay(unZigZag(readVarLong(in)));
+            long priceCents = unZigZag(readVarLong(in));
+            Stamp stamp = new Stamp(readVarLong(in), branch(branches, readVarLong(in)));
+            int counterCount = count(in);
+            Map<String, long[]> counters = new HashMap<>(counterCount * 2);
+            for (int j = 0; j < counterCount; j++)
+                counters.put(branch(branches, readVarLong(in)), new long[] {readVarLong(in), readVarLong(in)});
+            sink.accept(new Change(Ingredient.ofCents(name, category, 0, expirationDate, priceCents), stamp, deleted, counters));
+        }
+        return count;
+    }
+
+    private static String branch(List<String> branches, long index) throws IOException {
+        if (index < 0 || index >= branches.size()) throw new IOException("Corrupt delta: unknown branch " + index);
+        return branches.get((int) index);
+    }
+
+    private static int count(DataInputStream in) throws IOException {
+        long count = readVarLong(in);
+        if (count < 0 || count > Integer.MAX_VALUE) throw new IOException("Corrupt delta: bad count " + count);
+        return (int) count;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IOException("Corrupt delta: varint too long");
+    }
+}
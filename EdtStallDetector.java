@@ -0,0 +1,115 @@
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+// Logs every event that keeps the EDT busy for longer than a budget. It is
+// pushed onto the system event queue and times each dispatch. A watchdog
+// thread takes a stack trace of the EDT as soon as a dispatch overruns, so
+// the warning shows what the handler was doing; a handler that seems stuck
+// is reported while it still runs.
+//
+// Time inside a nested event loop, such as a modal dialog opened by the
+// handler, is not counted against the event that opened it.
+class EdtStallDetector extends EventQueue {
+    private static final Logger LOG = Logger.getLogger("inventory.edt");
+    // How many budgets a dispatch may run before it is reported as stuck.
+    private static final int STUCK_FACTOR = 20;
+
+    private final long budgetNanos;
+    private volatile Thread edt;
+    private volatile AWTEvent current;
+    // Start of the dispatch being timed, or 0 when none is.
+    private volatile long started;
+    private volatile Overrun overrun;
+    private boolean reportedStuck;
+
+    // The EDT's stack once the dispatch that started at begin overran.
+    private record Overrun(long begin, StackTraceElement[] stack) {}
+
+    private EdtStallDetector(long budgetMillis) {
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+    }
+
+    // Installs a detector with the given budget; 0 or less disables it.
+    public static void install(long budgetMillis) {
+        if (budgetMillis <= 0) return;
+        EdtStallDetector detector = new EdtStallDetector(budgetMillis);
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(detector);
+        Thread watchdog = new Thread(detector::watch, "edt-stall-detector");
+        watchdog.setDaemon(true);
+        watchdog.start();
+    }
+
+    protected void dispatchEvent(AWTEvent event) {
+        edt = Thread.currentThread();
+        long outer = started;
+        if (outer != 0) report(current, outer, System.nanoTime() - outer, "before entering a nested event loop");
+        current = event;
+        started = System.nanoTime();
+        try {
+            super.dispatchEvent(event);
+        } finally {
+            long begin = started;
+            if (begin != 0) report(event, begin, System.nanoTime() - begin, null);
+            // A nested loop leaves nothing to time for the event around it.
+            started = 0;
+            current = null;
+        }
+    }
+
+    private void report(AWTEvent event, long begin, long nanos, String note) {
+        if (nanos < budgetNanos) return;
+        Overrun stall = overrun;
+        StackTraceElement[] stack = stall != null && stall.begin() == begin ? stall.stack() : null;
+        LogRecord record = new LogRecord(Level.WARNING, "EDT busy for {0} ms (budget {1} ms){2} handling {3}");
+        record.setParameters(new Object[] {nanos / 1_000_000, budgetNanos / 1_000_000, note == null ? "" : " " + note, describe(event)});
+        record.setLoggerName(LOG.getName());
+        if (stack != null) record.setThrown(stallTrace(stack));
+        LOG.log(record);
+    }
+
+    private void watch() {
+        long interval = Math.max(1, budgetNanos / 4);
+        long lastStart = 0;
+        while (true) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(interval);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long begin = started;
+            Thread thread = edt;
+            if (begin == 0 || thread == null) continue;
+            if (begin != lastStart) {
+                lastStart = begin;
+                reportedStuck = false;
+            }
+            long elapsed = System.nanoTime() - begin;
+            if (elapsed < budgetNanos) continue;
+            StackTraceElement[] stack = thread.getStackTrace();
+            Overrun stall = overrun;
+            if (stall == null || stall.begin() != begin) overrun = new Overrun(begin, stack);
+            if (!reportedStuck && elapsed >= budgetNanos * STUCK_FACTOR && started == begin) {
+                reportedStuck = true;
+                overrun = new Overrun(begin, stack);
+                report(current, begin, elapsed, "and still running");
+            }
+        }
+    }
+
+    private static String describe(AWTEvent event) {
+        if (event == null) return "an unknown event";
+        String text = event.toString();
+        return text.length() > 300 ? text.substring(0, 300) + "..." : text;
+    }
+
+    private static Throwable stallTrace(StackTraceElement[] stack) {
+        Throwable trace = new Throwable("EDT stack when the budget ran out");
+        trace.setStackTrace(stack);
+        return trace;
+    }
+}
@@ -0,0 +1,7 @@
+import java.util.Map;
+
+interface ExpiryAlertListener {
+    // Called with each ingredient that newly passed a threshold, mapped to the
+    // tightest threshold (in days) it has passed.
+    void expiryAlerts(Map<Ingredient, Integer> alerts);
+}
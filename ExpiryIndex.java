@@ -0,0 +1,63 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Ingredients bucketed by expiry epoch day. Range queries walk only the
+// buckets in range, so they cost O(log n + k).
+//
+// Buckets hold SKUs, and the current version of each item is kept beside
+// them in a concurrent map. A stock movement that keeps the expiry day only
+// replaces that version, without the index lock, so movements on different
+// SKUs do not queue up here. The service delivers the events for one SKU in
+// order, which is all the replacement relies on.
+class ExpiryIndex implements InventoryListener {
+    private final TreeMap<Integer, Set<String>> byDay = new TreeMap<>();
+    private final Map<String, Ingredient> current = new ConcurrentHashMap<>();
+
+    public synchronized void ingredientAdded(Ingredient ingredient) {
+        byDay.computeIfAbsent(ingredient.getExpiryEpochDay(), d -> new HashSet<>()).add(ingredient.getSku());
+        current.put(ingredient.getSku(), ingredient);
+    }
+
+    public synchronized void ingredientRemoved(Ingredient ingredient) {
+        if (!current.remove(ingredient.getSku(), ingredient)) return;
+        int day = ingredient.getExpiryEpochDay();
+        Set<String> bucket = byDay.get(day);
+        if (bucket != null && bucket.remove(ingredient.getSku()) && bucket.isEmpty())
+            byDay.remove(day);
+    }
+
+    public void ingredientUpdated(Ingredient old, Ingredient updated) {
+        if (old.getSku().equals(updated.getSku()) && old.getExpiryEpochDay() == updated.getExpiryEpochDay()
+                && current.replace(old.getSku(), old, updated))
+            return;
+        synchronized (this) {
+            ingredientRemoved(old);
+            ingredientAdded(updated);
+        }
+    }
+
+    // Everything that expires on or before the given day, earliest first.
+    public synchronized List<Ingredient> expiringOnOrBefore(int epochDay) {
+        return collect(byDay.headMap(epochDay, true));
+    }
+
+    // Everything that expires after afterDay and on or before throughDay.
+    public synchronized List<Ingredient> expiringBetween(int afterDay, int throughDay) {
+        if (throughDay <= afterDay) return List.of();
+        return collect(byDay.subMap(afterDay, false, throughDay, true));
+    }
+
+    private List<Ingredient> collect(NavigableMap<Integer, Set<String>> range) {
+        List<Ingredient> result = new ArrayList<>();
+        for (Map.Entry<Integer, Set<String>> bucket : range.entrySet())
+            for (String sku : bucket.getValue())
+                result.add(current.get(sku));
+        return result;
+    }
+}
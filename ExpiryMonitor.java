@@ -0,0 +1,107 @@
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Periodically raises alerts for ingredients that pass one of the configured
+// expiry thresholds (days before expiry, 0 meaning expired). Each threshold
+// keeps a watermark of the last day it covered, so a check only asks the
+// ExpiryIndex for the days that came into range since the previous one.
+class ExpiryMonitor implements InventoryListener {
+    static final String DEFAULT_THRESHOLDS = "0,3,7";
+
+    private final ExpiryIndex index;
+    private final int[] thresholds;
+    private final int[] watermarks;
+    private final ExpiryAlertListener alerts;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "inventory-expiry");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile int today = (int) LocalDate.now().toEpochDay();
+
+    public ExpiryMonitor(ExpiryIndex index, int[] thresholds, ExpiryAlertListener alerts) {
+        this.index = index;
+        this.thresholds = thresholds.clone();
+        Arrays.sort(this.thresholds);
+        this.watermarks = new int[thresholds.length];
+        Arrays.fill(watermarks, Integer.MIN_VALUE);
+        this.alerts = alerts;
+    }
+
+    // A comma-separated list of days. A malformed list falls back to the
+    // defaults with a warning rather than stopping startup.
+    public static int[] parseThresholds(String spec) {
+        try {
+            int[] thresholds = Arrays.stream(spec.split(",")).map(String::trim).filter(s -> !s.isEmpty())
+                    .mapToInt(Integer::parseInt).toArray();
+            for (int threshold : thresholds)
+                if (threshold < 0) throw new NumberFormatException("negative threshold " + threshold);
+            return thresholds;
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid expiry thresholds \"" + spec + "\" (" + e.getMessage() + "); using "
+                    + DEFAULT_THRESHOLDS + ".");
+            return parseThresholds(DEFAULT_THRESHOLDS);
+        }
+    }
+
+    public void start(long period, TimeUnit unit) {
+        scheduler.scheduleAtFixedRate(this::check, 0, period, unit);
+    }
+
+    public synchronized void check() {
+        today = (int) LocalDate.now().toEpochDay();
+        Map<Ingredient, Integer> passed = new LinkedHashMap<>();
+        for (int k = 0; k < thresholds.length; k++) {
+            int limit = today + thresholds[k];
+            for (Ingredient ingredient : index.expiringBetween(watermarks[k], limit))
+                passed.putIfAbsent(ingredient, thresholds[k]);
+            watermarks[k] = Math.max(watermarks[k], limit);
+        }
+        if (!passed.isEmpty())
+            alerts.expiryAlerts(passed);
+    }
+
+    // Items added below a watermark would never be seen by check(), so they
+    // are reported as soon as they arrive.
+    public void ingredientAdded(Ingredient ingredient) {
+        int day = ingredient.getExpiryEpochDay();
+        Integer threshold = null;
+        synchronized (this) {
+            for (int k = 0; k < thresholds.length && threshold == null; k++)
+                if (day <= watermarks[k]) threshold = thresholds[k];
+        }
+        if (threshold != null)
+            alerts.expiryAlerts(Map.of(ingredient, threshold));
+    }
+
+    public void ingredientRemoved(Ingredient ingredient) {
+    }
+
+    // A stock movement keeps the expiry date, and the item was already
+    // reported when it arrived.
+    public void ingredientUpdated(Ingredient old, Ingredient updated) {
+        if (old.getExpiryEpochDay() != updated.getExpiryEpochDay()) ingredientAdded(updated);
+    }
+
+    // Index of the tightest threshold the ingredient has passed as of the last
+    // check, or -1. Used to highlight rows without any scan.
+    public int severity(Ingredient ingredient) {
+        int daysLeft = ingredient.getExpiryEpochDay() - today;
+        for (int k = 0; k < thresholds.length; k++)
+            if (daysLeft <= thresholds[k]) return k;
+        return -1;
+    }
+
+    public int thresholdCount() {
+        return thresholds.length;
+    }
+
+    public int today() {
+        return today;
+    }
+}
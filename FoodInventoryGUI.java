@@ -1,60 +1,167 @@
 import javax.swing.*;
 import javax.swing.table.*;
 import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 
-class Ingredient {
-    private String name;
-    private String category;
-    private int quantity;
-    private LocalDate expirationDate;
-    private double price;
-
-    public Ingredient(String name, String category, int quantity, LocalDate expirationDate, double price) {
-        this.name = name;
-        this.category = category;
-        this.quantity = quantity;
-        this.expirationDate = expirationDate;
-        this.price = price;
-    }
-
-    public String getName() { return name; }
-    public String getCategory() { return category; }
-    public int getQuantity() { return quantity; }
-    public LocalDate getExpirationDate() { return expirationDate; }
-    public double getPrice() { return price; }
-
-    public Object[] toTableRow() {
-        return new Object[]{
-            name,
-            category,
-            quantity,
-            expirationDate.format(DateTimeFormatter.ofPattern("MM/dd/yyyy")),
-            String.format("₱%.2f", price)
-        };
+public class FoodInventoryGUI extends JFrame {
+    private static final Map<String, List<SortEngine.Key>> SORT_ORDERS = new LinkedHashMap<>();
+    static {
+        SORT_ORDERS.put("Name", List.of(SortEngine.Key.NAME));
+        SORT_ORDERS.put("Category, Expiry, Name", List.of(SortEngine.Key.CATEGORY, SortEngine.Key.EXPIRY, SortEngine.Key.NAME));
+        SORT_ORDERS.put("Expiry, Name", List.of(SortEngine.Key.EXPIRY, SortEngine.Key.NAME));
+        SORT_ORDERS.put("Category, Quantity", List.of(SortEngine.Key.CATEGORY, SortEngine.Key.QUANTITY));
+        SORT_ORDERS.put("Price, Name", List.of(SortEngine.Key.PRICE, SortEngine.Key.NAME));
     }
-}
 
-public class FoodInventoryGUI extends JFrame {
     private List<Ingredient> ingredients;
-    private DefaultTableModel tableModel;
+    private IngredientTableModel tableModel;
+    private InventoryService service;
     private JTable inventoryTable;
+    private JButton addButton;
+    private String editingSku;
     private JTextField nameField;
     private JComboBox<String> categoryComboBox;
     private JSpinner quantitySpinner;
     private JSpinner dateSpinner;
     private JSpinner priceSpinner;
     private JComboBox<String> algorithmComboBox;
+    private JComboBox<String> sortOrderComboBox;
     private JTextField searchField;
-    private TableRowSorter<DefaultTableModel> rowSorter;
+    private PermutationRowSorter rowSorter;
+    private SearchIndex searchIndex;
+    private IncrementalSearch incrementalSearch;
+    private InventoryStore store;
+    private Path dataDir;
+    private LowStockIndex lowStockIndex;
+    private LowStockDialog lowStockDialog;
+    private RecipeBook recipeBook;
+    private ConsumptionHistory history;
+    private ForecastDialog forecastDialog;
+    private BranchReplicator replicator;
+    // Heavy work runs here, off the EDT; see TaskScheduler.
+    private final TaskScheduler tasks = TaskScheduler.create();
+    private final InventoryMetrics metrics = new InventoryMetrics();
+    private QueryIndex queryIndex;
+    private InventoryAnalytics analytics;
+    private QueryDialog queryDialog;
+    private InventoryQuery activeQuery;
+    private RowFilter<IngredientTableModel, Integer> searchFilter;
+    private RowFilter<IngredientTableModel, Integer> queryFilter;
+    private javax.swing.Timer requeryTimer;
+    private ExpiryIndex expiryIndex;
+    private ExpiryMonitor expiryMonitor;
+    private JLabel alertLabel;
+    private int alertCount;
+    private Color[] expiryColors;
 
     public FoodInventoryGUI() {
         ingredients = new ArrayList<>();
+        dataDir = Paths.get(System.getProperty("inventory.dir",
+                Paths.get(System.getProperty("user.home"), ".food-inventory").toString()));
+        startMetrics();
         initializeGUI();
-        loadSampleData();
+        loadInventory();
+        loadHistory();
+        loadReplication();
+        expiryMonitor.start(Long.getLong("inventory.expiry.checkMinutes", 30), java.util.concurrent.TimeUnit.MINUTES);
+        startHttpServer();
+    }
+
+    // Always visible over JMX; also appended to a rolling file when
+    // inventory.metrics.file names one.
+    private void startMetrics() {
+        try {
+            metrics.registerMBeans();
+        } catch (javax.management.JMException e) {
+            System.err.println("Could not register metrics MBeans: " + e.getMessage());
+        }
+        String file = System.getProperty("inventory.metrics.file");
+        metrics.start(Long.getLong("inventory.metrics.intervalSeconds", 60), file == null ? null
+                : new RollingMetricsFile(Paths.get(file), Long.getLong("inventory.metrics.fileMaxBytes", 1L << 20),
+                        Integer.getInteger("inventory.metrics.fileCount", 5), InventoryMetrics.FILE_HEADER));
+        Runtime.getRuntime().addShutdownHook(new Thread(metrics::stop));
+    }
+
+    // Opt-in with -Dinventory.http.port; binds to loopback unless
+    // inventory.http.host says otherwise.
+    private void startHttpServer() {
+        Integer port = Integer.getInteger("inventory.http.port");
+        if (port == null) return;
+        InventoryHttpServer server = new InventoryHttpServer(service, searchIndex, expiryIndex, lowStockIndex);
+        try {
+            server.start(new java.net.InetSocketAddress(System.getProperty("inventory.http.host", "127.0.0.1"), port));
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Could not start the HTTP API on port " + port + ": " + e.getMessage(),
+                    "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private void loadInventory() {
+        store = new InventoryStore(dataDir, Integer.getInteger("inventory.snapshotInterval", 50_000));
+        try {
+            if (!store.attach(service))
+                loadSampleData();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    store.close();
+                } catch (IOException e) {
+                    System.err.println("Could not flush inventory journal: " + e.getMessage());
+                }
+            }));
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Could not open inventory data in " + dataDir + ": " + e.getMessage()
+                    + "\nChanges will not be saved.", "Error", JOptionPane.ERROR_MESSAGE);
+            loadSampleData();
+        }
+    }
+
+    // Registered after the inventory is loaded, so only movements from here
+    // on are recorded.
+    private void loadHistory() {
+        try {
+            history = ConsumptionHistory.load(dataDir, expiryMonitor::today);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Could not read the consumption history: " + e.getMessage()
+                    + "\nStarting a new one.", "Error", JOptionPane.ERROR_MESSAGE);
+            history = new ConsumptionHistory(expiryMonitor::today);
+        }
+        service.addInventoryListener(history);
+        history.startSaving(dataDir, Long.getLong("inventory.history.saveSeconds", 60), java.util.concurrent.TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                history.stop(dataDir);
+            } catch (IOException e) {
+                System.err.println("Could not save consumption history: " + e.getMessage());
+            }
+        }));
+    }
+
+    // Only with -Dinventory.sync.dir, the directory branches share; the
+    // first sync exports the whole inventory.
+    private void loadReplication() {
+        if (System.getProperty("inventory.sync.dir") == null) return;
+        try {
+            replicator = BranchReplicator.load(dataDir, service);
+        } catch (IOException | IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(this, "Could not read the replication state: " + e.getMessage()
+                    + "\nBranch sync is off.", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        replicator.attach();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                replicator.save(dataDir);
+            } catch (IOException e) {
+                System.err.println("Could not save replication state: " + e.getMessage());
+            }
+        }));
     }
 
     private void initializeGUI() {
@@ -68,12 +175,17 @@ public class FoodInventoryGUI extends JFrame {
         JPanel tablePanel = createTablePanel();
         JPanel buttonPanel = createButtonPanel();
 
+        JSplitPane center = new JSplitPane(JSplitPane.VERTICAL_SPLIT, tablePanel,
+                new AnalyticsPanel(analytics, () -> expiryMonitor.today()));
+        center.setResizeWeight(0.7);
+        center.setBorder(null);
+
         add(headerPanel, BorderLayout.NORTH);
         add(inputPanel, BorderLayout.WEST);
-        add(tablePanel, BorderLayout.CENTER);
+        add(center, BorderLayout.CENTER);
         add(buttonPanel, BorderLayout.SOUTH);
 
-        setSize(950, 600);
+        setSize(950, 760);
         setLocationRelativeTo(null);
     }
 
@@ -86,6 +198,10 @@ public class FoodInventoryGUI extends JFrame {
         title.setForeground(Color.WHITE);
         title.setFont(new Font("Segoe UI", Font.BOLD, 20));
 
+        alertLabel = new JLabel(" ");
+        alertLabel.setForeground(new Color(255, 230, 120));
+        alertLabel.setFont(new Font("Segoe UI", Font.BOLD, 12));
+
         JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 5));
         searchPanel.setBackground(new Color(0, 128, 0));
         JLabel searchLabel = new JLabel("Search:");
@@ -95,6 +211,7 @@ public class FoodInventoryGUI extends JFrame {
         searchPanel.add(searchField);
 
         panel.add(title, BorderLayout.CENTER);
+        panel.add(alertLabel, BorderLayout.SOUTH);
         panel.add(searchPanel, BorderLayout.EAST);
 
         return panel;
@@ -117,8 +234,7 @@ public class FoodInventoryGUI extends JFrame {
         gbc.gridx = 0; gbc.gridy = 1;
         panel.add(new JLabel("Category:"), gbc);
         gbc.gridx = 1;
-        String[] categories = {"Produce", "Dairy", "Meat", "Seafood", "Dry Goods", "Spices", "Beverages", "Frozen"};
-        categoryComboBox = new JComboBox<>(categories);
+        categoryComboBox = new JComboBox<>(Ingredient.CATEGORIES);
         panel.add(categoryComboBox, gbc);
 
         gbc.gridx = 0; gbc.gridy = 2;
@@ -144,22 +260,69 @@ public class FoodInventoryGUI extends JFrame {
         gbc.gridx = 0; gbc.gridy = 5;
         panel.add(new JLabel("Sort Algorithm:"), gbc);
         gbc.gridx = 1;
-        String[] algorithms = {"Built-in (Click Headers)", "Bubble Sort", "Quick Sort", "Merge Sort"};
+        String[] algorithms = {"Built-in (Click Headers)", "Bubble Sort", "Introsort", "Parallel Merge Sort"};
         algorithmComboBox = new JComboBox<>(algorithms);
         panel.add(algorithmComboBox, gbc);
 
+        gbc.gridx = 0; gbc.gridy = 6;
+        panel.add(new JLabel("Sort By:"), gbc);
+        gbc.gridx = 1;
+        sortOrderComboBox = new JComboBox<>(SORT_ORDERS.keySet().toArray(new String[0]));
+        panel.add(sortOrderComboBox, gbc);
+
         return panel;
     }
 
     private JPanel createTablePanel() {
         JPanel panel = new JPanel(new BorderLayout());
         panel.setBackground(new Color(245, 255, 245));
-        String[] columns = {"Name", "Category", "Quantity", "Expiration Date", "Price"};
-        tableModel = new DefaultTableModel(columns, 0) {
-            public boolean isCellEditable(int row, int col) { return false; }
-        };
+        tableModel = new IngredientTableModel(ingredients);
+
+        // The service owns the inventory; the indexes follow it directly and
+        // the table mirrors it on the EDT.
+        service = new InventoryService();
+        service.addInventoryListener(new SwingInventoryBridge(tableModel, metrics));
+
+        lowStockIndex = loadLowStockIndex();
+        service.addInventoryListener(lowStockIndex);
+
+        expiryIndex = new ExpiryIndex();
+        expiryMonitor = new ExpiryMonitor(expiryIndex,
+                ExpiryMonitor.parseThresholds(System.getProperty("inventory.expiry.thresholds", ExpiryMonitor.DEFAULT_THRESHOLDS)),
+                alerts -> SwingUtilities.invokeLater(() -> showExpiryAlerts(alerts)));
+        service.addInventoryListener(expiryIndex);
+        service.addInventoryListener(expiryMonitor);
+
+        queryIndex = new QueryIndex();
+        service.addInventoryListener(queryIndex);
+
+        analytics = new InventoryAnalytics(Integer.getInteger("inventory.analytics.riskDays", 7));
+        service.addInventoryListener(analytics);
+
+        // The table reads formatted text from a cache of recently shown rows,
+        // and its sorter keeps the view as an index permutation; see
+        // PermutationRowSorter. Only visible rows are ever read or formatted.
+        FormattedRowCache rowCache = new FormattedRowCache(tableModel, 1024);
+        inventoryTable = new JTable(tableModel) {
+            public Object getValueAt(int row, int column) {
+                return rowCache.text(convertRowIndexToModel(row), convertColumnIndexToModel(column));
+            }
 
-        inventoryTable = new JTable(tableModel);
+            protected void paintComponent(Graphics g) {
+                long start = System.nanoTime();
+                super.paintComponent(g);
+                metrics.record(InventoryMetrics.Operation.RENDER, System.nanoTime() - start);
+            }
+
+            public Component prepareRenderer(TableCellRenderer renderer, int row, int column) {
+                Component cell = super.prepareRenderer(renderer, row, column);
+                if (!isRowSelected(row)) {
+                    Ingredient ingredient = tableModel.getIngredient(convertRowIndexToModel(row));
+                    cell.setBackground(expiryHighlight(expiryMonitor.severity(ingredient)));
+                }
+                return cell;
+            }
+        };
         inventoryTable.setFillsViewportHeight(true);
         inventoryTable.setSelectionBackground(new Color(144, 238, 144));
         inventoryTable.setSelectionForeground(Color.BLACK);
@@ -167,33 +330,27 @@ public class FoodInventoryGUI extends JFrame {
         inventoryTable.getTableHeader().setBackground(new Color(0, 128, 0));
         inventoryTable.getTableHeader().setForeground(Color.WHITE);
         inventoryTable.getTableHeader().setFont(new Font("Segoe UI", Font.BOLD, 13));
+        inventoryTable.setDefaultRenderer(LocalDate.class, new DefaultTableCellRenderer());
+        inventoryTable.setDefaultRenderer(Long.class, new DefaultTableCellRenderer());
 
-        inventoryTable.setAutoCreateRowSorter(true);
-        
-        rowSorter = new TableRowSorter<>(tableModel);
-        
-        rowSorter.setComparator(2, Comparator.comparingInt(o -> Integer.parseInt(o.toString()))); // Quantity
-        rowSorter.setComparator(3, Comparator.comparing(o -> {
-            // Date parsing for expiration date
-            try {
-                String dateStr = o.toString();
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/dd/yyyy");
-                return LocalDate.parse(dateStr, formatter);
-            } catch (Exception e) {
-                return LocalDate.MIN;
-            }
-        }));
-        rowSorter.setComparator(4, Comparator.comparing(o -> {
-            try {
-                String priceStr = o.toString().replace("₱", "").trim();
-                return Double.parseDouble(priceStr);
-            } catch (Exception e) {
-                return 0.0;
-            }
-        }));
-        
+        // Sorts through SortEngine keys over the model's rows and keeps the
+        // view order as a permutation, off the EDT for large tables.
+        rowSorter = new PermutationRowSorter(tableModel, tasks);
         inventoryTable.setRowSorter(rowSorter);
 
+        searchIndex = new SearchIndex();
+        incrementalSearch = new IncrementalSearch(searchIndex, tasks, metrics, 120, this::applySearchMatches);
+        service.addInventoryListener(searchIndex);
+        tableModel.addInventoryListener(incrementalSearch);
+
+        // An active query is re-run once the table settles after a change;
+        // a burst of movements costs one evaluation, not one per row.
+        requeryTimer = new javax.swing.Timer(200, e -> applyQuery(activeQuery));
+        requeryTimer.setRepeats(false);
+        tableModel.addTableModelListener(e -> {
+            if (activeQuery != null) requeryTimer.restart();
+        });
+
         searchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
             public void insertUpdate(javax.swing.event.DocumentEvent e) { filterTable(); }
             public void removeUpdate(javax.swing.event.DocumentEvent e) { filterTable(); }
@@ -204,34 +361,58 @@ public class FoodInventoryGUI extends JFrame {
         return panel;
     }
 
+    // One row each for editing, reports and data exchange, so every button
+    // stays on screen at the default width. New buttons go in their group's
+    // row, or a new row.
     private JPanel createButtonPanel() {
-        JPanel panel = new JPanel(new FlowLayout(FlowLayout.CENTER, 15, 10));
+        JPanel panel = new JPanel(new GridLayout(0, 1));
         panel.setBackground(new Color(230, 250, 230));
+        panel.setBorder(BorderFactory.createEmptyBorder(5, 0, 5, 0));
 
-        JButton addButton = makeButton("Add Ingredient");
+        addButton = makeButton("Add Ingredient");
         JButton editButton = makeButton("Edit Selected");
         JButton clearButton = makeButton("Clear Form");
         JButton deleteButton = makeButton("Delete Selected");
+        JButton lotsButton = makeButton("Show Lots");
         JButton lowStockButton = makeButton("Show Low Stock");
+        JButton forecastButton = makeButton("Reorder Forecast");
+        JButton syncButton = makeButton("Sync Branches");
+        JButton expiringButton = makeButton("Expiring Soon");
+        JButton queryButton = makeButton("Advanced Query...");
+        JButton importButton = makeButton("Import...");
+        JButton ordersButton = makeButton("Replay Orders...");
+        JButton exportButton = makeButton("Export...");
         JButton demoSortButton = makeButton("Demo Sort Algorithm"); 
 
         addButton.addActionListener(e -> addIngredient());
         editButton.addActionListener(e -> editSelectedIngredient());
         clearButton.addActionListener(e -> clearForm());
         deleteButton.addActionListener(e -> deleteSelectedIngredient());
+        lotsButton.addActionListener(e -> showSelectedLots());
         lowStockButton.addActionListener(e -> showLowStock());
+        forecastButton.addActionListener(e -> showForecast());
+        syncButton.addActionListener(e -> syncBranches());
+        expiringButton.addActionListener(e -> showExpiringSoon());
+        queryButton.addActionListener(e -> showQueryDialog());
+        importButton.addActionListener(e -> importDelivery());
+        ordersButton.addActionListener(e -> replayOrders());
+        exportButton.addActionListener(e -> exportInventory());
         demoSortButton.addActionListener(e -> demoSortAlgorithm());
 
-        panel.add(addButton);
-        panel.add(editButton);
-        panel.add(clearButton);
-        panel.add(deleteButton);
-        panel.add(lowStockButton);
-        panel.add(demoSortButton);
+        panel.add(buttonRow(addButton, editButton, clearButton, deleteButton, lotsButton));
+        panel.add(buttonRow(lowStockButton, forecastButton, expiringButton, queryButton));
+        panel.add(buttonRow(importButton, exportButton, ordersButton, syncButton, demoSortButton));
 
         return panel;
     }
 
+    private JPanel buttonRow(JButton... buttons) {
+        JPanel row = new JPanel(new FlowLayout(FlowLayout.CENTER, 15, 5));
+        row.setOpaque(false);
+        for (JButton button : buttons) row.add(button);
+        return row;
+    }
+
     private JButton makeButton(String text) {
         JButton button = new JButton(text);
         button.setBackground(new Color(0, 150, 0));
@@ -244,15 +425,86 @@ public class FoodInventoryGUI extends JFrame {
     }
 
     private void filterTable() {
-        String text = searchField.getText().trim();
-        if (text.length() == 0) {
-            rowSorter.setRowFilter(null);
+        incrementalSearch.queryChanged(searchField.getText());
+    }
+
+    private void applySearchMatches(Set<Ingredient> matches) {
+        if (matches == null) {
+            searchFilter = null;
         } else {
-            rowSorter.setRowFilter(RowFilter.regexFilter("(?i)" + text));
+            // Rows are unique by SKU, and the index may hand back a newer
+            // version of an item than the row has caught up with, so match
+            // on SKU.
+            Set<String> skus = new HashSet<>();
+            for (Ingredient match : matches) skus.add(match.getSku());
+            searchFilter = skuFilter(skus::contains);
+        }
+        updateRowFilter();
+    }
+
+    // The index answers from its bitmaps in the background; the filter then
+    // only asks whether each row's SKU is in the answer. A newer query, or
+    // clearing it, cancels one still being evaluated.
+    private void applyQuery(InventoryQuery query) {
+        activeQuery = query == null || query.isEmpty() ? null : query;
+        if (activeQuery == null) {
+            requeryTimer.stop();
+            tasks.cancel("query");
+            queryFilter = null;
+            updateRowFilter();
+            if (queryDialog != null && queryDialog.isDisplayable()) queryDialog.showResult(null, null);
+            return;
         }
+        InventoryQuery evaluated = activeQuery;
+        int today = expiryMonitor.today();
+        tasks.submit("query", new BackgroundTask<QueryIndex.Result>() {
+            protected QueryIndex.Result doInBackground() {
+                QueryIndex.Result result = queryIndex.evaluate(evaluated, today);
+                metrics.record(InventoryMetrics.Operation.QUERY, result.getNanos());
+                return result;
+            }
+
+            protected void done() {
+                if (isCancelled() || evaluated != activeQuery) return;
+                QueryIndex.Result result;
+                try {
+                    result = get();
+                } catch (ExecutionException e) {
+                    JOptionPane.showMessageDialog(FoodInventoryGUI.this, "Error running query: " + e.getCause().getMessage(),
+                            "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                queryFilter = skuFilter(result::includes);
+                updateRowFilter();
+                if (queryDialog != null && queryDialog.isDisplayable()) queryDialog.showResult(evaluated, result);
+            }
+        });
+    }
+
+    private static RowFilter<IngredientTableModel, Integer> skuFilter(java.util.function.Predicate<String> included) {
+        return new RowFilter<IngredientTableModel, Integer>() {
+            public boolean include(Entry<? extends IngredientTableModel, ? extends Integer> entry) {
+                return included.test(entry.getModel().getIngredient(entry.getIdentifier()).getSku());
+            }
+        };
+    }
+
+    private void updateRowFilter() {
+        long start = System.nanoTime();
+        if (searchFilter == null || queryFilter == null) rowSorter.setRowFilter(searchFilter != null ? searchFilter : queryFilter);
+        else rowSorter.setRowFilter(RowFilter.andFilter(List.of(searchFilter, queryFilter)));
+        metrics.record(InventoryMetrics.Operation.FILTER, System.nanoTime() - start);
+    }
+
+    private void showQueryDialog() {
+        if (queryDialog == null || !queryDialog.isDisplayable())
+            queryDialog = new QueryDialog(this, Ingredient.CATEGORIES, this::applyQuery);
+        queryDialog.setVisible(true);
+        queryDialog.toFront();
     }
 
     private void addIngredient() {
+        InventoryMetrics.Operation operation = editingSku != null ? InventoryMetrics.Operation.EDIT : InventoryMetrics.Operation.ADD;
         try {
             String name = nameField.getText().trim();
             if (name.isEmpty()) {
@@ -267,12 +519,26 @@ public class FoodInventoryGUI extends JFrame {
             double price = (Double) priceSpinner.getValue();
 
             Ingredient ingredient = new Ingredient(name, category, quantity, expirationDate, price);
-            ingredients.add(ingredient);
-            tableModel.addRow(ingredient.toTableRow());
+            String message;
+            long start = System.nanoTime();
+            if (editingSku != null) {
+                service.update(editingSku, ingredient);
+                message = "Ingredient updated successfully!";
+            } else if (service.get(ingredient.getSku()) != null) {
+                Ingredient merged = service.upsert(ingredient);
+                int lots = service.lots(merged.getSku()).size();
+                message = "Received " + quantity + " more " + merged.getName() + "; " + merged.getQuantity() + " now on hand"
+                        + (lots > 1 ? " in " + lots + " lots, used first-expiry-first-out." : ".");
+            } else {
+                service.upsert(ingredient);
+                message = "Ingredient added successfully!";
+            }
+            metrics.record(operation, System.nanoTime() - start);
             clearForm();
             
-            JOptionPane.showMessageDialog(this, "Ingredient added successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
+            JOptionPane.showMessageDialog(this, message, "Success", JOptionPane.INFORMATION_MESSAGE);
         } catch (Exception e) {
+            metrics.failed(operation);
             JOptionPane.showMessageDialog(this, "Error adding ingredient: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
         }
     }
@@ -290,118 +556,49 @@ public class FoodInventoryGUI extends JFrame {
             return;
         }
 
-        Comparator<Ingredient> comparator = Comparator.comparing(Ingredient::getName, String.CASE_INSENSITIVE_ORDER);
-        
-        long startTime = System.nanoTime();
-        
-        switch (algorithm) {
-            case "Bubble Sort" -> bubbleSort(comparator);
-            case "Quick Sort" -> quickSort(comparator);
-            case "Merge Sort" -> mergeSort(comparator);
-        }
-        
-        long endTime = System.nanoTime();
-        long duration = (endTime - startTime) / 1000000;
-        
-        refreshTable();
-        
-        String message = String.format(
-            "Algorithm: %s\nTime: %d ms\nItems sorted: %d\n\n" +
-            "Note: For regular use, click column headers to sort.",
-            algorithm, duration, ingredients.size()
-        );
-        
-        JOptionPane.showMessageDialog(this, message, "Algorithm Demo", JOptionPane.INFORMATION_MESSAGE);
-    }
-
-    private void bubbleSort(Comparator<Ingredient> comparator) {
-        int n = ingredients.size();
-        boolean swapped;
-        
-        for (int i = 0; i < n - 1; i++) {
-            swapped = false;
-            for (int j = 0; j < n - i - 1; j++) {
-                if (comparator.compare(ingredients.get(j), ingredients.get(j + 1)) > 0) {
-                    swapIngredients(j, j + 1);
-                    swapped = true;
-                }
-            }
-            if (!swapped) break;
-        }
-    }
-
-    private void quickSort(Comparator<Ingredient> comparator) {
-        if (ingredients.isEmpty()) return;
-        quickSort(0, ingredients.size() - 1, comparator);
-    }
-
-    private void quickSort(int low, int high, Comparator<Ingredient> comparator) {
-        if (low < high) {
-            int pivotIndex = partition(low, high, comparator);
-            quickSort(low, pivotIndex - 1, comparator);
-            quickSort(pivotIndex + 1, high, comparator);
-        }
-    }
-
-    private int partition(int low, int high, Comparator<Ingredient> comparator) {
-        Ingredient pivot = ingredients.get(high);
-        int i = low - 1;
-        
-        for (int j = low; j < high; j++) {
-            if (comparator.compare(ingredients.get(j), pivot) <= 0) {
-                i++;
-                swapIngredients(i, j);
+        String sortOrder = (String) sortOrderComboBox.getSelectedItem();
+        List<SortEngine.Key> keys = SORT_ORDERS.get(sortOrder);
+        Ingredient[] items = tableModel.toArray();
+        long modelVersion = tableModel.getVersion();
+
+        // Run the algorithm on an index array off the EDT, then show the
+        // order it produced through the table's sorter, which keeps it as
+        // rows change. Starting another sort cancels this one.
+        tasks.submit("sort", new BackgroundTask<int[]>() {
+            private long duration;
+
+            protected int[] doInBackground() {
+                long startTime = System.nanoTime();
+                int[] order = switch (algorithm) {
+                    case "Bubble Sort" -> SortEngine.bubbleSort(items, keys);
+                    case "Introsort" -> SortEngine.introsort(items, keys);
+                    default -> SortEngine.parallelMergeSort(items, keys, ForkJoinPool.commonPool());
+                };
+                duration = System.nanoTime() - startTime;
+                metrics.record(InventoryMetrics.Operation.SORT, duration);
+                return order;
             }
-        }
-        swapIngredients(i + 1, high);
-        return i + 1;
-    }
-
-    private void mergeSort(Comparator<Ingredient> comparator) {
-        if (ingredients.size() <= 1) return;
-        
-        List<Ingredient> sorted = mergeSortHelper(new ArrayList<>(ingredients), comparator);
-        ingredients.clear();
-        ingredients.addAll(sorted);
-    }
 
-    private List<Ingredient> mergeSortHelper(List<Ingredient> list, Comparator<Ingredient> comparator) {
-        if (list.size() <= 1) return list;
-        
-        int mid = list.size() / 2;
-        List<Ingredient> left = mergeSortHelper(new ArrayList<>(list.subList(0, mid)), comparator);
-        List<Ingredient> right = mergeSortHelper(new ArrayList<>(list.subList(mid, list.size())), comparator);
-        
-        return merge(left, right, comparator);
-    }
-
-    private List<Ingredient> merge(List<Ingredient> left, List<Ingredient> right, Comparator<Ingredient> comparator) {
-        List<Ingredient> merged = new ArrayList<>();
-        int i = 0, j = 0;
-        
-        while (i < left.size() && j < right.size()) {
-            if (comparator.compare(left.get(i), right.get(j)) <= 0) {
-                merged.add(left.get(i++));
-            } else {
-                merged.add(right.get(j++));
+            protected void done() {
+                if (isCancelled()) return;
+                int[] order;
+                try {
+                    order = get();
+                } catch (ExecutionException e) {
+                    JOptionPane.showMessageDialog(FoodInventoryGUI.this, "Error sorting: " + e.getCause().getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                rowSorter.showOrder(keys, order, modelVersion);
+
+                String message = String.format(
+                    "Algorithm: %s\nSorted by: %s\nTime: %.2f ms\nItems sorted: %d\nCores: %d\n\n" +
+                    "Note: For regular use, click column headers to sort.",
+                    algorithm, SortEngine.describe(keys), duration / 1e6, items.length,
+                    ForkJoinPool.commonPool().getParallelism()
+                );
+                JOptionPane.showMessageDialog(FoodInventoryGUI.this, message, "Algorithm Demo", JOptionPane.INFORMATION_MESSAGE);
             }
-        }
-        
-        while (i < left.size()) {
-            merged.add(left.get(i++));
-        }
-        
-        while (j < right.size()) {
-            merged.add(right.get(j++));
-        }
-        
-        return merged;
-    }
-
-    private void swapIngredients(int i, int j) {
-        Ingredient temp = ingredients.get(i);
-        ingredients.set(i, ingredients.get(j));
-        ingredients.set(j, temp);
+        });
     }
 
     private void deleteSelectedIngredient() {
@@ -413,12 +610,45 @@ public class FoodInventoryGUI extends JFrame {
         int confirm = JOptionPane.showConfirmDialog(this, "Delete selected ingredient?", "Confirm", JOptionPane.YES_NO_OPTION);
         if (confirm == JOptionPane.YES_OPTION) {
             int modelRow = inventoryTable.convertRowIndexToModel(row);
-            ingredients.remove(modelRow);
-            tableModel.removeRow(modelRow);
+            long start = System.nanoTime();
+            service.remove(tableModel.getIngredient(modelRow).getSku());
+            metrics.record(InventoryMetrics.Operation.DELETE, System.nanoTime() - start);
             JOptionPane.showMessageDialog(this, "Ingredient deleted successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
         }
     }
 
+    private void showSelectedLots() {
+        int row = inventoryTable.getSelectedRow();
+        if (row == -1) {
+            JOptionPane.showMessageDialog(this, "Select an ingredient to show its lots.", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        Ingredient selected = tableModel.getIngredient(inventoryTable.convertRowIndexToModel(row));
+        List<Lot> lots;
+        try {
+            lots = service.lots(selected.getSku());
+        } catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(this, e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        String[] columns = {"Expiration Date", "Quantity"};
+        Object[][] rows = new Object[lots.size()][];
+        for (int i = 0; i < lots.size(); i++)
+            rows[i] = new Object[] {lots.get(i).expirationDate(), lots.get(i).quantity()};
+        JTable table = new JTable(rows, columns);
+        table.setDefaultRenderer(Object.class, new DateCellRenderer() {
+            protected void setValue(Object value) {
+                if (value instanceof LocalDate) super.setValue(value);
+                else setText(String.valueOf(value));
+            }
+        });
+        table.setEnabled(false);
+        JScrollPane scroll = new JScrollPane(table);
+        scroll.setPreferredSize(new Dimension(320, Math.min(300, 40 + 20 * lots.size())));
+        JOptionPane.showMessageDialog(this, scroll, selected.getName() + " - " + lots.size()
+                + (lots.size() == 1 ? " lot" : " lots, used first-expiry-first-out"), JOptionPane.PLAIN_MESSAGE);
+    }
+
     private void editSelectedIngredient() {
         int viewRow = inventoryTable.getSelectedRow();
         if (viewRow == -1) {
@@ -427,7 +657,7 @@ public class FoodInventoryGUI extends JFrame {
         }
         
         int modelRow = inventoryTable.convertRowIndexToModel(viewRow);
-        Ingredient selectedIngredient = ingredients.get(modelRow);
+        Ingredient selectedIngredient = tableModel.getIngredient(modelRow);
         
         nameField.setText(selectedIngredient.getName());
         categoryComboBox.setSelectedItem(selectedIngredient.getCategory());
@@ -439,28 +669,241 @@ public class FoodInventoryGUI extends JFrame {
         
         priceSpinner.setValue(selectedIngredient.getPrice());
         
-        ingredients.remove(modelRow);
-        tableModel.removeRow(modelRow);
+        editingSku = selectedIngredient.getSku();
+        addButton.setText("Save Changes");
         
         nameField.requestFocus();
         
         JOptionPane.showMessageDialog(this, 
-            "Ingredient loaded for editing. Modify values and click 'Add Ingredient' to save.", 
+            "Ingredient loaded for editing. Modify values and click 'Save Changes', or 'Clear Form' to cancel.", 
             "Edit Mode", JOptionPane.INFORMATION_MESSAGE);
     }
 
+    private LowStockIndex loadLowStockIndex() {
+        try {
+            LowStockIndex index = LowStockIndex.load(dataDir);
+            if (!index.getWarnings().isEmpty())
+                JOptionPane.showMessageDialog(this, "Some low-stock thresholds were not read:\n"
+                        + String.join("\n", index.getWarnings()), "Warning", JOptionPane.WARNING_MESSAGE);
+            return index;
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Could not read low-stock thresholds: " + e.getMessage()
+                    + "\nUsing the default threshold of " + LowStockIndex.DEFAULT_THRESHOLD + ".", "Error", JOptionPane.ERROR_MESSAGE);
+            return new LowStockIndex(LowStockIndex.DEFAULT_THRESHOLD);
+        }
+    }
+
     private void showLowStock() {
-        StringBuilder msg = new StringBuilder();
-        for (Ingredient i : ingredients) {
-            if (i.getQuantity() <= 10)
-                msg.append("- ").append(i.getName()).append(": ").append(i.getQuantity()).append(" units\n");
+        if (lowStockDialog == null || !lowStockDialog.isDisplayable())
+            lowStockDialog = new LowStockDialog(this, lowStockIndex);
+        lowStockDialog.open();
+    }
+
+    private void showForecast() {
+        if (forecastDialog == null || !forecastDialog.isDisplayable())
+            forecastDialog = new ForecastDialog(this, DemandForecast.fromSystemProperties(history), history, service,
+                    tasks, expiryMonitor::today);
+        forecastDialog.setVisible(true);
+        forecastDialog.toFront();
+    }
+
+    private void syncBranches() {
+        if (replicator == null) {
+            JOptionPane.showMessageDialog(this, "Branch sync is off. Start with -Dinventory.sync.dir=<shared folder>"
+                    + " and optionally -Dinventory.branch=<name>.", "Sync Branches", JOptionPane.INFORMATION_MESSAGE);
+            return;
         }
-        if (msg.length() == 0)
-            msg.append("No low stock items!");
-        JOptionPane.showMessageDialog(this, msg.toString(), "Low Stock", JOptionPane.INFORMATION_MESSAGE);
+        Path syncDir = Paths.get(System.getProperty("inventory.sync.dir"));
+        tasks.submit("sync", new BackgroundTask<BranchReplicator.Result>() {
+            protected BranchReplicator.Result doInBackground() throws IOException {
+                return replicator.sync(syncDir, dataDir);
+            }
+
+            protected void done() {
+                if (isCancelled()) return;
+                try {
+                    BranchReplicator.Result result = get();
+                    JOptionPane.showMessageDialog(FoodInventoryGUI.this, String.format(
+                            "Branch %s exported %,d changes (%,d bytes).%nMerged %,d changes from %,d files; %,d ingredients updated.",
+                            replicator.getBranch(), result.exported(), result.exportedBytes(), result.merged(),
+                            result.files(), result.applied()), "Sync Branches", JOptionPane.INFORMATION_MESSAGE);
+                } catch (ExecutionException e) {
+                    JOptionPane.showMessageDialog(FoodInventoryGUI.this, "Sync failed: " + e.getCause().getMessage(),
+                            "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        });
+    }
+
+    private void showExpiringSoon() {
+        String input = JOptionPane.showInputDialog(this, "Show ingredients expiring within how many days?", "7");
+        if (input == null) return;
+        int days;
+        try {
+            days = Integer.parseInt(input.trim());
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(this, "Please enter a whole number of days.", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        int horizon = expiryMonitor.today() + days;
+        tasks.submit("report", new BackgroundTask<List<Ingredient>>() {
+            protected List<Ingredient> doInBackground() {
+                return expiryIndex.expiringOnOrBefore(horizon);
+            }
+
+            protected void done() {
+                if (!isCancelled()) showExpiring(this, days);
+            }
+        });
+    }
+
+    private void showExpiring(BackgroundTask<List<Ingredient>> report, int days) {
+        List<Ingredient> expiring;
+        try {
+            expiring = report.get();
+        } catch (ExecutionException e) {
+            JOptionPane.showMessageDialog(this, "Error listing expiring items: " + e.getCause().getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (expiring.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Nothing expires within " + days + " days.", "Expiring Soon", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        JTable table = new JTable(new IngredientTableModel(expiring));
+        table.setDefaultRenderer(LocalDate.class, new DateCellRenderer());
+        table.setDefaultRenderer(Long.class, new PriceCellRenderer());
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.setPreferredSize(new Dimension(600, 300));
+        JOptionPane.showMessageDialog(this, scrollPane, expiring.size() + " ingredients expiring within " + days + " days",
+                JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    private JFileChooser deliveryFileChooser() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("Delivery files (CSV, JSON)", "csv", "json"));
+        return chooser;
+    }
+
+    private void importDelivery() {
+        JFileChooser chooser = deliveryFileChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        Path file = chooser.getSelectedFile().toPath();
+
+        InventoryImportWorker worker = new InventoryImportWorker(file, service);
+        runWithProgress(worker, "Importing " + file.getFileName(), () -> {
+            StringBuilder msg = new StringBuilder(String.format("Imported %,d ingredients.", worker.getImported()));
+            if (worker.isCancelled()) msg.append("\nImport was cancelled.");
+            if (worker.getRejected() > 0) {
+                msg.append(String.format("\nRejected %,d invalid rows:", worker.getRejected()));
+                for (String error : worker.getErrors()) msg.append("\n- ").append(error);
+            }
+            try {
+                if (!worker.isCancelled()) worker.get();
+            } catch (Exception e) {
+                msg.append("\nImport stopped: ").append(e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+            }
+            JOptionPane.showMessageDialog(this, msg.toString(), "Import", JOptionPane.INFORMATION_MESSAGE);
+        });
+    }
+
+    // Deducts the ingredients of a file of POS orders through the recipes in
+    // the data directory, or the sample menu's if it has none.
+    private void replayOrders() {
+        if (recipeBook == null) {
+            try {
+                recipeBook = RecipeBook.load(dataDir);
+            } catch (IOException e) {
+                JOptionPane.showMessageDialog(this, "Could not read recipes: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+        }
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("Order files (JSON)", "json"));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        Path file = chooser.getSelectedFile().toPath();
+
+        OrderReplayWorker worker = new OrderReplayWorker(file, service, recipeBook);
+        runWithProgress(worker, "Replaying " + file.getFileName(), () -> {
+            OrderPipeline pipeline = worker.getPipeline();
+            StringBuilder msg = new StringBuilder(String.format("Applied %,d orders in %,d batches.",
+                    pipeline.getApplied(), pipeline.getBatches()));
+            if (worker.isCancelled()) msg.append("\nReplay was cancelled.");
+            try {
+                if (!worker.isCancelled())
+                    msg.append(String.format(" (%,.0f orders/s)", worker.getRead() / (worker.get() / 1e9)));
+            } catch (Exception e) {
+                msg.append("\nReplay stopped: ").append(e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+            }
+            if (pipeline.getRejected() > 0) msg.append(String.format("\nRejected %,d orders that could not be filled.", pipeline.getRejected()));
+            if (pipeline.getUnknown() > 0) msg.append(String.format("\nSkipped %,d orders for items without a recipe.", pipeline.getUnknown()));
+            if (worker.getInvalid() > 0) msg.append(String.format("\nSkipped %,d invalid orders.", worker.getInvalid()));
+            List<String> errors = new ArrayList<>(worker.getErrors());
+            errors.addAll(pipeline.getErrors());
+            for (String error : errors.subList(0, Math.min(errors.size(), 20))) msg.append("\n- ").append(error);
+            JOptionPane.showMessageDialog(this, msg.toString(), "Replay Orders", JOptionPane.INFORMATION_MESSAGE);
+        });
+    }
+
+    private void exportInventory() {
+        JFileChooser chooser = deliveryFileChooser();
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        Path file = chooser.getSelectedFile().toPath();
+
+        InventoryExportWorker worker = new InventoryExportWorker(file, service);
+        runWithProgress(worker, "Exporting to " + file.getFileName(), () -> {
+            try {
+                String msg = worker.isCancelled() ? "Export was cancelled." : String.format("Exported %,d ingredients.", worker.get());
+                JOptionPane.showMessageDialog(this, msg, "Export", JOptionPane.INFORMATION_MESSAGE);
+            } catch (Exception e) {
+                JOptionPane.showMessageDialog(this, "Error exporting: " + (e.getCause() != null ? e.getCause().getMessage() : e.getMessage()),
+                        "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+    }
+
+    // Runs the task with a cancellable progress monitor and runs onDone on
+    // the EDT when it finishes or is cancelled.
+    private void runWithProgress(BackgroundTask<?> task, String title, Runnable onDone) {
+        ProgressMonitor monitor = new ProgressMonitor(this, title, null, 0, 100);
+        monitor.setMillisToDecideToPopup(200);
+        javax.swing.Timer cancelCheck = new javax.swing.Timer(100, e -> {
+            if (monitor.isCanceled()) task.cancel();
+        });
+        task.whenProgress(monitor::setProgress);
+        task.whenDone(() -> {
+            cancelCheck.stop();
+            monitor.close();
+            onDone.run();
+        });
+        cancelCheck.start();
+        tasks.submit(null, task);
+    }
+
+    private void showExpiryAlerts(Map<Ingredient, Integer> alerts) {
+        alertCount += alerts.size();
+        Map.Entry<Ingredient, Integer> latest = alerts.entrySet().iterator().next();
+        String when = latest.getValue() == 0 ? "has expired" : "expires within " + latest.getValue() + " days";
+        alertLabel.setText(String.format("Expiry alerts: %d  (latest: %s %s)", alertCount, latest.getKey().getName(), when));
+        inventoryTable.repaint();
+    }
+
+    private Color expiryHighlight(int severity) {
+        if (severity < 0) return inventoryTable.getBackground();
+        if (expiryColors == null) {
+            // Tightest threshold gets the strongest colour.
+            expiryColors = new Color[expiryMonitor.thresholdCount()];
+            for (int k = 0; k < expiryColors.length; k++) {
+                float strength = 1f - (float) k / expiryColors.length;
+                expiryColors[k] = new Color(255, 255 - (int) (90 * strength), 255 - (int) (150 * strength));
+            }
+        }
+        return expiryColors[severity];
     }
 
     private void clearForm() {
+        editingSku = null;
+        addButton.setText("Add Ingredient");
         nameField.setText("");
         categoryComboBox.setSelectedIndex(0);
         quantitySpinner.setValue(1);
@@ -468,87 +911,84 @@ public class FoodInventoryGUI extends JFrame {
         nameField.requestFocus();
     }
 
-    private void refreshTable() {
-        tableModel.setRowCount(0);
-        for (Ingredient i : ingredients)
-            tableModel.addRow(i.toTableRow());
-    }
-
     private void loadSampleData() {
+        List<Ingredient> sample = new ArrayList<>();
 
         // Pizza bases
-        ingredients.add(new Ingredient("Pizza Sauce", "Produce", 25, LocalDate.now().plusMonths(2), 120.75));
-        ingredients.add(new Ingredient("Tomato Paste", "Produce", 18, LocalDate.now().plusMonths(6), 95.50));
-        ingredients.add(new Ingredient("Olive Oil", "Produce", 15, LocalDate.now().plusMonths(12), 350.00));
-        ingredients.add(new Ingredient("Garlic Puree", "Produce", 12, LocalDate.now().plusMonths(3), 85.25));
-        ingredients.add(new Ingredient("Basil Pesto", "Produce", 8, LocalDate.now().plusMonths(4), 280.50));
+        sample.add(new Ingredient("Pizza Sauce", "Produce", 25, LocalDate.now().plusMonths(2), 120.75));
+        sample.add(new Ingredient("Tomato Paste", "Produce", 18, LocalDate.now().plusMonths(6), 95.50));
+        sample.add(new Ingredient("Olive Oil", "Produce", 15, LocalDate.now().plusMonths(12), 350.00));
+        sample.add(new Ingredient("Garlic Puree", "Produce", 12, LocalDate.now().plusMonths(3), 85.25));
+        sample.add(new Ingredient("Basil Pesto", "Produce", 8, LocalDate.now().plusMonths(4), 280.50));
 
         // Cheeses
-        ingredients.add(new Ingredient("Mozzarella", "Dairy", 45, LocalDate.now().plusWeeks(2), 320.75));
-        ingredients.add(new Ingredient("Parmesan", "Dairy", 22, LocalDate.now().plusMonths(3), 450.00));
-        ingredients.add(new Ingredient("Provolone", "Dairy", 18, LocalDate.now().plusWeeks(3), 380.25));
-        ingredients.add(new Ingredient("Ricotta", "Dairy", 15, LocalDate.now().plusDays(10), 275.50));
-        ingredients.add(new Ingredient("Cheddar", "Dairy", 20, LocalDate.now().plusWeeks(4), 295.80));
+        sample.add(new Ingredient("Mozzarella", "Dairy", 45, LocalDate.now().plusWeeks(2), 320.75));
+        sample.add(new Ingredient("Parmesan", "Dairy", 22, LocalDate.now().plusMonths(3), 450.00));
+        sample.add(new Ingredient("Provolone", "Dairy", 18, LocalDate.now().plusWeeks(3), 380.25));
+        sample.add(new Ingredient("Ricotta", "Dairy", 15, LocalDate.now().plusDays(10), 275.50));
+        sample.add(new Ingredient("Cheddar", "Dairy", 20, LocalDate.now().plusWeeks(4), 295.80));
 
         // Meats
-        ingredients.add(new Ingredient("Pepperoni", "Meat", 35, LocalDate.now().plusWeeks(3), 520.75));
-        ingredients.add(new Ingredient("Italian Sausage", "Meat", 28, LocalDate.now().plusWeeks(2), 480.50));
-        ingredients.add(new Ingredient("Ham", "Meat", 25, LocalDate.now().plusWeeks(2), 420.25));
-        ingredients.add(new Ingredient("Bacon", "Meat", 30, LocalDate.now().plusWeeks(3), 380.00));
-        ingredients.add(new Ingredient("Chicken Breast", "Meat", 22, LocalDate.now().plusDays(7), 350.75));
-        ingredients.add(new Ingredient("Ground Beef", "Meat", 20, LocalDate.now().plusDays(5), 450.25));
-        ingredients.add(new Ingredient("Salami", "Meat", 18, LocalDate.now().plusWeeks(4), 510.50));
+        sample.add(new Ingredient("Pepperoni", "Meat", 35, LocalDate.now().plusWeeks(3), 520.75));
+        sample.add(new Ingredient("Italian Sausage", "Meat", 28, LocalDate.now().plusWeeks(2), 480.50));
+        sample.add(new Ingredient("Ham", "Meat", 25, LocalDate.now().plusWeeks(2), 420.25));
+        sample.add(new Ingredient("Bacon", "Meat", 30, LocalDate.now().plusWeeks(3), 380.00));
+        sample.add(new Ingredient("Chicken Breast", "Meat", 22, LocalDate.now().plusDays(7), 350.75));
+        sample.add(new Ingredient("Ground Beef", "Meat", 20, LocalDate.now().plusDays(5), 450.25));
+        sample.add(new Ingredient("Salami", "Meat", 18, LocalDate.now().plusWeeks(4), 510.50));
 
         // Vegetables
-        ingredients.add(new Ingredient("Mushrooms", "Produce", 32, LocalDate.now().plusDays(10), 120.75));
-        ingredients.add(new Ingredient("Green Peppers", "Produce", 28, LocalDate.now().plusDays(14), 95.50));
-        ingredients.add(new Ingredient("Onions", "Produce", 40, LocalDate.now().plusDays(21), 65.25));
-        ingredients.add(new Ingredient("Black Olives", "Produce", 25, LocalDate.now().plusMonths(6), 145.80));
-        ingredients.add(new Ingredient("Tomatoes", "Produce", 35, LocalDate.now().plusDays(7), 88.90));
-        ingredients.add(new Ingredient("Spinach", "Produce", 20, LocalDate.now().plusDays(5), 75.25));
-        ingredients.add(new Ingredient("Jalapeños", "Produce", 15, LocalDate.now().plusDays(12), 110.50));
-        ingredients.add(new Ingredient("Pineapple", "Produce", 18, LocalDate.now().plusDays(8), 165.75));
+        sample.add(new Ingredient("Mushrooms", "Produce", 32, LocalDate.now().plusDays(10), 120.75));
+        sample.add(new Ingredient("Green Peppers", "Produce", 28, LocalDate.now().plusDays(14), 95.50));
+        sample.add(new Ingredient("Onions", "Produce", 40, LocalDate.now().plusDays(21), 65.25));
+        sample.add(new Ingredient("Black Olives", "Produce", 25, LocalDate.now().plusMonths(6), 145.80));
+        sample.add(new Ingredient("Tomatoes", "Produce", 35, LocalDate.now().plusDays(7), 88.90));
+        sample.add(new Ingredient("Spinach", "Produce", 20, LocalDate.now().plusDays(5), 75.25));
+        sample.add(new Ingredient("Jalapeños", "Produce", 15, LocalDate.now().plusDays(12), 110.50));
+        sample.add(new Ingredient("Pineapple", "Produce", 18, LocalDate.now().plusDays(8), 165.75));
 
         // Dough & Flour
-        ingredients.add(new Ingredient("Pizza Flour", "Dry Goods", 50, LocalDate.now().plusMonths(8), 280.00));
-        ingredients.add(new Ingredient("Bread Flour", "Dry Goods", 35, LocalDate.now().plusMonths(9), 245.50));
-        ingredients.add(new Ingredient("Yeast", "Dry Goods", 25, LocalDate.now().plusMonths(6), 185.75));
-        ingredients.add(new Ingredient("Sugar", "Dry Goods", 40, LocalDate.now().plusMonths(12), 65.25));
-        ingredients.add(new Ingredient("Salt", "Dry Goods", 60, LocalDate.now().plusMonths(24), 45.80));
+        sample.add(new Ingredient("Pizza Flour", "Dry Goods", 50, LocalDate.now().plusMonths(8), 280.00));
+        sample.add(new Ingredient("Bread Flour", "Dry Goods", 35, LocalDate.now().plusMonths(9), 245.50));
+        sample.add(new Ingredient("Yeast", "Dry Goods", 25, LocalDate.now().plusMonths(6), 185.75));
+        sample.add(new Ingredient("Sugar", "Dry Goods", 40, LocalDate.now().plusMonths(12), 65.25));
+        sample.add(new Ingredient("Salt", "Dry Goods", 60, LocalDate.now().plusMonths(24), 45.80));
 
         // Herbs & Spices
-        ingredients.add(new Ingredient("Oregano", "Spices", 45, LocalDate.now().plusMonths(18), 95.50));
-        ingredients.add(new Ingredient("Basil", "Spices", 38, LocalDate.now().plusMonths(12), 110.25));
-        ingredients.add(new Ingredient("Garlic Powder", "Spices", 42, LocalDate.now().plusMonths(15), 85.75));
-        ingredients.add(new Ingredient("Red Pepper Flakes", "Spices", 35, LocalDate.now().plusMonths(20), 75.50));
-        ingredients.add(new Ingredient("Black Pepper", "Spices", 48, LocalDate.now().plusMonths(24), 120.00));
+        sample.add(new Ingredient("Oregano", "Spices", 45, LocalDate.now().plusMonths(18), 95.50));
+        sample.add(new Ingredient("Basil", "Spices", 38, LocalDate.now().plusMonths(12), 110.25));
+        sample.add(new Ingredient("Garlic Powder", "Spices", 42, LocalDate.now().plusMonths(15), 85.75));
+        sample.add(new Ingredient("Red Pepper Flakes", "Spices", 35, LocalDate.now().plusMonths(20), 75.50));
+        sample.add(new Ingredient("Black Pepper", "Spices", 48, LocalDate.now().plusMonths(24), 120.00));
 
         // Seafood (for specialty pizzas)
-        ingredients.add(new Ingredient("Anchovies", "Seafood", 12, LocalDate.now().plusMonths(3), 320.75));
-        ingredients.add(new Ingredient("Shrimp", "Seafood", 15, LocalDate.now().plusDays(5), 580.50));
-        ingredients.add(new Ingredient("Clams", "Seafood", 10, LocalDate.now().plusDays(4), 450.25));
+        sample.add(new Ingredient("Anchovies", "Seafood", 12, LocalDate.now().plusMonths(3), 320.75));
+        sample.add(new Ingredient("Shrimp", "Seafood", 15, LocalDate.now().plusDays(5), 580.50));
+        sample.add(new Ingredient("Clams", "Seafood", 10, LocalDate.now().plusDays(4), 450.25));
 
         // Specialty Items
-        ingredients.add(new Ingredient("Artichoke Hearts", "Produce", 18, LocalDate.now().plusMonths(6), 220.50));
-        ingredients.add(new Ingredient("Sun-Dried Tomatoes", "Produce", 22, LocalDate.now().plusMonths(8), 285.75));
-        ingredients.add(new Ingredient("Goat Cheese", "Dairy", 16, LocalDate.now().plusWeeks(3), 380.25));
-        ingredients.add(new Ingredient("Feta Cheese", "Dairy", 20, LocalDate.now().plusWeeks(4), 320.50));
+        sample.add(new Ingredient("Artichoke Hearts", "Produce", 18, LocalDate.now().plusMonths(6), 220.50));
+        sample.add(new Ingredient("Sun-Dried Tomatoes", "Produce", 22, LocalDate.now().plusMonths(8), 285.75));
+        sample.add(new Ingredient("Goat Cheese", "Dairy", 16, LocalDate.now().plusWeeks(3), 380.25));
+        sample.add(new Ingredient("Feta Cheese", "Dairy", 20, LocalDate.now().plusWeeks(4), 320.50));
 
         // Beverages
-        ingredients.add(new Ingredient("Cola", "Beverages", 72, LocalDate.now().plusMonths(9), 45.00));
-        ingredients.add(new Ingredient("Lemonade", "Beverages", 65, LocalDate.now().plusMonths(8), 52.50));
-        ingredients.add(new Ingredient("Iced Tea", "Beverages", 58, LocalDate.now().plusMonths(7), 48.75));
-        ingredients.add(new Ingredient("Orange Soda", "Beverages", 45, LocalDate.now().plusMonths(10), 47.25));
+        sample.add(new Ingredient("Cola", "Beverages", 72, LocalDate.now().plusMonths(9), 45.00));
+        sample.add(new Ingredient("Lemonade", "Beverages", 65, LocalDate.now().plusMonths(8), 52.50));
+        sample.add(new Ingredient("Iced Tea", "Beverages", 58, LocalDate.now().plusMonths(7), 48.75));
+        sample.add(new Ingredient("Orange Soda", "Beverages", 45, LocalDate.now().plusMonths(10), 47.25));
 
         // Frozen Items
-        ingredients.add(new Ingredient("French Fries", "Frozen", 35, LocalDate.now().plusMonths(6), 185.50));
-        ingredients.add(new Ingredient("Garlic Bread", "Frozen", 28, LocalDate.now().plusMonths(5), 220.75));
-        ingredients.add(new Ingredient("Mozzarella Sticks", "Frozen", 32, LocalDate.now().plusMonths(4), 280.25));
+        sample.add(new Ingredient("French Fries", "Frozen", 35, LocalDate.now().plusMonths(6), 185.50));
+        sample.add(new Ingredient("Garlic Bread", "Frozen", 28, LocalDate.now().plusMonths(5), 220.75));
+        sample.add(new Ingredient("Mozzarella Sticks", "Frozen", 32, LocalDate.now().plusMonths(4), 280.25));
 
-        refreshTable();
+        service.load(sample);
     }
     
     public static void main(String[] args) {
+        // Logs event handlers that hold the EDT longer than the budget.
+        EdtStallDetector.install(Long.getLong("inventory.edt.budgetMillis", 100));
         SwingUtilities.invokeLater(() -> new FoodInventoryGUI().setVisible(true));
     }
 }
@@ -0,0 +1,139 @@
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntSupplier;
+
+// Non-modal window with the demand forecast of every SKU, soonest stock-out
+// first. A timer polls the history and inventory versions, so each burst of
+// stock movements costs one recomputation in the background.
+class ForecastDialog extends JDialog {
+    private final DemandForecast forecast;
+    private final ConsumptionHistory history;
+    private final InventoryService service;
+    private final TaskScheduler tasks;
+    private final IntSupplier today;
+    private final ForecastModel model = new ForecastModel();
+    private final JLabel summary = new JLabel("Forecasting...");
+    private final Timer timer;
+    private long shownVersion = -1;
+    private boolean running;
+
+    public ForecastDialog(Frame owner, DemandForecast forecast, ConsumptionHistory history, InventoryService service,
+                          TaskScheduler tasks, IntSupplier today) {
+        super(owner, "Reorder Forecast", false);
+        this.forecast = forecast;
+        this.history = history;
+        this.service = service;
+        this.tasks = tasks;
+        this.today = today;
+
+        JTable table = new JTable(model);
+        table.setAutoCreateRowSorter(true);
+        table.setDefaultRenderer(LocalDate.class, new DateCellRenderer());
+        table.setRowHeight(25);
+        summary.setBorder(BorderFactory.createEmptyBorder(6, 10, 6, 10));
+
+        add(summary, BorderLayout.NORTH);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        setSize(900, 450);
+        setLocationRelativeTo(owner);
+        timer = new Timer(500, e -> refresh());
+    }
+
+    public void addNotify() {
+        super.addNotify();
+        refresh();
+        timer.start();
+    }
+
+    public void removeNotify() {
+        timer.stop();
+        tasks.cancel("forecast");
+        super.removeNotify();
+    }
+
+    private void refresh() {
+        long version = history.getVersion() + service.getVersion();
+        if (running || version == shownVersion) return;
+        running = true;
+        int day = today.getAsInt();
+        tasks.submit("forecast", new BackgroundTask<List<DemandForecast.Forecast>>() {
+            private long nanos;
+
+            protected List<DemandForecast.Forecast> doInBackground() {
+                long start = System.nanoTime();
+                List<DemandForecast.Forecast> forecasts = forecast.forecastAll(service, day, ForkJoinPool.commonPool());
+                nanos = System.nanoTime() - start;
+                return forecasts;
+            }
+
+            protected void done() {
+                running = false;
+                if (isCancelled()) return;
+                try {
+                    model.setRows(get());
+                } catch (ExecutionException e) {
+                    summary.setText("Forecast failed: " + e.getCause().getMessage());
+                    return;
+                }
+                shownVersion = version;
+                int reorder = 0;
+                for (DemandForecast.Forecast row : model.rows)
+                    if (row.reorderQuantity() > 0) reorder++;
+                summary.setText(String.format(Locale.ROOT, "%,d SKUs forecast in %.1f ms; %,d to reorder.",
+                        model.rows.size(), nanos / 1e6, reorder));
+            }
+        });
+    }
+
+    private static final class ForecastModel extends AbstractTableModel {
+        private static final String[] COLUMNS = {"Name", "Category", "On Hand", "Avg/Day", "Smoothed/Day",
+                "Stock-out", "Earliest Expiry", "Will Expire", "Reorder"};
+        private static final Class<?>[] CLASSES = {String.class, String.class, Integer.class, Double.class, Double.class,
+                LocalDate.class, LocalDate.class, Integer.class, Integer.class};
+        private List<DemandForecast.Forecast> rows = new ArrayList<>();
+
+        void setRows(List<DemandForecast.Forecast> rows) {
+            this.rows = rows;
+            fireTableDataChanged();
+        }
+
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        public Class<?> getColumnClass(int column) {
+            return CLASSES[column];
+        }
+
+        public Object getValueAt(int row, int column) {
+            DemandForecast.Forecast forecast = rows.get(row);
+            return switch (column) {
+                case 0 -> forecast.item().getName();
+                case 1 -> forecast.item().getCategory();
+                case 2 -> forecast.item().getQuantity();
+                case 3 -> Math.round(forecast.movingAverage() * 10) / 10.0;
+                case 4 -> Math.round(forecast.smoothed() * 10) / 10.0;
+                case 5 -> forecast.stockOutDay() == DemandForecast.NO_STOCK_OUT ? null : LocalDate.ofEpochDay(forecast.stockOutDay());
+                case 6 -> forecast.item().getExpirationDate();
+                case 7 -> forecast.expiringUnits();
+                default -> forecast.reorderQuantity();
+            };
+        }
+    }
+}
@@ -0,0 +1,53 @@
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// The display text of recently painted rows, least recently used dropped
+// first. Scrolling back and forth over a large table then formats each row
+// once instead of on every repaint, and never reads more rows than are on
+// screen. Entries are by model row and follow the model's events.
+class FormattedRowCache implements TableModelListener {
+    private final IngredientTableModel model;
+    private final Map<Integer, String[]> rows;
+
+    public FormattedRowCache(IngredientTableModel model, int capacity) {
+        this.model = model;
+        this.rows = new LinkedHashMap<>(capacity * 4 / 3 + 1, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<Integer, String[]> eldest) {
+                return size() > capacity;
+            }
+        };
+        model.addTableModelListener(this);
+    }
+
+    public String text(int row, int column) {
+        String[] cells = rows.get(row);
+        if (cells == null) {
+            Ingredient ingredient = model.getIngredient(row);
+            cells = new String[] {ingredient.getName(), ingredient.getCategory(),
+                    Integer.toString(ingredient.getQuantity()), DateCellRenderer.format(ingredient.getExpirationDate()),
+                    PriceCellRenderer.formatCents(ingredient.getPriceCents())};
+            rows.put(row, cells);
+        }
+        return cells[column];
+    }
+
+    // Appending rows moves nothing; edits drop just their rows. Anything
+    // else may renumber rows, so the cache starts over.
+    public void tableChanged(TableModelEvent e) {
+        int first = e.getFirstRow();
+        int last = e.getLastRow();
+        if (e.getType() == TableModelEvent.INSERT && first >= model.getRowCount() - (last - first + 1)) return;
+        if (e.getType() == TableModelEvent.UPDATE && first != TableModelEvent.HEADER_ROW
+                && last != Integer.MAX_VALUE && last - first < rows.size()) {
+            for (int row = first; row <= last; row++) rows.remove(row);
+            return;
+        }
+        if (e.getType() == TableModelEvent.DELETE && first == model.getRowCount()) {
+            for (int row = first; row <= last; row++) rows.remove(row);
+            return;
+        }
+        rows.clear();
+    }
+}
@@ -0,0 +1,88 @@
+import javax.swing.Timer;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+// Debounces search box edits, runs the query against the SearchIndex as a
+// background task and hands the matches back to the EDT. A newer query
+// cancels the one still running, and only the most recent query is ever
+// published.
+class IncrementalSearch implements InventoryListener {
+    private final SearchIndex index;
+    private final TaskScheduler tasks;
+    private final InventoryMetrics metrics;
+    private final Consumer<Set<Ingredient>> publisher;
+    private final Timer debounce;
+
+    private String query = "";
+    private long generation;
+    private String lastQuery;
+    private Set<Ingredient> lastMatches;
+    private long lastVersion = -1;
+
+    public IncrementalSearch(SearchIndex index, TaskScheduler tasks, InventoryMetrics metrics, int delayMillis,
+                             Consumer<Set<Ingredient>> publisher) {
+        this.index = index;
+        this.tasks = tasks;
+        this.metrics = metrics;
+        this.publisher = publisher;
+        this.debounce = new Timer(delayMillis, e -> runQuery());
+        this.debounce.setRepeats(false);
+    }
+
+    public void queryChanged(String text) {
+        query = text.trim();
+        generation++;
+        if (query.isEmpty()) {
+            debounce.stop();
+            tasks.cancel("search");
+            lastQuery = null;
+            lastMatches = null;
+            publisher.accept(null);
+        } else {
+            debounce.restart();
+        }
+    }
+
+    public void ingredientAdded(Ingredient ingredient) { rerun(); }
+    public void ingredientRemoved(Ingredient ingredient) { rerun(); }
+
+    private void rerun() {
+        if (!query.isEmpty()) debounce.restart();
+    }
+
+    private void runQuery() {
+        String text = query;
+        long runGeneration = generation;
+        boolean narrow = lastQuery != null && text.toLowerCase(Locale.ROOT).contains(lastQuery.toLowerCase(Locale.ROOT));
+        Set<Ingredient> candidates = narrow ? lastMatches : null;
+        long expectedVersion = lastVersion;
+
+        tasks.submit("search", new BackgroundTask<Set<Ingredient>>() {
+            private long version;
+
+            protected Set<Ingredient> doInBackground() {
+                long start = System.nanoTime();
+                version = index.getVersion();
+                Set<Ingredient> matches = index.search(text, version == expectedVersion ? candidates : null);
+                metrics.record(InventoryMetrics.Operation.SEARCH, System.nanoTime() - start);
+                return matches;
+            }
+
+            protected void done() {
+                if (isCancelled() || runGeneration != generation) return;
+                Set<Ingredient> matches;
+                try {
+                    matches = get();
+                } catch (ExecutionException e) {
+                    return;
+                }
+                lastQuery = text;
+                lastMatches = matches;
+                lastVersion = version;
+                publisher.accept(matches);
+            }
+        });
+    }
+}
@@ -0,0 +1,73 @@
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Immutable, and kept small since the service and every listener hold one
+// per SKU and a movement makes a new one: the expiry is an epoch day rather
+// than a LocalDate, category names are shared, and the versions a movement
+// makes share their name and SKU strings with the one they replace.
+class Ingredient {
+    // The categories the GUI offers; synthetic inventories draw from the
+    // same list.
+    static final String[] CATEGORIES = {"Produce", "Dairy", "Meat", "Seafood", "Dry Goods", "Spices", "Beverages", "Frozen"};
+
+    // A handful of distinct names, so never pruned.
+    private static final Map<String, String> CATEGORY_NAMES = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final String category;
+    // Looked up on every event, filter pass and journal frame, so it is
+    // worked out once.
+    private final String sku;
+    private final int quantity;
+    private final int expiryDay;
+    private final long priceCents;
+
+    public Ingredient(String name, String category, int quantity, LocalDate expirationDate, double price) {
+        this(name, category, quantity, (int) expirationDate.toEpochDay(), Math.round(price * 100));
+    }
+
+    private Ingredient(String name, String category, int quantity, int expiryDay, long priceCents) {
+        this(name, CATEGORY_NAMES.computeIfAbsent(category, c -> c), skuOf(name, category), quantity, expiryDay, priceCents);
+    }
+
+    private Ingredient(String name, String category, String sku, int quantity, int expiryDay, long priceCents) {
+        this.name = name;
+        this.category = category;
+        this.sku = sku;
+        this.quantity = quantity;
+        this.expiryDay = expiryDay;
+        this.priceCents = priceCents;
+    }
+
+    public static Ingredient ofCents(String name, String category, int quantity, LocalDate expirationDate, long priceCents) {
+        return new Ingredient(name, category, quantity, (int) expirationDate.toEpochDay(), priceCents);
+    }
+
+    static Ingredient ofEpochDay(String name, String category, int quantity, int expiryDay, long priceCents) {
+        return new Ingredient(name, category, quantity, expiryDay, priceCents);
+    }
+
+    public String getName() { return name; }
+    public String getCategory() { return category; }
+    public int getQuantity() { return quantity; }
+    public LocalDate getExpirationDate() { return LocalDate.ofEpochDay(expiryDay); }
+    public double getPrice() { return priceCents / 100.0; }
+    public long getPriceCents() { return priceCents; }
+    public int getExpiryEpochDay() { return expiryDay; }
+    public String getSku() { return sku; }
+
+    public static String skuOf(String name, String category) {
+        return (category.trim() + "/" + name.trim()).toLowerCase(Locale.ROOT);
+    }
+
+    public Ingredient withQuantity(int newQuantity) {
+        return new Ingredient(name, category, sku, newQuantity, expiryDay, priceCents);
+    }
+
+    // The entry for a SKU whose lots moved: same name and category.
+    Ingredient withStock(int newQuantity, int newExpiryDay, long newPriceCents) {
+        return new Ingredient(name, category, sku, newQuantity, newExpiryDay, newPriceCents);
+    }
+}
@@ -0,0 +1,62 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Compact binary form of an ingredient shared by the journal and snapshots:
+// length-prefixed UTF-8 name and category, quantity, epoch-day expiry and
+// price in centavos. Lots are a count followed by epoch-day and quantity
+// pairs.
+final class IngredientCodec {
+    static final int MAX_STRING_BYTES = 0xFFFF;
+    static final int MAX_RECORD_BYTES = 2 * (2 + MAX_STRING_BYTES) + 4 + 4 + 8;
+
+    private IngredientCodec() {}
+
+    static void write(ByteBuffer out, Ingredient ingredient) {
+        putString(out, ingredient.getName());
+        putString(out, ingredient.getCategory());
+        out.putInt(ingredient.getQuantity());
+        out.putInt(ingredient.getExpiryEpochDay());
+        out.putLong(ingredient.getPriceCents());
+    }
+
+    static Ingredient read(ByteBuffer in) {
+        String name = getString(in);
+        String category = getString(in);
+        int quantity = in.getInt();
+        int expiryDay = in.getInt();
+        long priceCents = in.getLong();
+        return Ingredient.ofEpochDay(name, category, quantity, expiryDay, priceCents);
+    }
+
+    static int lotsBytes(List<Lot> lots) {
+        return 4 + 8 * lots.size();
+    }
+
+    static void writeLots(ByteBuffer out, List<Lot> lots) {
+        out.putInt(lots.size());
+        for (Lot lot : lots) out.putInt(lot.expiryEpochDay()).putInt(lot.quantity());
+    }
+
+    static List<Lot> readLots(ByteBuffer in) {
+        int count = in.getInt();
+        List<Lot> lots = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) lots.add(new Lot(in.getInt(), in.getInt()));
+        return lots;
+    }
+
+    static void putString(ByteBuffer out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_BYTES)
+            throw new IllegalArgumentException("Value too long to store: " + value.substring(0, 32) + "...");
+        out.putShort((short) bytes.length);
+        out.put(bytes);
+    }
+
+    static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[Short.toUnsignedInt(in.getShort())];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,76 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Locale;
+
+// Streaming source of ingredients from a delivery file. next() returns null at
+// the end of input and throws IllegalArgumentException for a row that fails
+// validation; the reader is then positioned on the following row.
+interface IngredientReader extends Closeable {
+    Ingredient next() throws IOException;
+
+    // Line (CSV) or object (JSON) number of the row returned or rejected last.
+    long position();
+
+    static IngredientReader open(String fileName, Reader reader) {
+        return fileName.toLowerCase(Locale.ROOT).endsWith(".json") ? new JsonIngredientReader(reader) : new CsvIngredientReader(reader);
+    }
+
+    static Ingredient toIngredient(String name, String category, String quantity, String expirationDate, String price) {
+        if (name == null || name.isBlank()) throw new IllegalArgumentException("missing name");
+        if (category == null || category.isBlank()) throw new IllegalArgumentException("missing category");
+        int parsedQuantity;
+        try {
+            parsedQuantity = Integer.parseInt(quantity == null ? "" : quantity.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid quantity '" + quantity + "'");
+        }
+        if (parsedQuantity < 0) throw new IllegalArgumentException("negative quantity " + parsedQuantity);
+        return Ingredient.ofCents(name.trim(), category.trim(), parsedQuantity, parseDate(expirationDate), parseCents(price));
+    }
+
+    // Accepts ISO dates (2025-03-31) and the MM/dd/yyyy form shown in the table.
+    static LocalDate parseDate(String text) {
+        if (text == null) throw new IllegalArgumentException("missing expiration date");
+        String value = text.trim();
+        try {
+            int slash = value.indexOf('/');
+            if (slash < 0) return LocalDate.parse(value);
+            int second = value.indexOf('/', slash + 1);
+            return LocalDate.of(Integer.parseInt(value.substring(second + 1)),
+                    Integer.parseInt(value.substring(0, slash)), Integer.parseInt(value.substring(slash + 1, second)));
+        } catch (DateTimeException | NumberFormatException | StringIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("invalid expiration date '" + text + "'");
+        }
+    }
+
+    // Parses "120.75", "₱120.75" or "120" into centavos without going through double.
+    static long parseCents(String text) {
+        if (text == null) throw new IllegalArgumentException("missing price");
+        String value = text.trim();
+        if (value.startsWith("₱")) value = value.substring(1).trim();
+        long whole = 0;
+        long fraction = 0;
+        int fractionDigits = -1;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else if (c >= '0' && c <= '9' && fractionDigits < 2 && whole < Long.MAX_VALUE / 1000) {
+                if (fractionDigits < 0) {
+                    whole = whole * 10 + (c - '0');
+                } else {
+                    fraction = fraction * 10 + (c - '0');
+                    fractionDigits++;
+                }
+            } else {
+                throw new IllegalArgumentException("invalid price '" + text + "'");
+            }
+        }
+        if (value.isEmpty() || value.equals(".")) throw new IllegalArgumentException("invalid price '" + text + "'");
+        if (fractionDigits == 1) fraction *= 10;
+        return whole * 100 + fraction;
+    }
+}
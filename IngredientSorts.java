@@ -0,0 +1,99 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// The original list-based demo sorts. The GUI now uses SortEngine; these stay
+// as the baseline that InventoryBenchmark compares it against.
+final class IngredientSorts {
+    private IngredientSorts() {}
+
+    static void bubbleSort(List<Ingredient> ingredients, Comparator<Ingredient> comparator) {
+        int n = ingredients.size();
+        boolean swapped;
+        
+        for (int i = 0; i < n - 1; i++) {
+            swapped = false;
+            for (int j = 0; j < n - i - 1; j++) {
+                if (comparator.compare(ingredients.get(j), ingredients.get(j + 1)) > 0) {
+                    swapIngredients(ingredients, j, j + 1);
+                    swapped = true;
+                }
+            }
+            if (!swapped) break;
+        }
+    }
+
+    static void quickSort(List<Ingredient> ingredients, Comparator<Ingredient> comparator) {
+        if (ingredients.isEmpty()) return;
+        quickSort(ingredients, 0, ingredients.size() - 1, comparator);
+    }
+
+    private static void quickSort(List<Ingredient> ingredients, int low, int high, Comparator<Ingredient> comparator) {
+        if (low < high) {
+            int pivotIndex = partition(ingredients, low, high, comparator);
+            quickSort(ingredients, low, pivotIndex - 1, comparator);
+            quickSort(ingredients, pivotIndex + 1, high, comparator);
+        }
+    }
+
+    private static int partition(List<Ingredient> ingredients, int low, int high, Comparator<Ingredient> comparator) {
+        Ingredient pivot = ingredients.get(high);
+        int i = low - 1;
+        
+        for (int j = low; j < high; j++) {
+            if (comparator.compare(ingredients.get(j), pivot) <= 0) {
+                i++;
+                swapIngredients(ingredients, i, j);
+            }
+        }
+        swapIngredients(ingredients, i + 1, high);
+        return i + 1;
+    }
+
+    static void mergeSort(List<Ingredient> ingredients, Comparator<Ingredient> comparator) {
+        if (ingredients.size() <= 1) return;
+        
+        List<Ingredient> sorted = mergeSortHelper(new ArrayList<>(ingredients), comparator);
+        ingredients.clear();
+        ingredients.addAll(sorted);
+    }
+
+    private static List<Ingredient> mergeSortHelper(List<Ingredient> list, Comparator<Ingredient> comparator) {
+        if (list.size() <= 1) return list;
+        
+        int mid = list.size() / 2;
+        List<Ingredient> left = mergeSortHelper(new ArrayList<>(list.subList(0, mid)), comparator);
+        List<Ingredient> right = mergeSortHelper(new ArrayList<>(list.subList(mid, list.size())), comparator);
+        
+        return merge(left, right, comparator);
+    }
+
+    private static List<Ingredient> merge(List<Ingredient> left, List<Ingredient> right, Comparator<Ingredient> comparator) {
+        List<Ingredient> merged = new ArrayList<>();
+        int i = 0, j = 0;
+        
+        while (i < left.size() && j < right.size()) {
+            if (comparator.compare(left.get(i), right.get(j)) <= 0) {
+                merged.add(left.get(i++));
+            } else {
+                merged.add(right.get(j++));
+            }
+        }
+        
+        while (i < left.size()) {
+            merged.add(left.get(i++));
+        }
+        
+        while (j < right.size()) {
+            merged.add(right.get(j++));
+        }
+        
+        return merged;
+    }
+
+    private static void swapIngredients(List<Ingredient> ingredients, int i, int j) {
+        Ingredient temp = ingredients.get(i);
+        ingredients.set(i, ingredients.get(j));
+        ingredients.set(j, temp);
+    }
+}
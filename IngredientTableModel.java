@@ -0,0 +1,129 @@
+import javax.swing.table.AbstractTableModel;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+class IngredientTableModel extends AbstractTableModel {
+    private static final String[] COLUMNS = {"Name", "Category", "Quantity", "Expiration Date", "Price"};
+    private static final Class<?>[] COLUMN_CLASSES = {String.class, String.class, Integer.class, LocalDate.class, Long.class};
+
+    private final List<Ingredient> ingredients;
+    private final List<InventoryListener> listeners = new CopyOnWriteArrayList<>();
+    // Row of each SKU, so lookups, edits and removals by key are O(1).
+    private final Map<String, Integer> rowsBySku = new HashMap<>();
+    private long version;
+
+    public IngredientTableModel(List<Ingredient> ingredients) {
+        this.ingredients = ingredients;
+        reindex();
+    }
+
+    public int getRowCount() { return ingredients.size(); }
+    public int getColumnCount() { return COLUMNS.length; }
+    public String getColumnName(int column) { return COLUMNS[column]; }
+    public Class<?> getColumnClass(int column) { return COLUMN_CLASSES[column]; }
+    public boolean isCellEditable(int row, int col) { return false; }
+
+    public Object getValueAt(int row, int column) {
+        Ingredient ingredient = ingredients.get(row);
+        return switch (column) {
+            case 0 -> ingredient.getName();
+            case 1 -> ingredient.getCategory();
+            case 2 -> ingredient.getQuantity();
+            case 3 -> ingredient.getExpirationDate();
+            case 4 -> ingredient.getPriceCents();
+            default -> throw new IndexOutOfBoundsException("column " + column);
+        };
+    }
+
+    public Ingredient getIngredient(int row) {
+        return ingredients.get(row);
+    }
+
+    public void addInventoryListener(InventoryListener listener) {
+        listeners.add(listener);
+    }
+
+    // Bumped on every change so background work on a copy can tell whether
+    // its result still applies.
+    public long getVersion() {
+        return version;
+    }
+
+    private void reindex() {
+        rowsBySku.clear();
+        for (int row = 0; row < ingredients.size(); row++)
+            rowsBySku.put(ingredients.get(row).getSku(), row);
+    }
+
+    public Ingredient[] toArray() {
+        return ingredients.toArray(new Ingredient[0]);
+    }
+
+    public void addIngredient(Ingredient ingredient) {
+        int row = ingredients.size();
+        version++;
+        ingredients.add(ingredient);
+        rowsBySku.put(ingredient.getSku(), row);
+        fireTableRowsInserted(row, row);
+        for (InventoryListener listener : listeners)
+            listener.ingredientAdded(ingredient);
+    }
+
+    public void addIngredients(Collection<Ingredient> batch) {
+        if (batch.isEmpty()) return;
+        int first = ingredients.size();
+        ingredients.addAll(batch);
+        int row = first;
+        for (Ingredient ingredient : batch)
+            rowsBySku.put(ingredient.getSku(), row++);
+        version++;
+        fireTableRowsInserted(first, ingredients.size() - 1);
+        for (InventoryListener listener : listeners)
+            for (Ingredient ingredient : batch)
+                listener.ingredientAdded(ingredient);
+    }
+
+    public int indexOfSku(String sku) {
+        Integer row = rowsBySku.get(sku);
+        return row != null ? row : -1;
+    }
+
+    public void updateIngredient(int row, Ingredient updated) {
+        Ingredient old = ingredients.set(row, updated);
+        String oldSku = old.getSku();
+        if (!oldSku.equals(updated.getSku())) {
+            rowsBySku.remove(oldSku);
+            rowsBySku.put(updated.getSku(), row);
+        }
+        version++;
+        fireTableRowsUpdated(row, row);
+        for (InventoryListener listener : listeners)
+            listener.ingredientUpdated(old, updated);
+    }
+
+    // Moves the last row into the gap instead of shifting everything after
+    // it, so removal is O(1). Model order is never shown: the table orders
+    // rows through its sorter, the demo sort included.
+    public void removeIngredient(int row) {
+        int last = ingredients.size() - 1;
+        Ingredient removed = ingredients.get(row);
+        rowsBySku.remove(removed.getSku());
+        version++;
+        // Each step is announced as it happens so a sorter always sees a
+        // row count that matches the model.
+        if (row != last) {
+            Ingredient moved = ingredients.get(last);
+            removed = ingredients.set(row, moved);
+            rowsBySku.put(moved.getSku(), row);
+            fireTableRowsUpdated(row, row);
+        }
+        ingredients.remove(last);
+        fireTableRowsDeleted(last, last);
+        for (InventoryListener listener : listeners)
+            listener.ingredientRemoved(removed);
+    }
+}
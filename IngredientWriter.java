@@ -0,0 +1,17 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+interface IngredientWriter extends Closeable {
+    void write(Ingredient ingredient) throws IOException;
+
+    static IngredientWriter open(String fileName, Writer writer) throws IOException {
+        return fileName.toLowerCase(Locale.ROOT).endsWith(".json") ? new JsonIngredientWriter(writer) : new CsvIngredientWriter(writer);
+    }
+
+    // Plain decimal such as 120.75, so exported files re-import without a currency sign.
+    static String formatCents(long cents) {
+        return PriceCellRenderer.formatCents(cents).replace("₱", "");
+    }
+}
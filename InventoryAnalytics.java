@@ -0,0 +1,161 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+// Running stock valuation per category and overall: item count, units,
+// value, average price, and value at risk (expiring within riskDays). Each
+// mutation adjusts the totals in O(1); nothing is rescanned.
+//
+// Value is also kept per category per expiry day, which is what lets at-risk
+// totals roll forward when the date changes and lets the value-by-week view
+// be rebuilt from a few hundred day buckets instead of every row. That view
+// is cached and only rebuilt when asked for after a change.
+//
+// Movements are queued on PendingEvents and added in when the totals are
+// next read, so the service's threads never wait on them.
+class InventoryAnalytics implements InventoryListener {
+    private final int riskDays;
+    private final Map<String, Totals> byCategory = new HashMap<>();
+    private final Totals overall = new Totals("All");
+    private final PendingEvents pending = new PendingEvents();
+    private int today;
+    private long version;
+    private long weeksVersion = -1;
+    private SortedMap<LocalDate, Long> valueByWeek = Collections.emptySortedMap();
+
+    public InventoryAnalytics(int riskDays) {
+        this.riskDays = riskDays;
+        this.today = (int) LocalDate.now().toEpochDay();
+    }
+
+    // Aggregates for one category, or for the whole inventory.
+    record Summary(String category, int items, long units, long valueCents, long averagePriceCents, long atRiskCents) {}
+
+    public int getRiskDays() {
+        return riskDays;
+    }
+
+    public synchronized long getVersion() {
+        drain();
+        return version;
+    }
+
+    public void ingredientAdded(Ingredient ingredient) {
+        if (pending.added(ingredient)) drain();
+    }
+
+    public void ingredientRemoved(Ingredient ingredient) {
+        if (pending.removed(ingredient)) drain();
+    }
+
+    public void ingredientUpdated(Ingredient old, Ingredient updated) {
+        if (pending.updated(old, updated)) drain();
+    }
+
+    private synchronized void drain() {
+        pending.drain((old, updated) -> {
+            if (old != null) apply(old, -1);
+            if (updated != null) apply(updated, 1);
+            version++;
+        });
+    }
+
+    // Per-category summaries sorted by name, followed by the overall one.
+    public synchronized List<Summary> summaries(int today) {
+        drain();
+        rollTo(today);
+        List<Summary> summaries = new ArrayList<>(byCategory.size() + 1);
+        for (Totals totals : byCategory.values())
+            if (totals.items > 0) summaries.add(totals.summary());
+        summaries.sort((a, b) -> a.category().compareToIgnoreCase(b.category()));
+        summaries.add(overall.summary());
+        return summaries;
+    }
+
+    // Inventory value by the Monday of the week it expires in.
+    public synchronized SortedMap<LocalDate, Long> valueByExpiryWeek() {
+        drain();
+        if (weeksVersion != version) {
+            TreeMap<LocalDate, Long> weeks = new TreeMap<>();
+            for (Map.Entry<Integer, Long> day : overall.valueByDay.entrySet()) {
+                if (day.getValue() == 0) continue;
+                LocalDate date = LocalDate.ofEpochDay(day.getKey());
+                weeks.merge(date.minusDays(date.getDayOfWeek().getValue() - 1), day.getValue(), Long::sum);
+            }
+            valueByWeek = Collections.unmodifiableSortedMap(weeks);
+            weeksVersion = version;
+        }
+        return valueByWeek;
+    }
+
+    private void apply(Ingredient ingredient, int sign) {
+        String key = ingredient.getCategory().toLowerCase(Locale.ROOT);
+        Totals totals = byCategory.computeIfAbsent(key, k -> new Totals(ingredient.getCategory()));
+        totals.apply(ingredient, sign, today + riskDays);
+        overall.apply(ingredient, sign, today + riskDays);
+    }
+
+    // When the date moves, the at-risk horizon moves with it: add (or take
+    // back) the value of the days that crossed it.
+    private void rollTo(int newToday) {
+        if (newToday == today) return;
+        int from = today + riskDays;
+        int to = newToday + riskDays;
+        today = newToday;
+        for (Totals totals : byCategory.values()) totals.roll(from, to);
+        overall.roll(from, to);
+        version++;
+    }
+
+    private static final class Totals {
+        final String name;
+        final Map<Integer, Long> valueByDay = new HashMap<>();
+        int items;
+        long units;
+        long valueCents;
+        long priceCents;
+        long atRiskCents;
+
+        Totals(String name) {
+            this.name = name;
+        }
+
+        void apply(Ingredient ingredient, int sign, int horizon) {
+            long value = (long) ingredient.getQuantity() * ingredient.getPriceCents();
+            items += sign;
+            units += sign * (long) ingredient.getQuantity();
+            valueCents += sign * value;
+            priceCents += sign * ingredient.getPriceCents();
+            int day = ingredient.getExpiryEpochDay();
+            if (day <= horizon) atRiskCents += sign * value;
+            long left = valueByDay.merge(day, sign * value, Long::sum);
+            if (left == 0) valueByDay.remove(day);
+        }
+
+        void roll(int fromHorizon, int toHorizon) {
+            int sign = toHorizon > fromHorizon ? 1 : -1;
+            int low = Math.min(fromHorizon, toHorizon) + 1;
+            int high = Math.max(fromHorizon, toHorizon);
+            // A long jump is cheaper to walk over the buckets than the days.
+            if (high - low > valueByDay.size()) {
+                for (Map.Entry<Integer, Long> day : valueByDay.entrySet())
+                    if (day.getKey() >= low && day.getKey() <= high) atRiskCents += sign * day.getValue();
+            } else {
+                for (int day = low; day <= high; day++) {
+                    Long value = valueByDay.get(day);
+                    if (value != null) atRiskCents += sign * value;
+                }
+            }
+        }
+
+        Summary summary() {
+            return new Summary(name, items, units, valueCents, items == 0 ? 0 : Math.round((double) priceCents / items), atRiskCents);
+        }
+    }
+}
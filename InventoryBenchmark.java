@@ -0,0 +1,227 @@
+import javax.swing.RowFilter;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.table.TableRowSorter;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+// Micro-benchmarks for the sorting, filtering and table-refresh hot paths,
+// run over synthetic inventories of 1k to 1M rows. Each case reports time per
+// operation together with the bytes allocated by the measuring thread.
+//
+//   java -Djava.awt.headless=true InventoryBenchmark [--sizes=1000,10000]
+//        [--only=sort] [--warmup=3] [--iterations=5] [--csv]
+//
+// The harness is deliberately self-contained (warm-up iterations, a result
+// sink, per-thread allocation counters) so it runs from the plain source tree.
+final class InventoryBenchmark {
+    private static final Comparator<Ingredient> BY_NAME = Comparator.comparing(Ingredient::getName, String.CASE_INSENSITIVE_ORDER);
+    private static final List<SortEngine.Key> NAME_KEY = List.of(SortEngine.Key.NAME);
+    private static final String QUERY = "mozz";
+    private static final InventoryQuery MULTI_QUERY = new InventoryQuery(Set.of("Dairy", "Meat"), null, 14, 10, 30_001L, null);
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    static volatile long sink;
+
+    // Built once per dataset; iteration() does the unmeasured per-iteration
+    // preparation (such as copying the list to sort) and returns the work.
+    interface Fixture {
+        Runnable iteration();
+    }
+
+    private record Case(String name, boolean orderSensitive, int maxSize, int maxSortedSize,
+                        Function<List<Ingredient>, Fixture> fixture) {}
+
+    private InventoryBenchmark() {}
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        int[] sizes = {1_000, 10_000, 100_000, 1_000_000};
+        String only = "";
+        int warmup = 3;
+        int iterations = 5;
+        boolean csv = false;
+        for (String arg : args) {
+            if (arg.startsWith("--sizes=")) sizes = Arrays.stream(arg.substring(8).split(",")).mapToInt(Integer::parseInt).toArray();
+            else if (arg.startsWith("--only=")) only = arg.substring(7);
+            else if (arg.startsWith("--warmup=")) warmup = Integer.parseInt(arg.substring(9));
+            else if (arg.startsWith("--iterations=")) iterations = Integer.parseInt(arg.substring(13));
+            else if (arg.equals("--csv")) csv = true;
+            else throw new IllegalArgumentException("Unknown option: " + arg);
+        }
+
+        System.out.println(csv ? "benchmark,size,distribution,ms_per_op,ops_per_s,mb_per_op,mb_per_s"
+                : String.format("%-22s %9s %-16s %12s %12s %10s %10s", "benchmark", "size", "distribution",
+                "ms/op", "ops/s", "MB/op", "MB/s"));
+        for (Case benchmark : cases()) {
+            if (!benchmark.name().contains(only)) continue;
+            for (int size : sizes) {
+                for (SyntheticInventory.Distribution distribution : SyntheticInventory.Distribution.values()) {
+                    if (!benchmark.orderSensitive() && distribution != SyntheticInventory.Distribution.RANDOM) continue;
+                    boolean ordered = distribution == SyntheticInventory.Distribution.SORTED
+                            || distribution == SyntheticInventory.Distribution.REVERSE_SORTED;
+                    if (size > benchmark.maxSize() || (ordered && size > benchmark.maxSortedSize())) continue;
+                    run(benchmark, size, distribution, warmup, iterations, csv);
+                }
+            }
+        }
+    }
+
+    private static List<Case> cases() {
+        List<Case> cases = new ArrayList<>();
+        // O(n^2) and, for quick sort on ordered input, also deep recursion.
+        cases.add(new Case("sort.bubble", true, 10_000, 10_000, data -> () -> {
+            List<Ingredient> copy = new ArrayList<>(data);
+            return () -> IngredientSorts.bubbleSort(copy, BY_NAME);
+        }));
+        cases.add(new Case("sort.quick", true, 1_000_000, 10_000, data -> () -> {
+            List<Ingredient> copy = new ArrayList<>(data);
+            return () -> IngredientSorts.quickSort(copy, BY_NAME);
+        }));
+        cases.add(new Case("sort.merge", true, 1_000_000, 1_000_000, data -> () -> {
+            List<Ingredient> copy = new ArrayList<>(data);
+            return () -> IngredientSorts.mergeSort(copy, BY_NAME);
+        }));
+        cases.add(new Case("sort.engine.introsort", true, 1_000_000, 1_000_000, data -> {
+            Ingredient[] items = data.toArray(new Ingredient[0]);
+            return () -> () -> sink += SortEngine.introsort(items, NAME_KEY)[0];
+        }));
+        cases.add(new Case("sort.engine.parallelMerge", true, 1_000_000, 1_000_000, data -> {
+            Ingredient[] items = data.toArray(new Ingredient[0]);
+            return () -> () -> sink += SortEngine.parallelMergeSort(items, NAME_KEY, ForkJoinPool.commonPool())[0];
+        }));
+        cases.add(new Case("sort.engine.multiKey", false, 1_000_000, 1_000_000, data -> {
+            Ingredient[] items = data.toArray(new Ingredient[0]);
+            List<SortEngine.Key> keys = List.of(SortEngine.Key.CATEGORY, SortEngine.Key.EXPIRY, SortEngine.Key.NAME);
+            return () -> () -> sink += SortEngine.parallelMergeSort(items, keys, ForkJoinPool.commonPool())[0];
+        }));
+        cases.add(new Case("table.sorter.name", true, 1_000_000, 1_000_000, data -> sortByColumn(data, 0)));
+        cases.add(new Case("table.sorter.expiry", false, 1_000_000, 1_000_000, data -> sortByColumn(data, 3)));
+        cases.add(new Case("table.sorter.price", false, 1_000_000, 1_000_000, data -> sortByColumn(data, 4)));
+        cases.add(new Case("filter.regex", false, 1_000_000, 1_000_000, data -> {
+            TableRowSorter<IngredientTableModel> sorter = new TableRowSorter<>(new IngredientTableModel(data));
+            return () -> () -> {
+                sorter.setRowFilter(RowFilter.regexFilter("(?i)" + QUERY));
+                sink += sorter.getViewRowCount();
+            };
+        }));
+        cases.add(new Case("filter.index", false, 1_000_000, 1_000_000, data -> {
+            IngredientTableModel model = new IngredientTableModel(data);
+            TableRowSorter<IngredientTableModel> sorter = new TableRowSorter<>(model);
+            SearchIndex index = new SearchIndex();
+            for (Ingredient ingredient : data) index.ingredientAdded(ingredient);
+            return () -> () -> {
+                Set<Ingredient> matches = index.search(QUERY, null);
+                sorter.setRowFilter(new RowFilter<IngredientTableModel, Integer>() {
+                    public boolean include(Entry<? extends IngredientTableModel, ? extends Integer> entry) {
+                        return matches.contains(model.getIngredient(entry.getIdentifier()));
+                    }
+                });
+                sink += sorter.getViewRowCount();
+            };
+        }));
+        cases.add(new Case("table.refresh", false, 1_000_000, 1_000_000, data -> {
+            IngredientTableModel model = new IngredientTableModel(data);
+            TableRowSorter<IngredientTableModel> sorter = new TableRowSorter<>(model);
+            sorter.setSortKeys(List.of(new RowSorter.SortKey(0, SortOrder.ASCENDING)));
+            return () -> () -> {
+                // A JTable forwards the model event to its sorter; do the same here.
+                model.fireTableDataChanged();
+                sorter.allRowsChanged();
+                sink += sorter.getViewRowCount();
+            };
+        }));
+        cases.add(new Case("lowStock.scan", false, 1_000_000, 1_000_000, data -> () -> () -> {
+            StringBuilder msg = new StringBuilder();
+            for (Ingredient i : data) {
+                if (i.getQuantity() <= LowStockIndex.DEFAULT_THRESHOLD)
+                    msg.append("- ").append(i.getName()).append(": ").append(i.getQuantity()).append(" units\n");
+            }
+            sink += msg.length();
+        }));
+        cases.add(new Case("lowStock.index", false, 1_000_000, 1_000_000, data -> {
+            LowStockIndex index = new LowStockIndex(LowStockIndex.DEFAULT_THRESHOLD);
+            for (Ingredient ingredient : data) index.ingredientAdded(ingredient);
+            return () -> () -> sink += index.snapshot().size();
+        }));
+        cases.add(new Case("query.scan", false, 1_000_000, 1_000_000, data -> {
+            int today = (int) LocalDate.now().toEpochDay();
+            return () -> () -> {
+                int count = 0;
+                for (Ingredient i : data) if (MULTI_QUERY.matches(i, today)) count++;
+                sink += count;
+            };
+        }));
+        cases.add(new Case("query.bitmap", false, 1_000_000, 1_000_000, data -> {
+            int today = (int) LocalDate.now().toEpochDay();
+            QueryIndex index = new QueryIndex();
+            for (Ingredient ingredient : data) index.ingredientAdded(ingredient);
+            checkQueries(index, data, today);
+            return () -> () -> sink += index.evaluate(MULTI_QUERY, today).count();
+        }));
+        return cases;
+    }
+
+    // The index must agree with the row-by-row semantics, including bounds
+    // that lie beyond every indexed value at either end.
+    private static void checkQueries(QueryIndex index, List<Ingredient> data, int today) {
+        List<InventoryQuery> queries = List.of(MULTI_QUERY,
+                new InventoryQuery(Set.of(), null, -1, null, null, null),
+                new InventoryQuery(Set.of(), Integer.MAX_VALUE, null, null, null, null),
+                new InventoryQuery(Set.of(), null, null, -100_000, null, null),
+                new InventoryQuery(Set.of(), null, null, null, Long.MAX_VALUE / 2, null),
+                new InventoryQuery(Set.of(), null, null, null, null, -1L),
+                new InventoryQuery(Set.of("Dairy"), 5, 2, null, null, null));
+        for (InventoryQuery query : queries) {
+            int expected = 0;
+            for (Ingredient i : data) if (query.matches(i, today)) expected++;
+            int actual = index.evaluate(query, today).count();
+            if (actual != expected)
+                throw new IllegalStateException(query.describe() + ": index found " + actual + ", scan " + expected);
+        }
+    }
+
+    private static Fixture sortByColumn(List<Ingredient> data, int column) {
+        TableRowSorter<IngredientTableModel> sorter = new TableRowSorter<>(new IngredientTableModel(data));
+        return () -> {
+            sorter.setSortKeys(null);
+            return () -> {
+                sorter.setSortKeys(List.of(new RowSorter.SortKey(column, SortOrder.ASCENDING)));
+                sink += sorter.convertRowIndexToModel(0);
+            };
+        };
+    }
+
+    private static void run(Case benchmark, int size, SyntheticInventory.Distribution distribution,
+                            int warmup, int iterations, boolean csv) {
+        Fixture fixture = benchmark.fixture().apply(SyntheticInventory.generate(size, distribution, 42));
+        for (int i = 0; i < warmup; i++)
+            fixture.iteration().run();
+
+        long nanos = 0;
+        long bytes = 0;
+        for (int i = 0; i < iterations; i++) {
+            Runnable work = fixture.iteration();
+            long allocatedBefore = THREADS.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            work.run();
+            nanos += System.nanoTime() - start;
+            bytes += THREADS.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        }
+
+        double msPerOp = nanos / 1e6 / iterations;
+        double mbPerOp = bytes / 1048576.0 / iterations;
+        double opsPerSecond = 1000 / msPerOp;
+        double mbPerSecond = mbPerOp * opsPerSecond;
+        System.out.println(String.format(csv ? "%s,%d,%s,%.3f,%.1f,%.2f,%.1f" : "%-22s %9d %-16s %12.3f %12.1f %10.2f %10.1f",
+                benchmark.name(), size, distribution, msPerOp, opsPerSecond, mbPerOp, mbPerSecond));
+    }
+}
@@ -0,0 +1,34 @@
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+// Streams a snapshot of the inventory to CSV or JSON on a background thread.
+// The snapshot is taken from the service there too, so a large inventory is
+// never copied on the EDT.
+class InventoryExportWorker extends BackgroundTask<Integer> {
+    private final Path file;
+    private final InventoryService service;
+
+    public InventoryExportWorker(Path file, InventoryService service) {
+        this.file = file;
+        this.service = service;
+    }
+
+    protected Integer doInBackground() throws IOException {
+        List<Ingredient> items = service.snapshot();
+        int written = 0;
+        try (IngredientWriter writer = IngredientWriter.open(file.getFileName().toString(),
+                new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8))) {
+            for (Ingredient ingredient : items) {
+                if (isCancelled()) break;
+                writer.write(ingredient);
+                if (++written % InventoryImportWorker.PROGRESS_INTERVAL == 0)
+                    setProgress((int) ((long) written * 100 / items.size()));
+            }
+        }
+        return written;
+    }
+}
@@ -0,0 +1,184 @@
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Load test for InventoryHttpServer: keeps --clients requests in flight with
+// a tablet/POS-like mix (40% search, 5% conditional low-stock polls, 5%
+// expiring polls, 45% single and 5% batched movements) and reports throughput and latency
+// percentiles.
+//
+//   java InventoryHttpLoadTest [--url=http://127.0.0.1:8080] [--clients=1000]
+//        [--requests=100000] [--items=100000]
+//
+// Without --url it serves --items synthetic ingredients in-process.
+final class InventoryHttpLoadTest {
+    private InventoryHttpLoadTest() {}
+
+    public static void main(String[] args) throws Exception {
+        String url = null;
+        int clients = 1000;
+        int requests = 100_000;
+        int items = 100_000;
+        for (String arg : args) {
+            if (arg.startsWith("--url=")) url = arg.substring(6);
+            else if (arg.startsWith("--clients=")) clients = Integer.parseInt(arg.substring(10));
+            else if (arg.startsWith("--requests=")) requests = Integer.parseInt(arg.substring(11));
+            else if (arg.startsWith("--items=")) items = Integer.parseInt(arg.substring(8));
+            else throw new IllegalArgumentException("Unknown option: " + arg);
+        }
+
+        InventoryHttpServer local = null;
+        if (url == null) {
+            InventoryService service = new InventoryService();
+            SearchIndex searchIndex = new SearchIndex();
+            ExpiryIndex expiryIndex = new ExpiryIndex();
+            LowStockIndex lowStockIndex = new LowStockIndex(LowStockIndex.DEFAULT_THRESHOLD);
+            service.addInventoryListener(searchIndex);
+            service.addInventoryListener(expiryIndex);
+            service.addInventoryListener(lowStockIndex);
+            service.load(SyntheticInventory.generate(items, SyntheticInventory.Distribution.RANDOM, 42));
+            local = new InventoryHttpServer(service, searchIndex, expiryIndex, lowStockIndex);
+            local.start(new InetSocketAddress("127.0.0.1", 0));
+            url = "http://127.0.0.1:" + local.getPort();
+        }
+
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10)).build();
+        List<String> skus = fetchSkus(client, url);
+        if (skus.isEmpty()) throw new IllegalStateException("The server has no ingredients to move");
+        System.out.println(String.format("%s: %,d ingredients, %,d clients, %,d requests", url, skus.size(), clients, requests));
+
+        // One untimed pass warms up both ends.
+        run(client, url, skus, clients, Math.min(requests, 10_000), new ConcurrentHashMap<>());
+        Map<String, long[]> latencies = new ConcurrentHashMap<>();
+        long start = System.nanoTime();
+        int failures = run(client, url, skus, clients, requests, latencies);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println(String.format("%,.0f requests/s, %,d failed", requests / seconds, failures));
+        System.out.println(String.format("%-12s %8s %10s %10s %10s %10s", "endpoint", "count", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+        List<String> names = new ArrayList<>(latencies.keySet());
+        names.sort(null);
+        for (String name : names) report(name, latencies.get(name));
+        report("all", latencies.values().stream().flatMapToLong(Arrays::stream).filter(n -> n > 0).toArray());
+
+        if (local != null) local.close();
+        System.exit(0);
+    }
+
+    private static List<String> fetchSkus(HttpClient client, String url) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(url + "/api/ingredients")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        List<String> skus = new ArrayList<>();
+        try (JsonObjectReader reader = new JsonObjectReader(new StringReader(response.body()))) {
+            for (Map<String, String> fields; (fields = reader.next()) != null; )
+                skus.add(Ingredient.skuOf(fields.get("name"), fields.get("category")));
+        }
+        return skus;
+    }
+
+    private static int run(HttpClient client, String url, List<String> skus, int clients, int requests,
+                           Map<String, long[]> latencies) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(clients);
+        AtomicInteger failures = new AtomicInteger();
+        AtomicLong lowStockTag = new AtomicLong(-1);
+        Map<String, AtomicInteger> counts = new ConcurrentHashMap<>();
+        for (int i = 0; i < requests; i++) {
+            inFlight.acquire();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int roll = random.nextInt(100);
+            String name;
+            HttpRequest.Builder request;
+            if (roll < 40) {
+                name = "search";
+                // A tablet searches for a particular item, so use the tail of
+                // a real name rather than a prefix shared by thousands.
+                String sku = skus.get(random.nextInt(skus.size()));
+                String term = sku.substring(Math.max(sku.indexOf('/') + 1, sku.length() - 6));
+                request = HttpRequest.newBuilder(URI.create(url + "/api/search?q=" + URLEncoder.encode(term, StandardCharsets.UTF_8)));
+            } else if (roll < 45) {
+                name = "low-stock";
+                request = HttpRequest.newBuilder(URI.create(url + "/api/low-stock"));
+                long tag = lowStockTag.get();
+                if (tag >= 0) request.header("If-None-Match", "\"" + Long.toHexString(tag) + "\"");
+            } else if (roll < 50) {
+                name = "expiring";
+                request = HttpRequest.newBuilder(URI.create(url + "/api/expiring?days=3"));
+            } else if (roll < 95) {
+                name = "consume";
+                request = post(url, movement(random, skus, "consume", 1));
+            } else {
+                name = "batch";
+                StringBuilder batch = new StringBuilder("[");
+                for (int m = 0; m < 20; m++) {
+                    if (m > 0) batch.append(',');
+                    batch.append(movement(random, skus, m % 2 == 0 ? "receive" : "consume", 1 + random.nextInt(3)));
+                }
+                request = post(url, batch.append(']').toString());
+            }
+
+            long[] samples = latencies.computeIfAbsent(name, n -> new long[requests]);
+            int slot = counts.computeIfAbsent(name, n -> new AtomicInteger()).getAndIncrement();
+            long begin = System.nanoTime();
+            CompletableFuture<HttpResponse<String>> future = client.sendAsync(request.timeout(Duration.ofSeconds(30)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            future.whenComplete((response, error) -> {
+                samples[slot] = System.nanoTime() - begin;
+                if (error != null || response.statusCode() >= 400) failures.incrementAndGet();
+                else if (name.equals("low-stock"))
+                    response.headers().firstValue("ETag").ifPresent(tag -> lowStockTag.set(Long.parseLong(tag.replace("\"", ""), 16)));
+                inFlight.release();
+            });
+        }
+        inFlight.acquire(clients);
+        return failures.get();
+    }
+
+    private static String movement(ThreadLocalRandom random, List<String> skus, String op, int quantity) {
+        // Stock runs out under sustained consumption; a rejected consume is
+        // still a served request, so it only shows up in the response body.
+        StringWriter sku = new StringWriter();
+        try {
+            JsonIngredientWriter.writeString(sku, skus.get(random.nextInt(skus.size())));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return "{\"op\":\"" + op + "\",\"sku\":" + sku + ",\"quantity\":" + quantity + "}";
+    }
+
+    private static HttpRequest.Builder post(String url, String body) {
+        return HttpRequest.newBuilder(URI.create(url + "/api/movements"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+    }
+
+    private static void report(String name, long[] samples) {
+        long[] nanos = Arrays.stream(samples).filter(n -> n > 0).sorted().toArray();
+        if (nanos.length == 0) return;
+        System.out.println(String.format("%-12s %,8d %10.2f %10.2f %10.2f %10.2f", name, nanos.length,
+                percentile(nanos, 0.50), percentile(nanos, 0.90), percentile(nanos, 0.99), nanos[nanos.length - 1] / 1e6));
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)] / 1e6;
+    }
+}
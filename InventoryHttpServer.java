@@ -0,0 +1,288 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Local HTTP/JSON API over the InventoryService for POS terminals and kitchen
+// tablets:
+//
+//   GET  /api/ingredients            every ingredient, streamed
+//   GET  /api/search?q=mozz          name/category substring search
+//   GET  /api/expiring?days=7        expiring on or before today + days
+//   GET  /api/low-stock              at or below the reorder threshold
+//   POST /api/movements              one movement object or an array of them
+//
+// GETs carry an ETag derived from the service version, and for expiring
+// items also the date, and answer a matching If-None-Match with 304. Errors
+// are JSON: 400 for a bad request, 500 for a bug. A movement batch is
+// applied in order, each movement atomically, and answers with one result
+// per movement. A receive with "expires" is booked as its own lot.
+//
+// Requests run on virtual threads where the JDK has them (21+) and on a
+// fixed pool otherwise.
+class InventoryHttpServer implements Closeable {
+    private static final Logger LOG = Logger.getLogger("inventory.http");
+
+    private final InventoryService service;
+    private final SearchIndex searchIndex;
+    private final ExpiryIndex expiryIndex;
+    private final LowStockIndex lowStockIndex;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public InventoryHttpServer(InventoryService service, SearchIndex searchIndex, ExpiryIndex expiryIndex,
+                               LowStockIndex lowStockIndex) {
+        this.service = service;
+        this.searchIndex = searchIndex;
+        this.expiryIndex = expiryIndex;
+        this.lowStockIndex = lowStockIndex;
+    }
+
+    public void start(InetSocketAddress address) throws IOException {
+        // Responses are small and written in one go, so Nagle plus delayed
+        // ACKs would add ~40 ms to each exchange. Read once by the JDK server.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null)
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(address, 1024);
+        executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/api/ingredients", exchange -> handle(exchange, "GET", () -> list(exchange)));
+        server.createContext("/api/search", exchange -> handle(exchange, "GET", () -> search(exchange)));
+        server.createContext("/api/expiring", exchange -> handle(exchange, "GET", () -> expiring(exchange)));
+        server.createContext("/api/low-stock", exchange -> handle(exchange, "GET", () -> lowStock(exchange)));
+        server.createContext("/api/movements", exchange -> handle(exchange, "POST", () -> movements(exchange)));
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public void close() {
+        if (server == null) return;
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(Math.max(32, Runtime.getRuntime().availableProcessors() * 8), r -> {
+                Thread thread = new Thread(r, "inventory-http");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private interface Handler {
+        void run() throws IOException;
+    }
+
+    private void handle(HttpExchange exchange, String method, Handler handler) {
+        try (exchange) {
+            try {
+                if (!exchange.getRequestURI().getPath().equals(exchange.getHttpContext().getPath())) {
+                    error(exchange, 404, "Not found");
+                } else if (!exchange.getRequestMethod().equals(method)) {
+                    exchange.getResponseHeaders().set("Allow", method);
+                    error(exchange, 405, "Use " + method);
+                } else {
+                    handler.run();
+                }
+            } catch (IllegalArgumentException e) {
+                error(exchange, 400, e.getMessage());
+            } catch (RuntimeException e) {
+                // A bug in a handler still gets a status line, unless the
+                // response had already started.
+                LOG.log(Level.SEVERE, "Failed to handle " + exchange.getRequestMethod() + " " + exchange.getRequestURI(), e);
+                error(exchange, 500, "Internal server error");
+            }
+        } catch (IOException e) {
+            // The client disconnected mid-response; nothing to answer.
+        }
+    }
+
+    private void list(HttpExchange exchange) throws IOException {
+        String etag = etag(service.getVersion());
+        if (notModified(exchange, etag)) return;
+        sendIngredients(exchange, etag, service.items());
+    }
+
+    private void search(HttpExchange exchange) throws IOException {
+        String query = query(exchange).getOrDefault("q", "").trim();
+        if (query.isEmpty()) throw new IllegalArgumentException("Missing query parameter q");
+        String etag = etag(service.getVersion());
+        if (notModified(exchange, etag)) return;
+        sendIngredients(exchange, etag, searchIndex.search(query, null));
+    }
+
+    private void expiring(HttpExchange exchange) throws IOException {
+        String days = query(exchange).getOrDefault("days", "7");
+        int parsed;
+        try {
+            parsed = Integer.parseInt(days.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid days '" + days + "'");
+        }
+        // The list moves with the date as well as the inventory, so a tag
+        // from yesterday never matches.
+        int today = (int) LocalDate.now().toEpochDay();
+        String etag = "\"" + Long.toHexString(service.getVersion()) + "-" + Integer.toHexString(today) + "-" + parsed + "\"";
+        if (notModified(exchange, etag)) return;
+        int horizon = (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, (long) today + parsed));
+        sendIngredients(exchange, etag, expiryIndex.expiringOnOrBefore(horizon));
+    }
+
+    private void lowStock(HttpExchange exchange) throws IOException {
+        String etag = etag(service.getVersion());
+        if (notModified(exchange, etag)) return;
+        sendIngredients(exchange, etag, lowStockIndex.snapshot());
+    }
+
+    private void movements(HttpExchange exchange) throws IOException {
+        List<Map<String, String>> bodies = new ArrayList<>();
+        try (JsonObjectReader reader = new JsonObjectReader(
+                new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+            for (Map<String, String> fields; (fields = reader.next()) != null; )
+                bodies.add(fields);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e.getMessage());
+        }
+
+        StringWriter json = new StringWriter();
+        json.write('[');
+        for (Map<String, String> fields : bodies) {
+            json.write(json.getBuffer().length() > 1 ? ",\n{" : "{");
+            String sku = fields.get("sku");
+            try {
+                StockMovement movement = StockMovement.fromJson(fields);
+                sku = movement.sku();
+                Ingredient updated = movement.apply(service);
+                writeField(json, "sku", sku);
+                json.write(",\"quantity\":" + updated.getQuantity());
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                if (sku != null) {
+                    writeField(json, "sku", sku);
+                    json.write(',');
+                }
+                writeField(json, "error", e.getMessage());
+            }
+            json.write('}');
+        }
+        json.write("]\n");
+        send(exchange, 200, json.toString());
+    }
+
+    private static void writeField(Writer json, String name, String value) throws IOException {
+        json.write("\"" + name + "\":");
+        JsonIngredientWriter.writeString(json, value);
+    }
+
+    private static boolean notModified(HttpExchange exchange, String etag) throws IOException {
+        exchange.getResponseHeaders().set("ETag", etag);
+        if (!etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) return false;
+        exchange.sendResponseHeaders(304, -1);
+        return true;
+    }
+
+    private static String etag(long version) {
+        return "\"" + Long.toHexString(version) + "\"";
+    }
+
+    // Chunked, so a listing of any size streams through a fixed buffer.
+    private static void sendIngredients(HttpExchange exchange, String etag, Collection<Ingredient> items) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.getResponseHeaders().set("ETag", etag);
+        exchange.sendResponseHeaders(200, 0);
+        try (IngredientWriter writer = new JsonIngredientWriter(
+                new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+            for (Ingredient ingredient : items)
+                writer.write(ingredient);
+        }
+    }
+
+    private static void error(HttpExchange exchange, int status, String message) throws IOException {
+        StringWriter json = new StringWriter();
+        json.write('{');
+        writeField(json, "error", message == null ? "Bad request" : message);
+        json.write("}\n");
+        send(exchange, status, json.toString());
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) return parameters;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            parameters.putIfAbsent(key, value);
+        }
+        return parameters;
+    }
+
+    // Serves the saved inventory without the Swing window:
+    //
+    //   java -Dinventory.dir=... InventoryHttpServer [port]
+    //
+    // The store locks the data directory, so this refuses to start on one
+    // the GUI has open.
+    public static void main(String[] args) throws IOException {
+        Path dataDir = Paths.get(System.getProperty("inventory.dir",
+                Paths.get(System.getProperty("user.home"), ".food-inventory").toString()));
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Integer.getInteger("inventory.http.port", 8080);
+
+        InventoryService service = new InventoryService();
+        SearchIndex searchIndex = new SearchIndex();
+        ExpiryIndex expiryIndex = new ExpiryIndex();
+        LowStockIndex lowStockIndex = LowStockIndex.load(dataDir);
+        for (String warning : lowStockIndex.getWarnings()) System.err.println("lowstock.properties: " + warning);
+        service.addInventoryListener(searchIndex);
+        service.addInventoryListener(expiryIndex);
+        service.addInventoryListener(lowStockIndex);
+        InventoryStore store = new InventoryStore(dataDir, Integer.getInteger("inventory.snapshotInterval", 50_000));
+        store.attach(service);
+
+        InventoryHttpServer server = new InventoryHttpServer(service, searchIndex, expiryIndex, lowStockIndex);
+        server.start(new InetSocketAddress(System.getProperty("inventory.http.host", "127.0.0.1"), port));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            try {
+                store.close();
+            } catch (IOException e) {
+                System.err.println("Could not flush inventory journal: " + e.getMessage());
+            }
+        }));
+        System.out.println("Serving " + service.size() + " ingredients from " + dataDir + " on port " + server.getPort());
+    }
+}
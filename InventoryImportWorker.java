@@ -0,0 +1,57 @@
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Parses a delivery file on a background thread and upserts each row into
+// the inventory service straight from that thread, so a delivery of an item
+// already in stock adds to its quantity; the table picks the rows up
+// through its SwingInventoryBridge, which batches them per EDT drain.
+// Progress is the fraction of the file consumed (0-100).
+class InventoryImportWorker extends BackgroundTask<Void> {
+    static final int PROGRESS_INTERVAL = 10_000;
+    private static final int MAX_REPORTED_ERRORS = 20;
+
+    private final Path file;
+    private final InventoryService service;
+    private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+    private volatile long rejected;
+    private volatile long imported;
+
+    public InventoryImportWorker(Path file, InventoryService service) {
+        this.file = file;
+        this.service = service;
+    }
+
+    protected Void doInBackground() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             IngredientReader reader = IngredientReader.open(file.getFileName().toString(),
+                     Channels.newReader(channel, StandardCharsets.UTF_8))) {
+            long size = Math.max(1, channel.size());
+            while (!isCancelled()) {
+                try {
+                    Ingredient ingredient = reader.next();
+                    if (ingredient == null) break;
+                    service.upsert(ingredient);
+                } catch (IllegalArgumentException e) {
+                    if (rejected++ < MAX_REPORTED_ERRORS)
+                        errors.add("Row " + reader.position() + ": " + e.getMessage());
+                    continue;
+                }
+                if (++imported % PROGRESS_INTERVAL == 0)
+                    setProgress((int) Math.min(99, channel.position() * 100 / size));
+            }
+        }
+        return null;
+    }
+
+    // Valid once the worker is done.
+    public long getImported() { return imported; }
+    public long getRejected() { return rejected; }
+    public List<String> getErrors() { return errors; }
+}
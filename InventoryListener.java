@@ -0,0 +1,18 @@
+import java.util.List;
+
+interface InventoryListener {
+    void ingredientAdded(Ingredient ingredient);
+    void ingredientRemoved(Ingredient ingredient);
+
+    // A stock movement or edit replaced an ingredient with a new version.
+    default void ingredientUpdated(Ingredient old, Ingredient updated) {
+        ingredientRemoved(old);
+        ingredientAdded(updated);
+    }
+
+    // Follows the update of an ingredient that now holds more than one lot,
+    // listing them in expiry order. An ingredient without such a call is a
+    // single lot of its quantity and expiry date.
+    default void lotsChanged(Ingredient ingredient, List<Lot> lots) {
+    }
+}
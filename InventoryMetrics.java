@@ -0,0 +1,117 @@
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Latency histograms and error counts for the operations users wait on.
+// Callers time an operation with System.nanoTime() and hand over the delta;
+// nothing here allocates or locks on that path.
+//
+// Every interval the histograms are rolled, which gives the Recent
+// attributes over JMX, and if a metrics file is configured one line per
+// active operation is appended to it:
+//
+//   time,operation,count,errors,mean_ms,p50_ms,p90_ms,p99_ms,max_ms
+class InventoryMetrics {
+    enum Operation {
+        ADD("add"), EDIT("edit"), DELETE("delete"), SEARCH("search"), FILTER("filter"), QUERY("query"),
+        SORT("sort"), TABLE_REFRESH("tableRefresh"), RENDER("render");
+
+        final String label;
+
+        Operation(String label) {
+            this.label = label;
+        }
+    }
+
+    static final String FILE_HEADER = "time,operation,count,errors,mean_ms,p50_ms,p90_ms,p99_ms,max_ms";
+
+    private final Map<Operation, OperationMetrics> operations = new EnumMap<>(Operation.class);
+    private final Map<Operation, Long> errorsRolled = new EnumMap<>(Operation.class);
+    private ScheduledExecutorService roller;
+    private RollingMetricsFile file;
+
+    public InventoryMetrics() {
+        for (Operation operation : Operation.values()) {
+            operations.put(operation, new OperationMetrics(operation.label));
+            errorsRolled.put(operation, 0L);
+        }
+    }
+
+    public void record(Operation operation, long nanos) {
+        operations.get(operation).record(nanos);
+    }
+
+    public void failed(Operation operation) {
+        operations.get(operation).failed();
+    }
+
+    public OperationMetrics get(Operation operation) {
+        return operations.get(operation);
+    }
+
+    public void registerMBeans() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (OperationMetrics metrics : operations.values()) {
+            ObjectName name = new ObjectName("FoodInventory:type=Operation,name=" + metrics.getOperation());
+            if (!server.isRegistered(name)) server.registerMBean(new StandardMBean(metrics, OperationMetricsMBean.class), name);
+        }
+    }
+
+    // Rolls the histograms every interval, appending to file if it is not
+    // null.
+    public synchronized void start(long intervalSeconds, RollingMetricsFile file) {
+        if (roller != null) throw new IllegalStateException("Metrics are already being rolled.");
+        this.file = file;
+        roller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "inventory-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        roller.scheduleAtFixedRate(this::roll, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stop() {
+        if (roller == null) return;
+        roller.shutdownNow();
+        roller = null;
+        roll();
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                System.err.println("Could not close the metrics file: " + e.getMessage());
+            }
+        }
+    }
+
+    synchronized void roll() {
+        String time = Instant.now().toString();
+        StringBuilder lines = new StringBuilder();
+        for (Map.Entry<Operation, OperationMetrics> entry : operations.entrySet()) {
+            LatencyHistogram.Snapshot interval = entry.getValue().roll();
+            long errors = entry.getValue().getErrors();
+            long newErrors = errors - errorsRolled.put(entry.getKey(), errors);
+            if (interval.count() == 0 && newErrors == 0) continue;
+            lines.append(String.format(Locale.ROOT, "%s,%s,%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f%n", time, entry.getKey().label,
+                    interval.count(), newErrors, interval.meanNanos() / 1e6, interval.percentileNanos(0.50) / 1e6,
+                    interval.percentileNanos(0.90) / 1e6, interval.percentileNanos(0.99) / 1e6, interval.maxNanos() / 1e6));
+        }
+        if (file == null || lines.length() == 0) return;
+        try {
+            file.append(lines.toString());
+        } catch (IOException e) {
+            // Metrics must never take the application down; try again next time.
+            System.err.println("Could not write metrics: " + e.getMessage());
+        }
+    }
+}
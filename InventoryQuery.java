@@ -0,0 +1,53 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// A conjunction of optional predicates, e.g. "Dairy or Meat, quantity under
+// 15, expiring within 10 days, price over 300". An empty category set or a
+// null bound means that predicate is not used. Bounds are inclusive.
+record InventoryQuery(Set<String> categories, Integer minQuantity, Integer maxQuantity,
+                      Integer expiresWithinDays, Long minPriceCents, Long maxPriceCents) {
+
+    InventoryQuery {
+        categories = Set.copyOf(categories);
+    }
+
+    boolean isEmpty() {
+        return categories.isEmpty() && minQuantity == null && maxQuantity == null && expiresWithinDays == null
+                && minPriceCents == null && maxPriceCents == null;
+    }
+
+    // Row-by-row reference semantics; QueryIndex answers the same question
+    // from its bitmaps.
+    boolean matches(Ingredient ingredient, int today) {
+        if (!categories.isEmpty() && categories.stream().noneMatch(c -> c.equalsIgnoreCase(ingredient.getCategory())))
+            return false;
+        int quantity = ingredient.getQuantity();
+        if (minQuantity != null && quantity < minQuantity) return false;
+        if (maxQuantity != null && quantity > maxQuantity) return false;
+        if (expiresWithinDays != null && ingredient.getExpiryEpochDay() > today + expiresWithinDays) return false;
+        long price = ingredient.getPriceCents();
+        if (minPriceCents != null && price < minPriceCents) return false;
+        return maxPriceCents == null || price <= maxPriceCents;
+    }
+
+    String describe() {
+        List<String> parts = new ArrayList<>();
+        if (!categories.isEmpty()) parts.add(String.join(" or ", categories.stream().sorted().toList()));
+        if (minQuantity != null || maxQuantity != null)
+            parts.add("quantity " + range(minQuantity == null ? null : minQuantity.toString(),
+                    maxQuantity == null ? null : maxQuantity.toString()));
+        if (expiresWithinDays != null) parts.add("expiring within " + expiresWithinDays + " days");
+        if (minPriceCents != null || maxPriceCents != null)
+            parts.add("price " + range(minPriceCents == null ? null : PriceCellRenderer.formatCents(minPriceCents),
+                    maxPriceCents == null ? null : PriceCellRenderer.formatCents(maxPriceCents)));
+        return parts.isEmpty() ? "everything" : String.join(", ", parts);
+    }
+
+    private static String range(String min, String max) {
+        if (min == null) return "at most " + max;
+        if (max == null) return "at least " + min;
+        return String.format(Locale.ROOT, "%s to %s", min, max);
+    }
+}
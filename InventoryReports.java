@@ -0,0 +1,202 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+// End-of-day reports without a display. Each store is loaded read-only into
+// an InventoryService, the same model the GUI runs on, and the expiring-soon,
+// low-stock, valuation and reorder reports are streamed to CSV or JSON. The
+// reorder report forecasts from the consumption history the GUI keeps; see
+// DemandForecast for its settings. Nothing here loads AWT or Swing classes,
+// so a run starts in a fraction of a second and can go over many stores
+// from one cron job.
+//
+//   java InventoryReports [--reports=expiring,lowstock,valuation,reorder] [--format=csv|json]
+//                         [--days=7] [--date=2024-05-31] [--out=.] dataDir...
+//
+// Each store gets <out>/<store>-<report>.<format>, named after its
+// directory; a file only appears once it is complete. A store that fails is
+// reported on stderr and the others still run, and the exit status is then 1.
+final class InventoryReports {
+    private static final Set<String> REPORTS = Set.of("expiring", "lowstock", "valuation", "reorder");
+
+    private InventoryReports() {}
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        Set<String> reports = new LinkedHashSet<>(List.of("expiring", "lowstock", "valuation", "reorder"));
+        String format = "csv";
+        int days = 7;
+        LocalDate date = LocalDate.now();
+        Path out = Paths.get(".");
+        List<Path> stores = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--reports=")) reports = new LinkedHashSet<>(List.of(arg.substring(10).split(",")));
+            else if (arg.startsWith("--format=")) format = arg.substring(9);
+            else if (arg.startsWith("--days=")) days = Integer.parseInt(arg.substring(7));
+            else if (arg.startsWith("--date=")) date = LocalDate.parse(arg.substring(7));
+            else if (arg.startsWith("--out=")) out = Paths.get(arg.substring(6));
+            else if (arg.startsWith("--")) throw new IllegalArgumentException("Unknown option: " + arg);
+            else stores.add(Paths.get(arg));
+        }
+        for (String report : reports)
+            if (!REPORTS.contains(report)) throw new IllegalArgumentException("Unknown report: " + report);
+        if (!format.equals("csv") && !format.equals("json"))
+            throw new IllegalArgumentException("Unknown format: " + format);
+        if (stores.isEmpty()) {
+            System.err.println("Usage: java InventoryReports [--reports=expiring,lowstock,valuation,reorder] [--format=csv|json]"
+                    + " [--days=7] [--date=YYYY-MM-DD] [--out=DIR] dataDir...");
+            System.exit(2);
+        }
+
+        int failed = 0;
+        Set<String> names = new HashSet<>();
+        for (Path store : stores) {
+            long start = System.nanoTime();
+            try {
+                Files.createDirectories(out);
+                String name = uniqueName(store, names);
+                int items = run(store, name, reports, format, days, (int) date.toEpochDay(), out);
+                System.out.println(String.format("%s: %,d items, %.0f ms", store, items, (System.nanoTime() - start) / 1e6));
+            } catch (IOException | RuntimeException e) {
+                failed++;
+                System.err.println(store + ": " + e.getMessage());
+            }
+        }
+        if (failed > 0) System.exit(1);
+    }
+
+    private static int run(Path store, String name, Set<String> reports, String format, int days, int today, Path out)
+            throws IOException {
+        if (!Files.isDirectory(store)) throw new IOException("not a directory");
+        InventoryService service = new InventoryService();
+        InventoryAnalytics analytics = new InventoryAnalytics(days);
+        if (reports.contains("valuation")) service.addInventoryListener(analytics);
+        if (!new InventoryStore(store, Integer.MAX_VALUE).load(service))
+            throw new IOException("no saved inventory");
+
+        for (String report : reports) {
+            Path file = out.resolve(name + "-" + report + "." + format);
+            Path tmp = out.resolve(file.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                switch (report) {
+                    case "expiring" -> expiring(service, today, days, format, writer);
+                    case "lowstock" -> lowStock(service, lowStockIndex(store), format, writer);
+                    case "reorder" -> reorder(service, ConsumptionHistory.load(store, () -> today), today, format, writer);
+                    default -> valuation(analytics, today, format, writer);
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return service.size();
+    }
+
+    private record Expiring(Ingredient item, Lot lot) {}
+
+    // Every lot expiring within days of today, including those already
+    // past, earliest first. Only the lots in the report are held.
+    static void expiring(InventoryService service, int today, int days, String format, Writer out) throws IOException {
+        int horizon = today + days;
+        List<Expiring> rows = new ArrayList<>();
+        for (Ingredient item : service.items()) {
+            if (item.getExpiryEpochDay() > horizon) continue;
+            for (Lot lot : service.lots(item.getSku()))
+                if (lot.expiryEpochDay() <= horizon) rows.add(new Expiring(item, lot));
+        }
+        rows.sort(Comparator.comparingInt((Expiring row) -> row.lot().expiryEpochDay())
+                .thenComparing(row -> row.item().getName(), String.CASE_INSENSITIVE_ORDER));
+        try (ReportWriter report = ReportWriter.open(format, out,
+                "name", "category", "quantity", "expiration_date", "days_left", "value")) {
+            for (Expiring row : rows) {
+                Ingredient item = row.item();
+                report.row(item.getName(), item.getCategory(), row.lot().quantity(), row.lot().expirationDate(),
+                        row.lot().expiryEpochDay() - today, money((long) row.lot().quantity() * item.getPriceCents()));
+            }
+        }
+    }
+
+    private static LowStockIndex lowStockIndex(Path store) throws IOException {
+        LowStockIndex thresholds = LowStockIndex.load(store);
+        for (String warning : thresholds.getWarnings()) System.err.println(store + ": lowstock.properties: " + warning);
+        return thresholds;
+    }
+
+    // Everything at or below its reorder threshold, by category and name,
+    // with how many units it takes to get back above it.
+    static void lowStock(InventoryService service, LowStockIndex thresholds, String format, Writer out) throws IOException {
+        List<Ingredient> rows = new ArrayList<>();
+        for (Ingredient item : service.items())
+            if (item.getQuantity() <= thresholds.thresholdFor(item)) rows.add(item);
+        rows.sort(Comparator.comparing(Ingredient::getCategory, String.CASE_INSENSITIVE_ORDER)
+                .thenComparing(Ingredient::getName, String.CASE_INSENSITIVE_ORDER));
+        try (ReportWriter report = ReportWriter.open(format, out,
+                "name", "category", "quantity", "threshold", "shortfall", "price")) {
+            for (Ingredient item : rows) {
+                int threshold = thresholds.thresholdFor(item);
+                report.row(item.getName(), item.getCategory(), item.getQuantity(), threshold,
+                        threshold - item.getQuantity() + 1, money(item.getPriceCents()));
+            }
+        }
+    }
+
+    // One row per category and a final "All" row; the totals were kept up
+    // as the store loaded, so this reads a few dozen numbers.
+    static void valuation(InventoryAnalytics analytics, int today, String format, Writer out) throws IOException {
+        try (ReportWriter report = ReportWriter.open(format, out,
+                "category", "items", "units", "value", "average_price", "at_risk")) {
+            for (InventoryAnalytics.Summary summary : analytics.summaries(today))
+                report.row(summary.category(), summary.items(), summary.units(), money(summary.valueCents()),
+                        money(summary.averagePriceCents()), money(summary.atRiskCents()));
+        }
+    }
+
+    // The SKUs to reorder or that will expire before they are used, soonest
+    // stock-out first.
+    static void reorder(InventoryService service, ConsumptionHistory history, int today, String format, Writer out)
+            throws IOException {
+        List<DemandForecast.Forecast> forecasts = DemandForecast.fromSystemProperties(history)
+                .forecastAll(service, today, ForkJoinPool.commonPool());
+        try (ReportWriter report = ReportWriter.open(format, out, "name", "category", "quantity", "average_per_day",
+                "smoothed_per_day", "stock_out_date", "expiration_date", "expiring_units", "reorder_quantity")) {
+            for (DemandForecast.Forecast forecast : forecasts) {
+                if (forecast.reorderQuantity() == 0 && forecast.expiringUnits() == 0) continue;
+                Ingredient item = forecast.item();
+                report.row(item.getName(), item.getCategory(), item.getQuantity(), rate(forecast.movingAverage()),
+                        rate(forecast.smoothed()), forecast.stockOutDay() == DemandForecast.NO_STOCK_OUT ? ""
+                                : LocalDate.ofEpochDay(forecast.stockOutDay()),
+                        item.getExpirationDate(), forecast.expiringUnits(), forecast.reorderQuantity());
+            }
+        }
+    }
+
+    private static BigDecimal rate(double unitsPerDay) {
+        return BigDecimal.valueOf(unitsPerDay).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal money(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    // Stores in different places often share a directory name; number the
+    // later ones so their reports do not overwrite each other.
+    private static String uniqueName(Path store, Set<String> used) {
+        Path fileName = store.toAbsolutePath().normalize().getFileName();
+        String base = fileName == null ? "inventory" : fileName.toString();
+        String name = base;
+        for (int n = 2; !used.add(name); n++) name = base + "-" + n;
+        return name;
+    }
+}
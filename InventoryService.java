@@ -0,0 +1,438 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Headless, thread-safe owner of the inventory, keyed by SKU. Every operation
+// is atomic for the SKUs it touches: it locks the SKU's stripe (two stripes,
+// in a fixed order, for a transfer), so movements on different SKUs proceed in
+// parallel without a global lock. Reads never lock.
+//
+// Listeners are notified on the calling thread while the stripe is held, so
+// they see the changes to one SKU in order. They must be thread-safe, and a
+// listener that takes one lock for every event puts all movements back in a
+// single queue, so none of the GUI's does: the indexes take movements
+// without a lock, the journal and replication lock a stripe of their own,
+// the consumption history locks the SKU's series, and the query index and
+// analytics queue them on PendingEvents.
+// InventoryServiceStress --all-listeners measures them together. A listener
+// that throws is logged and the others still hear of the change, which has
+// already happened; it is not rolled back.
+//
+// A SKU can hold several lots with their own expiry dates. Its entry then
+// shows the total quantity and the earliest expiry, and stock leaves first
+// expiry, first out. Most SKUs are a single lot, so a LotQueue only exists
+// while a SKU holds more than one.
+class InventoryService {
+    private static final Logger LOG = Logger.getLogger("inventory.service");
+    private static final ThreadLocal<Boolean> REPLICATED = ThreadLocal.withInitial(() -> false);
+
+    private final ConcurrentHashMap<String, Ingredient> items = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LotQueue> lots = new ConcurrentHashMap<>();
+    private final ReentrantLock[] stripes;
+    private final List<InventoryListener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong version = new AtomicLong();
+
+    public InventoryService() {
+        int count = Integer.highestOneBit(Math.max(64, Runtime.getRuntime().availableProcessors() * 8) - 1) << 1;
+        stripes = new ReentrantLock[count];
+        for (int i = 0; i < count; i++) stripes[i] = new ReentrantLock();
+    }
+
+    public void addInventoryListener(InventoryListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeInventoryListener(InventoryListener listener) {
+        listeners.remove(listener);
+    }
+
+    public Ingredient get(String sku) {
+        return items.get(sku);
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    // Bumped by every change once its listeners have run. Read it before
+    // reading the data or an index, so a cached result is never labelled
+    // newer than it is.
+    public long getVersion() {
+        return version.get();
+    }
+
+    // Live, weakly consistent view for streaming without a copy.
+    public Collection<Ingredient> items() {
+        return Collections.unmodifiableCollection(items.values());
+    }
+
+    public List<Ingredient> snapshot() {
+        return new ArrayList<>(items.values());
+    }
+
+    // The lots of sku in expiry order; a single lot if it has no others.
+    public List<Lot> lots(String sku) {
+        ReentrantLock lock = stripe(sku);
+        lock.lock();
+        try {
+            LotQueue queue = lots.get(sku);
+            if (queue != null) return queue.lots();
+            Ingredient current = require(sku);
+            return List.of(new Lot(current.getExpiryEpochDay(), current.getQuantity()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Puts back the lots saved for sku without notifying listeners, which
+    // already hold the totals. Lots that do not add up to the entry's
+    // quantity are ignored and the entry stays a single lot.
+    boolean restoreLots(String sku, List<Lot> saved) {
+        ReentrantLock lock = stripe(sku);
+        lock.lock();
+        try {
+            Ingredient current = items.get(sku);
+            if (current == null || saved.size() < 2) return false;
+            LotQueue queue = new LotQueue(saved);
+            if (queue.quantity() != current.getQuantity() || queue.earliestExpiryDay() != current.getExpiryEpochDay())
+                return false;
+            lots.put(sku, queue);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Adds the items, firing ingredientAdded for each. Items whose SKU is
+    // already present are not added; they are returned so the caller can
+    // decide how to merge them.
+    public List<Ingredient> load(Collection<Ingredient> ingredients) {
+        List<Ingredient> duplicates = new ArrayList<>();
+        for (Ingredient ingredient : ingredients) {
+            try {
+                add(ingredient);
+            } catch (IllegalArgumentException e) {
+                duplicates.add(ingredient);
+            }
+        }
+        return duplicates;
+    }
+
+    public void add(Ingredient item) {
+        String sku = item.getSku();
+        ReentrantLock lock = stripe(sku);
+        lock.lock();
+        try {
+            if (items.containsKey(sku)) throw alreadyStocked(item);
+            insert(sku, item);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Adds the ingredient, or if its SKU is already stocked receives it as a
+    // new lot: quantities add up, the new price applies and the entry shows
+    // the earlier expiry date. Returns the resulting entry.
+    public Ingredient upsert(Ingredient item) {
+        String sku = item.getSku();
+        ReentrantLock lock = stripe(sku);
+        lock.lock();
+        try {
+            Ingredient current = items.get(sku);
+            if (current == null) return insert(sku, item);
+            checkedQuantity(current, item.getQuantity());
+            LotQueue queue = lotsOf(sku, current);
+            queue.add(item.getExpiryEpochDay(), item.getQuantity());
+            return replaceLots(sku, current, queue, item.getPriceCents());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Receives a delivery with its own expiry date as a separate lot.
+    public Ingredient receiveLot(String sku, int quantity, LocalDate expirationDate) {
+        if (quantity <= 0) throw new IllegalArgumentException("Quantity received must be positive.");
+        ReentrantLock lock = stripe(sku);
+        lock.lock();
+        try {
+            Ingredient current = require(sku);
+            checkedQuantity(current, quantity);
+            LotQueue queue = lotsOf(sku, current);
+            queue.add((int) expirationDate.toEpochDay(), quantity);
+            return replaceLots(sku, current, queue, current.getPriceCents());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Replaces the entry at sku with an edited version in place. The edit may
+    // rename the ingredient or change its category, and so its SKU, as long
+    // as the new SKU is not already taken. An edit states the quantity and
+    // expiry outright, so the ingredient becomes a single lot again.
+    public Ingredient update(String sku, Ingredient replacement) {
+        return update(sku, replacement.getSku(), current -> replacement);
+    }
+
+    // Like update(), but keeps the quantity the entry has when the lock is
+    // taken instead of stating one. Used for edits merged from another
+    // branch, whose stock is its own.
+    public Ingredient updateAttributes(String sku, Ingredient replacement) {
+        return update(sku, replacement.getSku(), current -> replacement.withQuantity(current.getQuantity()));
+    }
+
+    // Runs a change merged from another branch. Listeners hear of it like
+    // any other and can tell it apart with isReplicated(): it is not
+    // something that happened here, so it is not consumption or a local
+    // edit.
+    public <T> T replicated(Supplier<T> change) {
+        boolean outer = REPLICATED.get();
+        REPLICATED.set(true);
+        try {
+            return change.get();
+        } finally {
+            REPLICATED.set(outer);
+        }
+    }
+
+    // Only meaningful inside a listener callback, which runs on the thread
+    // that made the change.
+    public static boolean isReplicated() {
+        return REPLICATED.get();
+    }
+
+    private Ingredient update(String sku, String newSku, UnaryOperator<Ingredient> edit) {
+        ReentrantLock first = stripes[Math.min(stripeIndex(sku), stripeIndex(newSku))];
+        ReentrantLock second = stripes[Math.max(stripeIndex(sku), stripeIndex(newSku))];
+        first.lock();
+        second.lock();
+        try {
+            Ingredient current = require(sku);
+            Ingredient item = edit.apply(current);
+            if (!newSku.equals(sku)) {
+                if (items.containsKey(newSku)) throw alreadyStocked(item);
+                items.remove(sku);
+            }
+            lots.remove(sku);
+            return replace(newSku, current, item);
+        } finally {
+            second.unlock();
+            first.unlock();
+        }
+    }
+
+    public Ingredient remove(String sku) {
+        ReentrantLock lock = stripe(sku);
+        lock.lock();
+        try {
+            Ingredient removed = items.remove(sku);
+            if (removed == null) return null;
+            lots.remove(sku);
+            notifyListeners(listener -> listener.ingredientRemoved(removed));
+            return removed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Ingredient receive(String sku, int quantity) {
+        if (quantity <= 0) throw new IllegalArgumentException("Quantity received must be positive.");
+        return adjust(sku, quantity);
+    }
+
+    public Ingredient consume(String sku, int quantity) {
+        if (quantity <= 0) throw new IllegalArgumentException("Quantity consumed must be positive.");
+        return adjust(sku, -quantity);
+    }
+
+    // Applies a signed correction, e.g. after a stock count or for waste.
+    // Stock taken away leaves first expiry, first out; stock added joins the
+    // lot that expires first.
+    public Ingredient adjust(String sku, int delta) {
+        ReentrantLock lock = stripe(sku);
+        lock.lock();
+        try {
+            Ingredient current = require(sku);
+            return adjustLocked(sku, current, checkedQuantity(current, delta), delta);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Consumes every SKU in quantities by its amount as one atomic step, for
+    // example the ingredients of a batch of orders. Either all of it is
+    // taken or, if any SKU is unknown or short, none of it is. The stripes
+    // involved are locked in ascending order, so this never deadlocks with a
+    // transfer or another batch.
+    public void consumeAll(Map<String, Integer> quantities) {
+        boolean[] needed = new boolean[stripes.length];
+        for (Map.Entry<String, Integer> entry : quantities.entrySet()) {
+            if (entry.getValue() <= 0) throw new IllegalArgumentException("Quantity consumed must be positive.");
+            needed[stripeIndex(entry.getKey())] = true;
+        }
+        int locked = 0;
+        try {
+            for (; locked < stripes.length; locked++)
+                if (needed[locked]) stripes[locked].lock();
+            Ingredient[] current = new Ingredient[quantities.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> entry : quantities.entrySet()) {
+                current[i] = require(entry.getKey());
+                checkedQuantity(current[i++], -entry.getValue());
+            }
+            i = 0;
+            for (Map.Entry<String, Integer> entry : quantities.entrySet()) {
+                Ingredient item = current[i++];
+                adjustLocked(entry.getKey(), item, item.getQuantity() - entry.getValue(), -entry.getValue());
+            }
+        } finally {
+            while (--locked >= 0)
+                if (needed[locked]) stripes[locked].unlock();
+        }
+    }
+
+    // Moves stock from one SKU to another (for example bulk flour into the
+    // portioned dough SKU) as a single atomic step. The stock taken keeps
+    // its expiry dates: it leaves the source first expiry, first out and
+    // arrives as lots of the target.
+    public void transfer(String fromSku, String toSku, int quantity) {
+        if (quantity <= 0) throw new IllegalArgumentException("Quantity transferred must be positive.");
+        if (fromSku.equals(toSku)) throw new IllegalArgumentException("Cannot transfer stock to the same SKU.");
+        int a = stripeIndex(fromSku);
+        int b = stripeIndex(toSku);
+        ReentrantLock first = stripes[Math.min(a, b)];
+        ReentrantLock second = stripes[Math.max(a, b)];
+        first.lock();
+        second.lock();
+        try {
+            Ingredient from = require(fromSku);
+            Ingredient to = require(toSku);
+            int drained = checkedQuantity(from, -quantity);
+            int filled = checkedQuantity(to, quantity);
+
+            LotQueue source = lots.get(fromSku);
+            List<Lot> moved;
+            if (source == null) {
+                moved = List.of(new Lot(from.getExpiryEpochDay(), quantity));
+                replace(fromSku, from, from.withQuantity(drained));
+            } else {
+                moved = source.take(quantity);
+                replaceLots(fromSku, from, source, from.getPriceCents());
+            }
+
+            // Stock arriving with the target's own date keeps it a single lot.
+            if (lots.get(toSku) == null && moved.size() == 1 && moved.get(0).expiryEpochDay() == to.getExpiryEpochDay()) {
+                replace(toSku, to, to.withQuantity(filled));
+            } else {
+                LotQueue target = lotsOf(toSku, to);
+                for (Lot lot : moved) target.add(lot.expiryEpochDay(), lot.quantity());
+                replaceLots(toSku, to, target, to.getPriceCents());
+            }
+        } finally {
+            second.unlock();
+            first.unlock();
+        }
+    }
+
+    private Ingredient adjustLocked(String sku, Ingredient current, int quantity, int delta) {
+        LotQueue queue = lots.get(sku);
+        if (queue == null) return replace(sku, current, current.withQuantity(quantity));
+        if (delta < 0) queue.take(-delta);
+        else queue.addToEarliest(delta, current.getExpiryEpochDay());
+        return replaceLots(sku, current, queue, current.getPriceCents());
+    }
+
+    private Ingredient insert(String sku, Ingredient item) {
+        items.put(sku, item);
+        notifyListeners(listener -> listener.ingredientAdded(item));
+        return item;
+    }
+
+    private Ingredient replace(String sku, Ingredient old, Ingredient updated) {
+        return replace(sku, old, updated, null);
+    }
+
+    private Ingredient replace(String sku, Ingredient old, Ingredient updated, List<Lot> held) {
+        items.put(sku, updated);
+        notifyListeners(listener -> {
+            listener.ingredientUpdated(old, updated);
+            if (held != null) listener.lotsChanged(updated, held);
+        });
+        return updated;
+    }
+
+    // One listener failing, say the journal on a full disk, must not keep
+    // the indexes from the change or leave the version behind the items.
+    private void notifyListeners(Consumer<InventoryListener> event) {
+        try {
+            for (InventoryListener listener : listeners) {
+                try {
+                    event.accept(listener);
+                } catch (RuntimeException e) {
+                    LOG.log(Level.SEVERE, "Inventory listener " + listener.getClass().getName() + " failed", e);
+                }
+            }
+        } finally {
+            version.incrementAndGet();
+        }
+    }
+
+    private LotQueue lotsOf(String sku, Ingredient current) {
+        LotQueue queue = lots.get(sku);
+        return queue != null ? queue : new LotQueue(current);
+    }
+
+    // Publishes a changed queue as sku's entry: its total quantity and its
+    // earliest expiry (the old date if it ran empty). A queue down to one lot
+    // is just the entry again and is dropped.
+    private Ingredient replaceLots(String sku, Ingredient current, LotQueue queue, long priceCents) {
+        int expiry = queue.isEmpty() ? current.getExpiryEpochDay() : queue.earliestExpiryDay();
+        Ingredient updated = current.withStock((int) queue.quantity(), expiry, priceCents);
+        if (queue.size() > 1) {
+            lots.put(sku, queue);
+            return replace(sku, current, updated, queue.lots());
+        }
+        lots.remove(sku);
+        return replace(sku, current, updated);
+    }
+
+    private static IllegalArgumentException alreadyStocked(Ingredient item) {
+        return new IllegalArgumentException(item.getName() + " (" + item.getCategory() + ") is already in the inventory.");
+    }
+
+    private Ingredient require(String sku) {
+        Ingredient current = items.get(sku);
+        if (current == null) throw new IllegalArgumentException("Unknown SKU: " + sku);
+        return current;
+    }
+
+    private static int checkedQuantity(Ingredient current, int delta) {
+        long quantity = (long) current.getQuantity() + delta;
+        if (quantity < 0)
+            throw new IllegalStateException("Insufficient stock of " + current.getName() + ": " + current.getQuantity()
+                    + " on hand, " + (-delta) + " requested.");
+        if (quantity > Integer.MAX_VALUE)
+            throw new IllegalStateException("Quantity of " + current.getName() + " would overflow.");
+        return (int) quantity;
+    }
+
+    private ReentrantLock stripe(String sku) {
+        return stripes[stripeIndex(sku)];
+    }
+
+    private int stripeIndex(String sku) {
+        int h = sku.hashCode();
+        return (h ^ (h >>> 16)) & (stripes.length - 1);
+    }
+}
@@ -0,0 +1,189 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// Hammers InventoryService with a POS-like mix of stock movements from 1..N
+// threads and reports throughput per thread count. After each run it checks
+// that the total quantity equals the initial stock plus the net movements,
+// which catches lost updates.
+//
+//   java InventoryServiceStress [--skus=10000] [--ops=2000000]
+//        [--threads=1,2,4,8] [--indexes | --all-listeners] [--lots=1]
+//
+// --indexes also attaches the low-stock, expiry and search indexes the GUI
+// uses, to show what they cost on top of the service. --all-listeners
+// attaches everything the GUI does: those indexes plus the journal (in a
+// temporary directory), the query index, analytics, the consumption history
+// and replication. None of them takes a lock shared by every movement, so
+// they should not cost the service its scaling; compare the speedup column
+// with and without them. With the journal attached the check also reopens
+// it and compares its total. --lots=N starts every SKU with N lots and
+// receives dated deliveries, so consumption runs first expiry, first out
+// across lots.
+final class InventoryServiceStress {
+    private static final int INITIAL_QUANTITY = 1_000_000;
+
+    private InventoryServiceStress() {}
+
+    public static void main(String[] args) throws InterruptedException {
+        int skus = 10_000;
+        int ops = 2_000_000;
+        int[] threads = defaultThreadCounts();
+        boolean indexes = false;
+        boolean all = false;
+        int lots = 1;
+        for (String arg : args) {
+            if (arg.startsWith("--skus=")) skus = Integer.parseInt(arg.substring(7));
+            else if (arg.startsWith("--ops=")) ops = Integer.parseInt(arg.substring(6));
+            else if (arg.startsWith("--threads=")) threads = Arrays.stream(arg.substring(10).split(",")).mapToInt(Integer::parseInt).toArray();
+            else if (arg.equals("--indexes")) indexes = true;
+            else if (arg.equals("--all-listeners")) all = true;
+            else if (arg.startsWith("--lots=")) lots = Integer.parseInt(arg.substring(7));
+            else throw new IllegalArgumentException("Unknown option: " + arg);
+        }
+
+        System.out.println(String.format("%d SKUs, %,d operations per run, %d cores%s%s", skus, ops,
+                Runtime.getRuntime().availableProcessors(), all ? ", with all listeners" : indexes ? ", with indexes" : "",
+                lots > 1 ? ", " + lots + " lots per SKU" : ""));
+        System.out.println(String.format("%8s %14s %10s %10s %8s", "threads", "ops/s", "speedup", "rejected", "check"));
+        double baseline = 0;
+        for (int threadCount : threads) {
+            // One untimed run warms up the JIT for this configuration.
+            run(skus, Math.min(ops, 200_000), threadCount, indexes || all, all, lots);
+            Result result = run(skus, ops, threadCount, indexes || all, all, lots);
+            double opsPerSecond = ops / (result.nanos() / 1e9);
+            if (baseline == 0) baseline = opsPerSecond;
+            System.out.println(String.format("%8d %,14.0f %9.2fx %,10d %8s", threadCount, opsPerSecond,
+                    opsPerSecond / baseline, result.rejected(), result.consistent() ? "ok" : "FAILED"));
+        }
+    }
+
+    private record Result(long nanos, long rejected, boolean consistent) {}
+
+    private static int[] defaultThreadCounts() {
+        List<Integer> counts = new ArrayList<>();
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int n = 1; n < cores * 2; n *= 2) counts.add(n);
+        counts.add(cores * 2);
+        return counts.stream().distinct().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static Result run(int skuCount, int ops, int threadCount, boolean indexes, boolean all, int lots)
+            throws InterruptedException {
+        InventoryService service = new InventoryService();
+        if (indexes) {
+            service.addInventoryListener(new LowStockIndex(LowStockIndex.DEFAULT_THRESHOLD));
+            service.addInventoryListener(new ExpiryIndex());
+            service.addInventoryListener(new SearchIndex());
+        }
+        Path dir = null;
+        InventoryStore store = null;
+        if (all) {
+            try {
+                dir = Files.createTempDirectory("inventory-stress");
+                store = new InventoryStore(dir, 50_000);
+                store.attach(service);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            int day = (int) LocalDate.now().toEpochDay();
+            service.addInventoryListener(new QueryIndex());
+            service.addInventoryListener(new InventoryAnalytics(7));
+            service.addInventoryListener(new ConsumptionHistory(() -> day));
+            new BranchReplicator(service, "stress").attach();
+        }
+        String[] skus = new String[skuCount];
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < skuCount; i++) {
+            int perLot = INITIAL_QUANTITY / lots;
+            Ingredient ingredient = new Ingredient("Item " + i, Ingredient.CATEGORIES[i % Ingredient.CATEGORIES.length],
+                    INITIAL_QUANTITY - perLot * (lots - 1), today.plusDays(i % 365), 1 + i % 500);
+            service.add(ingredient);
+            skus[i] = ingredient.getSku();
+            for (int lot = 1; lot < lots; lot++)
+                service.receiveLot(skus[i], perLot, today.plusDays(i % 365 + lot));
+        }
+
+        LongAdder net = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            int share = ops / threadCount + (t < ops % threadCount ? 1 : 0);
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long localNet = 0;
+                for (int i = 0; i < share; i++) {
+                    String sku = skus[random.nextInt(skus.length)];
+                    int roll = random.nextInt(100);
+                    // Movements only count toward the net once they succeed.
+                    try {
+                        if (roll < 50) {
+                            int quantity = 1 + random.nextInt(3);
+                            service.consume(sku, quantity);
+                            localNet -= quantity;
+                        } else if (roll < 80) {
+                            int quantity = 1 + random.nextInt(5);
+                            if (lots > 1) service.receiveLot(sku, quantity, today.plusDays(random.nextInt(400)));
+                            else service.receive(sku, quantity);
+                            localNet += quantity;
+                        } else if (roll < 95) {
+                            int delta = random.nextInt(11) - 5;
+                            service.adjust(sku, delta);
+                            localNet += delta;
+                        } else {
+                            service.transfer(sku, skus[random.nextInt(skus.length)], 1);
+                        }
+                    } catch (IllegalArgumentException | IllegalStateException e) {
+                        rejected.increment();
+                    }
+                }
+                net.add(localNet);
+            }, "stress-" + t);
+            worker.start();
+            workers.add(worker);
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) worker.join();
+        long nanos = System.nanoTime() - begin;
+
+        long total = 0;
+        for (Ingredient ingredient : service.snapshot()) total += ingredient.getQuantity();
+        boolean consistent = total == (long) skuCount * INITIAL_QUANTITY + net.sum();
+        if (store != null) consistent &= journalTotal(store, dir) == total;
+        return new Result(nanos, rejected.sum(), consistent);
+    }
+
+    // Closes the journal, reads it back into a fresh service and deletes it.
+    private static long journalTotal(InventoryStore store, Path dir) {
+        try {
+            store.close();
+            InventoryService reloaded = new InventoryService();
+            new InventoryStore(dir, Integer.MAX_VALUE).load(reloaded);
+            long total = 0;
+            for (Ingredient ingredient : reloaded.snapshot()) total += ingredient.getQuantity();
+            try (var files = Files.walk(dir)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) Files.delete(file);
+            }
+            return total;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,602 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+// Persists the inventory as a binary snapshot plus an append-only journal of
+// add/remove records, and of the lots of ingredients that hold several.
+// Every record is framed as [length][crc32][payload] so a torn write at the
+// tail is detected and truncated on the next start.
+//
+// Appends only copy the record into an in-memory buffer; a single I/O thread
+// writes and fsyncs the buffers every FLUSH_MILLIS (group commit) and also
+// writes snapshots. When a snapshot is taken the journal rolls over to a new
+// segment, so startup reads the latest snapshot and replays only the
+// segments written after it.
+//
+// The buffers and the live state are split into stripes by SKU, each with
+// its own lock, so the service's threads only meet here when their SKUs
+// share a stripe. Records of one SKU stay in order in their stripe's buffer;
+// records of different SKUs may be written in any order, which replay does
+// not mind. The I/O thread takes every stripe to swap the buffers out and to
+// cut a snapshot, so a snapshot's sequence number still divides the journal
+// exactly.
+//
+// Files are read into memory in one go rather than mapped. Windows will not
+// delete, replace or truncate a file while a mapping of it is live, and a
+// mapping is only released once its buffer is garbage collected, so mapping
+// would break segment cleanup, the snapshot rename and torn-tail repair.
+class InventoryStore implements InventoryListener, Closeable {
+    private static final String SNAPSHOT_FILE = "inventory.snapshot";
+    private static final String LOCK_FILE = "inventory.lock";
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int SNAPSHOT_MAGIC = 0x46494E56;
+    // Version 2 appends the lots of multi-lot ingredients; version 1
+    // snapshots are still read.
+    private static final int FORMAT_VERSION = 2;
+    private static final byte OP_ADD = 1;
+    private static final byte OP_REMOVE = 2;
+    private static final byte OP_LOTS = 3;
+    private static final int FRAME_HEADER = 8;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int STRIPES = 64;
+    private static final int STRIPE_BUFFER_SIZE = 1 << 14;
+    private static final long FLUSH_MILLIS = 50;
+
+    private final Path dir;
+    private final int snapshotInterval;
+    private final ScheduledExecutorService io = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "inventory-store");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final AtomicLong seq = new AtomicLong();
+    private final AtomicBoolean snapshotRunning = new AtomicBoolean();
+    private volatile long snapshotSeq;
+    // Set with every stripe held, by the snapshot, for the next flush.
+    private long rotateSeq = -1;
+    private volatile IOException failure;
+
+    // Only used while reading, before the state is split into stripes.
+    private final Map<Long, Ingredient> live = new LinkedHashMap<>();
+    private final Map<Long, List<Lot>> lotsById = new HashMap<>();
+    private long nextId = 1;
+
+    // Touched only by the I/O thread once open() has returned.
+    private FileChannel journal;
+    private FileLock lock;
+
+    public InventoryStore(Path dir, int snapshotInterval) {
+        this.dir = dir;
+        this.snapshotInterval = snapshotInterval;
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new Stripe();
+    }
+
+    private static final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        final Map<Ingredient, Long> ids = new HashMap<>();
+        final Map<Long, Ingredient> live = new HashMap<>();
+        final Map<Long, List<Lot>> lotsById = new HashMap<>();
+        final CRC32 crc = new CRC32();
+        ByteBuffer pending = ByteBuffer.allocate(STRIPE_BUFFER_SIZE);
+        ByteBuffer spare = ByteBuffer.allocate(STRIPE_BUFFER_SIZE);
+        int rotateAt = -1;
+    }
+
+    public boolean exists() {
+        return Files.exists(dir.resolve(SNAPSHOT_FILE)) || !segments().isEmpty();
+    }
+
+    // Only one process may write the journal: the directory is locked until
+    // close(), and a second writer, such as the HTTP server pointed at the
+    // GUI's directory, fails here instead of interleaving records.
+    public synchronized List<Ingredient> open() throws IOException {
+        Files.createDirectories(dir);
+        lock();
+        Path last;
+        try {
+            last = read(true);
+        } catch (IOException | RuntimeException e) {
+            unlock();
+            throw e;
+        }
+        Path active = last != null ? last : segmentPath(seq.get() + 1);
+        journal = FileChannel.open(active, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        io.scheduleWithFixedDelay(this::flushQuietly, FLUSH_MILLIS, FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+        return items();
+    }
+
+    // Opens the store, loads what it holds into the service and from then on
+    // journals the service's changes. Returns false if nothing was saved yet.
+    public boolean attach(InventoryService service) throws IOException {
+        boolean existing = exists();
+        List<Ingredient> duplicates = service.load(open());
+        restoreLots(service);
+        service.addInventoryListener(this);
+        // Journals written before the service existed could hold the same
+        // SKU twice; fold the extra rows into the one that was loaded.
+        for (Ingredient duplicate : duplicates) {
+            ingredientRemoved(duplicate);
+            service.adjust(duplicate.getSku(), duplicate.getQuantity());
+        }
+        return existing;
+    }
+
+    // Loads what the store holds into the service without writing anything:
+    // no journal is opened and a torn tail is skipped rather than truncated,
+    // so this is safe next to a running application. Returns false if nothing
+    // was saved yet.
+    public boolean load(InventoryService service) throws IOException {
+        if (!exists()) return false;
+        List<Ingredient> loaded;
+        synchronized (this) {
+            read(false);
+            loaded = items();
+        }
+        List<Ingredient> duplicates = service.load(loaded);
+        restoreLots(service);
+        for (Ingredient duplicate : duplicates)
+            service.adjust(duplicate.getSku(), duplicate.getQuantity());
+        return true;
+    }
+
+    private List<Ingredient> items() {
+        List<Ingredient> items = new ArrayList<>();
+        lockAll();
+        try {
+            for (Stripe stripe : stripes) items.addAll(stripe.live.values());
+        } finally {
+            unlockAll();
+        }
+        return items;
+    }
+
+    private void restoreLots(InventoryService service) {
+        Map<String, List<Lot>> savedLots = new HashMap<>();
+        lockAll();
+        try {
+            for (Stripe stripe : stripes)
+                for (Map.Entry<Long, List<Lot>> entry : stripe.lotsById.entrySet())
+                    savedLots.put(stripe.live.get(entry.getKey()).getSku(), entry.getValue());
+        } finally {
+            unlockAll();
+        }
+        for (Map.Entry<String, List<Lot>> entry : savedLots.entrySet())
+            service.restoreLots(entry.getKey(), entry.getValue());
+    }
+
+    // An ingredient's id is the sequence number of the record that added
+    // it, so ids are unique without a counter of their own.
+    public void ingredientAdded(Ingredient ingredient) {
+        Stripe stripe = stripe(ingredient.getSku());
+        stripe.lock.lock();
+        try {
+            long id = seq.incrementAndGet();
+            stripe.ids.put(ingredient, id);
+            stripe.live.put(id, ingredient);
+            append(stripe, OP_ADD, id, id, ingredient);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public void ingredientRemoved(Ingredient ingredient) {
+        Stripe stripe = stripe(ingredient.getSku());
+        stripe.lock.lock();
+        try {
+            Long id = stripe.ids.remove(ingredient);
+            if (id == null) return;
+            stripe.live.remove(id);
+            stripe.lotsById.remove(id);
+            append(stripe, OP_REMOVE, seq.incrementAndGet(), id, null);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public void lotsChanged(Ingredient ingredient, List<Lot> lots) {
+        Stripe stripe = stripe(ingredient.getSku());
+        stripe.lock.lock();
+        try {
+            Long id = stripe.ids.get(ingredient);
+            if (id == null) return;
+            stripe.lotsById.put(id, lots);
+            int frame = beginFrame(stripe, 17 + IngredientCodec.lotsBytes(lots));
+            long recordSeq = seq.incrementAndGet();
+            stripe.pending.put(OP_LOTS).putLong(recordSeq).putLong(id);
+            IngredientCodec.writeLots(stripe.pending, lots);
+            endFrame(stripe, frame, recordSeq);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private Stripe stripe(String sku) {
+        int h = sku.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    // In index order, so two threads taking them all cannot deadlock.
+    private void lockAll() {
+        for (Stripe stripe : stripes) stripe.lock.lock();
+    }
+
+    private void unlockAll() {
+        for (Stripe stripe : stripes) stripe.lock.unlock();
+    }
+
+    public void close() throws IOException {
+        try {
+            io.submit(() -> {
+                flush();
+                journal.close();
+                return null;
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (java.util.concurrent.ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        } finally {
+            io.shutdown();
+            unlock();
+        }
+    }
+
+    private void lock() throws IOException {
+        FileChannel channel = FileChannel.open(dir.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            channel.close();
+            throw new IOException(dir + " is already open in another inventory process");
+        }
+    }
+
+    private synchronized void unlock() {
+        if (lock == null) return;
+        try {
+            lock.channel().close();
+        } catch (IOException e) {
+            // Closing the channel releases the lock either way.
+        }
+        lock = null;
+    }
+
+    // Called with the stripe held, and the sequence number was taken under
+    // it too, so a snapshot, which holds every stripe, sees each record
+    // either wholly before its cut or wholly after.
+    private void append(Stripe stripe, byte op, long recordSeq, long id, Ingredient ingredient) {
+        int frame = beginFrame(stripe, 17 + IngredientCodec.MAX_RECORD_BYTES);
+        stripe.pending.put(op).putLong(recordSeq).putLong(id);
+        if (ingredient != null)
+            IngredientCodec.write(stripe.pending, ingredient);
+        endFrame(stripe, frame, recordSeq);
+    }
+
+    // Reserves room for a record of up to maxPayload bytes and returns where
+    // its frame starts; the payload is written at the current position.
+    private int beginFrame(Stripe stripe, int maxPayload) {
+        if (failure != null)
+            throw new UncheckedIOException("Inventory journal is not writable", failure);
+        while (stripe.pending.remaining() < FRAME_HEADER + maxPayload)
+            stripe.pending = grow(stripe.pending);
+        int frame = stripe.pending.position();
+        stripe.pending.position(frame + FRAME_HEADER);
+        return frame;
+    }
+
+    private void endFrame(Stripe stripe, int frame, long recordSeq) {
+        ByteBuffer pending = stripe.pending;
+        int end = pending.position();
+        stripe.crc.reset();
+        stripe.crc.update(pending.duplicate().position(frame + FRAME_HEADER).limit(end));
+        pending.putInt(frame, end - frame - FRAME_HEADER);
+        pending.putInt(frame + 4, (int) stripe.crc.getValue());
+
+        // The snapshot needs every stripe, and this thread holds one, so it
+        // is cut on the I/O thread.
+        if (recordSeq - snapshotSeq >= snapshotInterval && snapshotRunning.compareAndSet(false, true))
+            io.execute(this::snapshot);
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer) {
+        ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+        buffer.flip();
+        return larger.put(buffer);
+    }
+
+    // Runs on the I/O thread. Copies the live state with every stripe held,
+    // marks where each stripe's buffer crosses into the next segment, then
+    // writes the snapshot with the stripes free again. Ingredients are
+    // immutable, so copying references is enough for a consistent snapshot.
+    private void snapshot() {
+        long cutSeq;
+        List<Long> cutIds = new ArrayList<>();
+        List<Ingredient> cutItems = new ArrayList<>();
+        Map<Long, List<Lot>> cutLots = new HashMap<>();
+        lockAll();
+        try {
+            cutSeq = seq.get();
+            for (Stripe stripe : stripes) {
+                for (Map.Entry<Long, Ingredient> entry : stripe.live.entrySet()) {
+                    cutIds.add(entry.getKey());
+                    cutItems.add(entry.getValue());
+                }
+                cutLots.putAll(stripe.lotsById);
+                stripe.rotateAt = stripe.pending.position();
+            }
+            rotateSeq = cutSeq;
+            snapshotSeq = cutSeq;
+        } finally {
+            unlockAll();
+        }
+
+        try {
+            flush();
+            long[] ids = new long[cutIds.size()];
+            for (int i = 0; i < ids.length; i++) ids[i] = cutIds.get(i);
+            writeSnapshot(cutSeq, cutSeq + 1, ids, cutItems.toArray(new Ingredient[0]), cutLots);
+            for (Path segment : segments().headMap(cutSeq, true).values())
+                Files.deleteIfExists(segment);
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            snapshotRunning.set(false);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    // Swaps every stripe's buffer for its spare in one pass with all the
+    // stripes held, so a rotation splits all of them at the same cut.
+    private void flush() throws IOException {
+        ByteBuffer[] out = new ByteBuffer[STRIPES];
+        int[] boundary = new int[STRIPES];
+        long rotation;
+        boolean empty = true;
+        lockAll();
+        try {
+            rotation = rotateSeq;
+            rotateSeq = -1;
+            for (int i = 0; i < STRIPES; i++) {
+                Stripe stripe = stripes[i];
+                boundary[i] = stripe.rotateAt;
+                stripe.rotateAt = -1;
+                out[i] = stripe.pending;
+                empty &= out[i].position() == 0;
+                stripe.spare.clear();
+                stripe.pending = stripe.spare;
+                stripe.spare = null;
+            }
+        } finally {
+            unlockAll();
+        }
+        try {
+            if (empty && rotation < 0) return;
+            for (ByteBuffer buffer : out) buffer.flip();
+            if (rotation >= 0) {
+                for (int i = 0; i < STRIPES; i++) writeFully(journal, out[i].duplicate().limit(boundary[i]));
+                journal.force(false);
+                journal.close();
+                journal = FileChannel.open(segmentPath(rotation + 1), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                for (int i = 0; i < STRIPES; i++) out[i].position(boundary[i]);
+            }
+            for (ByteBuffer buffer : out) writeFully(journal, buffer);
+            journal.force(false);
+        } finally {
+            for (int i = 0; i < STRIPES; i++) {
+                Stripe stripe = stripes[i];
+                stripe.lock.lock();
+                try {
+                    // A buffer that grew is kept at that size, up to a limit,
+                    // so a busy stripe does not grow it again every flush.
+                    stripe.spare = out[i].capacity() <= BUFFER_SIZE ? out[i] : ByteBuffer.allocate(STRIPE_BUFFER_SIZE);
+                } finally {
+                    stripe.lock.unlock();
+                }
+            }
+        }
+    }
+
+    private void writeSnapshot(long snapshotSeq, long snapshotNextId, long[] snapshotIds, Ingredient[] items,
+                               Map<Long, List<Lot>> lots) throws IOException {
+        Path tmp = dir.resolve(SNAPSHOT_FILE + ".tmp");
+        CRC32 checksum = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            buffer.putInt(SNAPSHOT_MAGIC).putInt(FORMAT_VERSION).putLong(snapshotSeq).putLong(snapshotNextId).putInt(items.length);
+            for (int i = 0; i < items.length; i++) {
+                if (buffer.remaining() < 8 + IngredientCodec.MAX_RECORD_BYTES)
+                    drain(out, buffer, checksum);
+                buffer.putLong(snapshotIds[i]);
+                IngredientCodec.write(buffer, items[i]);
+            }
+            buffer.putInt(lots.size());
+            for (Map.Entry<Long, List<Lot>> entry : lots.entrySet()) {
+                if (buffer.remaining() < 8 + IngredientCodec.lotsBytes(entry.getValue()))
+                    drain(out, buffer, checksum);
+                buffer.putLong(entry.getKey());
+                IngredientCodec.writeLots(buffer, entry.getValue());
+            }
+            drain(out, buffer, checksum);
+            buffer.putInt((int) checksum.getValue()).flip();
+            writeFully(out, buffer);
+            out.force(true);
+        }
+        Files.move(tmp, dir.resolve(SNAPSHOT_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void drain(FileChannel out, ByteBuffer buffer, CRC32 checksum) throws IOException {
+        buffer.flip();
+        checksum.update(buffer.duplicate());
+        writeFully(out, buffer);
+        buffer.clear();
+    }
+
+    // Reads the snapshot and replays the segments after it, then splits
+    // what was read into the stripes; returns the last segment, or null if
+    // there is none. Only repair truncates a torn tail.
+    private Path read(boolean repair) throws IOException {
+        long cutSeq = readSnapshot();
+        Path last = null;
+        for (Path segment : segments().values()) {
+            replay(segment, cutSeq, repair);
+            last = segment;
+        }
+        // Journals from before ids were sequence numbers kept a separate
+        // counter, which never ran ahead of the sequence; this makes sure.
+        seq.accumulateAndGet(nextId - 1, Math::max);
+        snapshotSeq = seq.get();
+        for (Map.Entry<Long, Ingredient> entry : live.entrySet()) {
+            Stripe stripe = stripe(entry.getValue().getSku());
+            stripe.ids.put(entry.getValue(), entry.getKey());
+            stripe.live.put(entry.getKey(), entry.getValue());
+            List<Lot> lots = lotsById.get(entry.getKey());
+            if (lots != null) stripe.lotsById.put(entry.getKey(), lots);
+        }
+        live.clear();
+        lotsById.clear();
+        return last;
+    }
+
+    private long readSnapshot() throws IOException {
+        Path path = dir.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(path)) return 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The header alone is 28 bytes and the checksum 4; anything
+            // shorter cannot be measured against either.
+            if (channel.size() < 32) throw new IOException("Corrupt inventory snapshot: " + path);
+            ByteBuffer data = readFully(channel, path);
+            int bodyEnd = data.limit() - 4;
+            CRC32 checksum = new CRC32();
+            checksum.update(data.duplicate().limit(bodyEnd));
+            if (data.getInt(0) != SNAPSHOT_MAGIC || data.getInt(bodyEnd) != (int) checksum.getValue())
+                throw new IOException("Corrupt inventory snapshot: " + path);
+            int version = data.getInt(4);
+            if (version < 1 || version > FORMAT_VERSION)
+                throw new IOException("Unsupported inventory snapshot version " + version);
+
+            data.position(8);
+            long cutSeq = data.getLong();
+            seq.set(cutSeq);
+            nextId = data.getLong();
+            int count = data.getInt();
+            for (int i = 0; i < count; i++) {
+                long id = data.getLong();
+                live.put(id, IngredientCodec.read(data));
+            }
+            int lotEntries = version >= 2 ? data.getInt() : 0;
+            for (int i = 0; i < lotEntries; i++) {
+                long id = data.getLong();
+                lotsById.put(id, IngredientCodec.readLots(data));
+            }
+            return cutSeq;
+        }
+    }
+
+    private void replay(Path segment, long cutSeq, boolean repair) throws IOException {
+        try (FileChannel channel = repair ? FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer data = readFully(channel, segment);
+            CRC32 checksum = new CRC32();
+            int valid = 0;
+            while (data.limit() - valid >= FRAME_HEADER) {
+                int length = data.getInt(valid);
+                int payload = valid + FRAME_HEADER;
+                if (length <= 0 || length > data.limit() - payload) break;
+                checksum.reset();
+                checksum.update(data.duplicate().position(payload).limit(payload + length));
+                if (data.getInt(valid + 4) != (int) checksum.getValue()) break;
+
+                data.position(payload);
+                byte op = data.get();
+                long recordSeq = data.getLong();
+                long id = data.getLong();
+                if (recordSeq > cutSeq) {
+                    if (op == OP_ADD) {
+                        live.put(id, IngredientCodec.read(data));
+                        nextId = Math.max(nextId, id + 1);
+                    } else if (op == OP_REMOVE) {
+                        live.remove(id);
+                        lotsById.remove(id);
+                    } else if (op == OP_LOTS) {
+                        lotsById.put(id, IngredientCodec.readLots(data));
+                    }
+                    // Stripes interleave, so records are not in sequence.
+                    seq.accumulateAndGet(recordSeq, Math::max);
+                }
+                valid = payload + length;
+            }
+            if (repair && valid < channel.size())
+                channel.truncate(valid);
+        }
+    }
+
+    private TreeMap<Long, Path> segments() {
+        TreeMap<Long, Path> segments = new TreeMap<>();
+        if (!Files.isDirectory(dir)) return segments;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                segments.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())), file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return segments;
+    }
+
+    private Path segmentPath(long firstSeq) {
+        return dir.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSeq, SEGMENT_SUFFIX));
+    }
+
+    // A direct buffer, so the channel reads straight into it.
+    private static ByteBuffer readFully(FileChannel channel, Path path) throws IOException {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) throw new IOException("Too large to read: " + path);
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) size);
+        while (buffer.hasRemaining())
+            if (channel.read(buffer, buffer.position()) < 0) throw new IOException("File shrank while reading: " + path);
+        return buffer.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+}
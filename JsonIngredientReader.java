@@ -0,0 +1,30 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Map;
+
+// Streams a JSON array of flat objects with the fields name, category,
+// quantity, expirationDate and price. Only one object is held at a time, so
+// arbitrarily large files can be read. Unknown fields are ignored.
+class JsonIngredientReader implements IngredientReader {
+    private final JsonObjectReader objects;
+
+    public JsonIngredientReader(Reader reader) {
+        this.objects = new JsonObjectReader(reader);
+    }
+
+    public Ingredient next() throws IOException {
+        Map<String, String> fields = objects.next();
+        if (fields == null) return null;
+        String expirationDate = fields.containsKey("expirationDate") ? fields.get("expirationDate") : fields.get("expiration_date");
+        return IngredientReader.toIngredient(fields.get("name"), fields.get("category"), fields.get("quantity"),
+                expirationDate, fields.get("price"));
+    }
+
+    public long position() {
+        return objects.position();
+    }
+
+    public void close() throws IOException {
+        objects.close();
+    }
+}
@@ -0,0 +1,61 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+class JsonIngredientWriter implements IngredientWriter {
+    private final Writer writer;
+    private boolean first = true;
+
+    public JsonIngredientWriter(Writer writer) throws IOException {
+        this.writer = writer instanceof BufferedWriter ? writer : new BufferedWriter(writer, 1 << 16);
+        this.writer.write('[');
+    }
+
+    public void write(Ingredient ingredient) throws IOException {
+        writer.write(first ? "\n" : ",\n");
+        first = false;
+        writer.write("{\"name\":");
+        writeString(ingredient.getName());
+        writer.write(",\"category\":");
+        writeString(ingredient.getCategory());
+        writer.write(",\"quantity\":");
+        writer.write(Integer.toString(ingredient.getQuantity()));
+        writer.write(",\"expirationDate\":\"");
+        writer.write(ingredient.getExpirationDate().toString());
+        writer.write("\",\"price\":");
+        writer.write(IngredientWriter.formatCents(ingredient.getPriceCents()));
+        writer.write('}');
+    }
+
+    public void close() throws IOException {
+        writer.write("\n]\n");
+        writer.close();
+    }
+
+    // Copies runs of plain characters in one write; per-character writes to
+    // a BufferedWriter take its lock every time.
+    static void writeString(Writer writer, String value) throws IOException {
+        writer.write('"');
+        int run = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') continue;
+            writer.write(value, run, i - run);
+            run = i + 1;
+            switch (c) {
+                case '"' -> writer.write("\\\"");
+                case '\\' -> writer.write("\\\\");
+                case '\n' -> writer.write("\\n");
+                case '\r' -> writer.write("\\r");
+                case '\t' -> writer.write("\\t");
+                default -> writer.write(String.format("\\u%04x", (int) c));
+            }
+        }
+        writer.write(value, run, value.length() - run);
+        writer.write('"');
+    }
+
+    private void writeString(String value) throws IOException {
+        writeString(writer, value);
+    }
+}
@@ -0,0 +1,156 @@
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+
+// Streams a JSON array of flat objects, or a single flat object, one object at
+// a time. Values come back as text: strings unescaped, numbers and literals
+// as written, null as null. Nested values are rejected.
+class JsonObjectReader implements Closeable {
+    private final Reader reader;
+    private final StringBuilder token = new StringBuilder();
+    private int peeked = -2;
+    private long objects;
+    private boolean started;
+    private boolean single;
+    private boolean finished;
+
+    public JsonObjectReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader ? reader : new BufferedReader(reader, 1 << 16);
+    }
+
+    public Map<String, String> next() throws IOException {
+        if (finished) return null;
+        if (!started) {
+            started = true;
+            int c = peekToken();
+            if (c == '{') {
+                single = true;
+            } else {
+                expect('[');
+                if (peekToken() == ']') {
+                    read();
+                    finished = true;
+                    return null;
+                }
+            }
+        } else if (single) {
+            if (peekToken() >= 0) throw syntax("unexpected data after the object");
+            finished = true;
+            return null;
+        } else {
+            int c = readToken();
+            if (c == ']') {
+                finished = true;
+                return null;
+            }
+            if (c != ',') throw syntax("expected ',' or ']'");
+        }
+
+        objects++;
+        Map<String, String> fields = new HashMap<>();
+        expect('{');
+        if (peekToken() == '}') {
+            read();
+            return fields;
+        }
+        while (true) {
+            if (readToken() != '"') throw syntax("expected a field name");
+            String key = readString();
+            expect(':');
+            fields.put(key, readValue());
+            int c = readToken();
+            if (c == '}') return fields;
+            if (c != ',') throw syntax("expected ',' or '}'");
+        }
+    }
+
+    // Number of the object returned last, counting from 1.
+    public long position() {
+        return objects;
+    }
+
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String readValue() throws IOException {
+        int c = readToken();
+        if (c == '"') return readString();
+        if (c == '{' || c == '[') throw syntax("nested values are not supported");
+        token.setLength(0);
+        token.append((char) c);
+        while (true) {
+            int next = peek();
+            if (next < 0 || next == ',' || next == '}' || next == ']' || Character.isWhitespace(next)) break;
+            token.append((char) read());
+        }
+        String literal = token.toString();
+        return literal.equals("null") ? null : literal;
+    }
+
+    private String readString() throws IOException {
+        token.setLength(0);
+        while (true) {
+            int c = read();
+            if (c < 0) throw syntax("unterminated string");
+            if (c == '"') return token.toString();
+            if (c != '\\') {
+                token.append((char) c);
+                continue;
+            }
+            int escape = read();
+            switch (escape) {
+                case 'n' -> token.append('\n');
+                case 't' -> token.append('\t');
+                case 'r' -> token.append('\r');
+                case 'b' -> token.append('\b');
+                case 'f' -> token.append('\f');
+                case 'u' -> {
+                    char[] hex = new char[4];
+                    for (int i = 0; i < 4; i++) hex[i] = (char) read();
+                    try {
+                        token.append((char) Integer.parseInt(new String(hex), 16));
+                    } catch (NumberFormatException e) {
+                        throw syntax("invalid unicode escape");
+                    }
+                }
+                case -1 -> throw syntax("unterminated string");
+                default -> token.append((char) escape);
+            }
+        }
+    }
+
+    private void expect(char expected) throws IOException {
+        if (readToken() != expected) throw syntax("expected '" + expected + "'");
+    }
+
+    private int peekToken() throws IOException {
+        while (peek() >= 0 && Character.isWhitespace(peek())) read();
+        return peek();
+    }
+
+    private int readToken() throws IOException {
+        peekToken();
+        return read();
+    }
+
+    private int peek() throws IOException {
+        if (peeked == -2) peeked = reader.read();
+        return peeked;
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        peeked = -2;
+        return c;
+    }
+
+    // Structural errors cannot be skipped like a bad field value, so they end the stream.
+    private IOException syntax(String message) {
+        finished = true;
+        return new IOException("Malformed JSON near object " + objects + ": " + message);
+    }
+}
@@ -0,0 +1,39 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+
+class JsonReportWriter implements ReportWriter {
+    private final Writer writer;
+    private final String[] columns;
+    private boolean first = true;
+
+    public JsonReportWriter(Writer writer, String... columns) throws IOException {
+        this.writer = writer instanceof BufferedWriter ? writer : new BufferedWriter(writer, 1 << 16);
+        this.columns = columns;
+        this.writer.write('[');
+    }
+
+    public void row(Object... values) throws IOException {
+        if (values.length != columns.length)
+            throw new IllegalArgumentException("Expected " + columns.length + " values, got " + values.length);
+        writer.write(first ? "\n{" : ",\n{");
+        first = false;
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) writer.write(',');
+            JsonIngredientWriter.writeString(writer, columns[i]);
+            writer.write(':');
+            Object value = values[i];
+            if (value instanceof BigDecimal decimal) writer.write(decimal.toPlainString());
+            else if (value instanceof Number) writer.write(value.toString());
+            else if (value == null) writer.write("null");
+            else JsonIngredientWriter.writeString(writer, value.toString());
+        }
+        writer.write('}');
+    }
+
+    public void close() throws IOException {
+        writer.write("\n]\n");
+        writer.close();
+    }
+}
@@ -0,0 +1,92 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Lock-free latency histogram with log-linear buckets: 16 per power of two,
+// so a value is placed within about 6% of its size anywhere from
+// nanoseconds to days, in under a thousand counters. record() is a few
+// atomic increments and never blocks, which makes it cheap enough for the
+// paint path.
+//
+// Snapshots are copies. Subtracting an earlier snapshot from a later one
+// gives the distribution of just the values recorded in between, which is
+// how per-interval percentiles are taken without ever resetting the counts.
+class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB = 1 << SUB_BITS;
+    static final int BUCKETS = (63 - SUB_BITS + 1) * SUB;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(index(nanos));
+        sum.add(nanos);
+        long seen = max.get();
+        while (nanos > seen && !max.compareAndSet(seen, nanos)) seen = max.get();
+    }
+
+    static int index(long value) {
+        if (value < SUB) return (int) value;
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        return (msb - SUB_BITS + 1) * SUB + (int) ((value >>> (msb - SUB_BITS)) & (SUB - 1));
+    }
+
+    static long lowerBound(int index) {
+        if (index < SUB) return index;
+        int msb = index / SUB + SUB_BITS - 1;
+        return (1L << msb) + ((long) (index % SUB) << (msb - SUB_BITS));
+    }
+
+    static long upperBound(int index) {
+        return index + 1 < BUCKETS ? lowerBound(index + 1) - 1 : Long.MAX_VALUE;
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) count += copy[i] = counts.get(i);
+        return new Snapshot(copy, count, sum.sum(), max.get());
+    }
+
+    // maxNanos is exact for a snapshot and the top of the highest occupied
+    // bucket for a difference.
+    record Snapshot(long[] counts, long count, long sumNanos, long maxNanos) {
+        static final Snapshot EMPTY = new Snapshot(new long[BUCKETS], 0, 0, 0);
+
+        Snapshot minus(Snapshot earlier) {
+            long[] diff = new long[BUCKETS];
+            long count = 0;
+            int highest = -1;
+            for (int i = 0; i < BUCKETS; i++) {
+                diff[i] = counts[i] - earlier.counts[i];
+                count += diff[i];
+                if (diff[i] > 0) highest = i;
+            }
+            long top = highest < 0 ? 0 : Math.min(maxNanos, upperBound(highest));
+            return new Snapshot(diff, count, sumNanos - earlier.sumNanos, top);
+        }
+
+        double meanNanos() {
+            return count == 0 ? 0 : (double) sumNanos / count;
+        }
+
+        // The middle of the bucket holding the value at this fraction of the
+        // count, e.g. 0.99 for p99; 0 when nothing was recorded.
+        long percentileNanos(double fraction) {
+            if (count == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(fraction * count));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    long low = lowerBound(i);
+                    return Math.min(maxNanos, low + (upperBound(i) - low) / 2);
+                }
+            }
+            return maxNanos;
+        }
+    }
+}
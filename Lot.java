@@ -0,0 +1,8 @@
+import java.time.LocalDate;
+
+// One delivery of a SKU: how much of it is left and when it expires.
+record Lot(int expiryEpochDay, int quantity) {
+    LocalDate expirationDate() {
+        return LocalDate.ofEpochDay(expiryEpochDay);
+    }
+}
@@ -0,0 +1,98 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+// The lots of one SKU in a min-heap by expiry, so stock is taken first
+// expiry, first out: each lot used up costs O(log lots) and a partial take
+// only shrinks the head. Stock received for a date that already has a lot
+// joins it, so there is one lot per date.
+//
+// Not thread-safe; InventoryService guards each queue with its SKU's stripe.
+final class LotQueue {
+    private final PriorityQueue<Entry> heap = new PriorityQueue<>((a, b) -> Integer.compare(a.day, b.day));
+    private final Map<Integer, Entry> byDay = new HashMap<>();
+    private long quantity;
+
+    private static final class Entry {
+        final int day;
+        int quantity;
+
+        Entry(int day) {
+            this.day = day;
+        }
+    }
+
+    // The ingredient's stock as a single lot.
+    LotQueue(Ingredient ingredient) {
+        add(ingredient.getExpiryEpochDay(), ingredient.getQuantity());
+    }
+
+    LotQueue(List<Lot> lots) {
+        for (Lot lot : lots) add(lot.expiryEpochDay(), lot.quantity());
+    }
+
+    long quantity() {
+        return quantity;
+    }
+
+    int size() {
+        return heap.size();
+    }
+
+    boolean isEmpty() {
+        return heap.isEmpty();
+    }
+
+    int earliestExpiryDay() {
+        return heap.element().day;
+    }
+
+    void add(int expiryEpochDay, int amount) {
+        if (amount <= 0) return;
+        Entry entry = byDay.get(expiryEpochDay);
+        if (entry == null) {
+            entry = new Entry(expiryEpochDay);
+            byDay.put(expiryEpochDay, entry);
+            heap.add(entry);
+        }
+        entry.quantity += amount;
+        quantity += amount;
+    }
+
+    // Stock without a date of its own, such as a count correction, joins
+    // the lot that expires first.
+    void addToEarliest(int amount, int fallbackDay) {
+        add(heap.isEmpty() ? fallbackDay : heap.element().day, amount);
+    }
+
+    // Takes amount first expiry, first out and returns what was taken from
+    // which lots. The caller checks that enough is on hand.
+    List<Lot> take(int amount) {
+        if (amount > quantity) throw new IllegalStateException("Only " + quantity + " on hand, " + amount + " requested.");
+        List<Lot> taken = new ArrayList<>(2);
+        int remaining = amount;
+        while (remaining > 0) {
+            Entry head = heap.element();
+            int used = Math.min(remaining, head.quantity);
+            taken.add(new Lot(head.day, used));
+            head.quantity -= used;
+            if (head.quantity == 0) {
+                heap.remove();
+                byDay.remove(head.day);
+            }
+            remaining -= used;
+        }
+        quantity -= amount;
+        return taken;
+    }
+
+    // The lots in expiry order.
+    List<Lot> lots() {
+        List<Lot> lots = new ArrayList<>(heap.size());
+        for (Entry entry : heap) lots.add(new Lot(entry.day, entry.quantity));
+        lots.sort((a, b) -> Integer.compare(a.expiryEpochDay(), b.expiryEpochDay()));
+        return List.copyOf(lots);
+    }
+}
@@ -0,0 +1,102 @@
+import javax.swing.*;
+import javax.swing.table.TableRowSorter;
+import java.awt.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Non-modal window listing the low-stock set. It subscribes to the index
+// while open, so it stays current without rescanning the inventory.
+class LowStockDialog extends JDialog implements LowStockListener {
+    private final LowStockIndex index;
+    private final List<Ingredient> rows = new ArrayList<>();
+    private final IngredientTableModel model = new IngredientTableModel(rows);
+    private final JLabel summary = new JLabel();
+    private final Map<String, Ingredient> pending = new LinkedHashMap<>();
+
+    public LowStockDialog(Frame owner, LowStockIndex index) {
+        super(owner, "Low Stock", false);
+        this.index = index;
+
+        JTable table = new JTable(model);
+        table.setRowSorter(new TableRowSorter<>(model));
+        table.setDefaultRenderer(LocalDate.class, new DateCellRenderer());
+        table.setDefaultRenderer(Long.class, new PriceCellRenderer());
+        table.setRowHeight(25);
+        summary.setBorder(BorderFactory.createEmptyBorder(6, 10, 6, 10));
+
+        add(summary, BorderLayout.NORTH);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        setSize(650, 350);
+        setLocationRelativeTo(owner);
+    }
+
+    public void open() {
+        if (!isVisible()) {
+            index.addLowStockListener(this);
+            model.addIngredients(index.snapshot());
+            updateSummary();
+        }
+        setVisible(true);
+        toFront();
+    }
+
+    public void dispose() {
+        index.removeLowStockListener(this);
+        rows.clear();
+        model.fireTableDataChanged();
+        super.dispose();
+    }
+
+    public void ingredientLow(Ingredient ingredient, int threshold) {
+        enqueue(ingredient.getSku(), ingredient);
+    }
+
+    public void ingredientNoLongerLow(Ingredient ingredient) {
+        enqueue(ingredient.getSku(), null);
+    }
+
+    public void lowIngredientChanged(Ingredient ingredient) {
+        enqueue(ingredient.getSku(), ingredient);
+    }
+
+    // Only the latest state of each SKU matters, so events are folded into
+    // one pending entry per SKU and applied by a single drain on the EDT.
+    private void enqueue(String sku, Ingredient low) {
+        boolean schedule;
+        synchronized (pending) {
+            schedule = pending.isEmpty();
+            pending.put(sku, low);
+        }
+        if (schedule) SwingUtilities.invokeLater(this::drain);
+    }
+
+    private void drain() {
+        List<Map.Entry<String, Ingredient>> changes;
+        synchronized (pending) {
+            changes = new ArrayList<>(pending.entrySet());
+            pending.clear();
+        }
+        if (!isDisplayable()) return;
+        List<Ingredient> added = new ArrayList<>();
+        for (Map.Entry<String, Ingredient> change : changes) {
+            int row = model.indexOfSku(change.getKey());
+            if (change.getValue() == null) {
+                if (row >= 0) model.removeIngredient(row);
+            } else if (row >= 0) {
+                model.updateIngredient(row, change.getValue());
+            } else {
+                added.add(change.getValue());
+            }
+        }
+        model.addIngredients(added);
+        updateSummary();
+    }
+
+    private void updateSummary() {
+        summary.setText(rows.isEmpty() ? "No low stock items!" : rows.size() + " items at or below their reorder threshold");
+    }
+}
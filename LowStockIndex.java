@@ -0,0 +1,146 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Set of ingredients at or below their reorder threshold, kept current in
+// O(1) per mutation. Thresholds resolve per SKU, then per category, then to
+// the default.
+//
+// The set is a concurrent map by SKU and takes no lock of its own: the
+// service delivers the events for one SKU in order, and the thresholds are
+// fixed once loaded.
+class LowStockIndex implements InventoryListener {
+    static final int DEFAULT_THRESHOLD = 10;
+
+    private final Map<String, Integer> skuThresholds = new HashMap<>();
+    private final Map<String, Integer> categoryThresholds = new HashMap<>();
+    private final int defaultThreshold;
+    private final Map<String, Ingredient> low = new ConcurrentHashMap<>();
+    private final List<LowStockListener> listeners = new CopyOnWriteArrayList<>();
+    private final List<String> warnings = new ArrayList<>();
+
+    public LowStockIndex(int defaultThreshold) {
+        this.defaultThreshold = defaultThreshold;
+    }
+
+    // Reads "default=N", "category.<Category>=N" and "sku.<category>/<name>=N".
+    // This is a properties file, so spaces in a key must be escaped:
+    // "category.Dry\ Goods=20". An entry whose value is not a number, such
+    // as "category.Dry Goods=20" read as "category.Dry" = "Goods=20", is
+    // skipped and listed in getWarnings().
+    public static LowStockIndex fromProperties(Properties properties) {
+        List<String> warnings = new ArrayList<>();
+        Integer fallback = threshold(properties, "default", warnings);
+        LowStockIndex index = new LowStockIndex(fallback != null ? fallback : DEFAULT_THRESHOLD);
+        index.warnings.addAll(warnings);
+        for (String key : properties.stringPropertyNames()) {
+            Map<String, Integer> thresholds;
+            String name;
+            if (key.startsWith("category.")) {
+                thresholds = index.categoryThresholds;
+                name = key.substring("category.".length());
+            } else if (key.startsWith("sku.")) {
+                thresholds = index.skuThresholds;
+                name = key.substring("sku.".length());
+            } else {
+                continue;
+            }
+            Integer threshold = threshold(properties, key, index.warnings);
+            if (threshold != null) thresholds.put(name.toLowerCase(Locale.ROOT), threshold);
+        }
+        return index;
+    }
+
+    private static Integer threshold(Properties properties, String key, List<String> warnings) {
+        String value = properties.getProperty(key);
+        if (value == null) return null;
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            warnings.add("Skipped \"" + key + "=" + value + "\": not a whole number"
+                    + (value.contains("=") ? " (escape spaces in the key with a backslash)" : ""));
+            return null;
+        }
+    }
+
+    // Reads the thresholds file in the data directory; defaults if there is none.
+    public static LowStockIndex load(Path dataDir) throws IOException {
+        Path thresholds = dataDir.resolve("lowstock.properties");
+        if (!Files.exists(thresholds))
+            return new LowStockIndex(DEFAULT_THRESHOLD);
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(thresholds)) {
+            properties.load(reader);
+        }
+        return fromProperties(properties);
+    }
+
+    // The entries fromProperties() could not read; the rest still apply.
+    public List<String> getWarnings() {
+        return List.copyOf(warnings);
+    }
+
+    public void addLowStockListener(LowStockListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeLowStockListener(LowStockListener listener) {
+        listeners.remove(listener);
+    }
+
+    public int thresholdFor(Ingredient ingredient) {
+        Integer threshold = skuThresholds.get(ingredient.getSku());
+        if (threshold == null)
+            threshold = categoryThresholds.get(ingredient.getCategory().toLowerCase(Locale.ROOT));
+        return threshold != null ? threshold : defaultThreshold;
+    }
+
+    public void ingredientAdded(Ingredient ingredient) {
+        int threshold = thresholdFor(ingredient);
+        if (ingredient.getQuantity() <= threshold && low.putIfAbsent(ingredient.getSku(), ingredient) == null)
+            for (LowStockListener listener : listeners)
+                listener.ingredientLow(ingredient, threshold);
+    }
+
+    public void ingredientRemoved(Ingredient ingredient) {
+        if (low.remove(ingredient.getSku(), ingredient))
+            for (LowStockListener listener : listeners)
+                listener.ingredientNoLongerLow(ingredient);
+    }
+
+    // Replaces a low item in place when it stays low, so listeners only hear
+    // of a crossing when one happened. A new SKU is a removal and an add.
+    public void ingredientUpdated(Ingredient old, Ingredient updated) {
+        String sku = old.getSku();
+        if (!sku.equals(updated.getSku())) {
+            ingredientRemoved(old);
+            ingredientAdded(updated);
+        } else if (low.get(sku) != old) {
+            ingredientAdded(updated);
+        } else if (updated.getQuantity() > thresholdFor(updated)) {
+            ingredientRemoved(old);
+        } else {
+            low.put(sku, updated);
+            for (LowStockListener listener : listeners)
+                listener.lowIngredientChanged(updated);
+        }
+    }
+
+    public int count() {
+        return low.size();
+    }
+
+    // In no particular order.
+    public List<Ingredient> snapshot() {
+        return new ArrayList<>(low.values());
+    }
+}
@@ -0,0 +1,12 @@
+interface LowStockListener {
+    void ingredientLow(Ingredient ingredient, int threshold);
+
+    // Called when a low ingredient leaves the low-stock set, either because
+    // it was restocked or because it was removed from the inventory.
+    void ingredientNoLongerLow(Ingredient ingredient);
+
+    // Called when an ingredient that was low moves and is still low, so a
+    // view can show its new quantity. No threshold was crossed.
+    default void lowIngredientChanged(Ingredient ingredient) {
+    }
+}
@@ -0,0 +1,44 @@
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency and error counts for one operation. Recording is lock-free;
+// roll() closes a reporting interval and is called by one thread only.
+class OperationMetrics implements OperationMetricsMBean {
+    private final String operation;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private LatencyHistogram.Snapshot rolled = LatencyHistogram.Snapshot.EMPTY;
+    private volatile LatencyHistogram.Snapshot recent = LatencyHistogram.Snapshot.EMPTY;
+
+    public OperationMetrics(String operation) {
+        this.operation = operation;
+    }
+
+    public void record(long nanos) {
+        latencies.record(nanos);
+    }
+
+    public void failed() {
+        errors.increment();
+    }
+
+    // Returns the values recorded since the previous call.
+    LatencyHistogram.Snapshot roll() {
+        LatencyHistogram.Snapshot now = latencies.snapshot();
+        recent = now.minus(rolled);
+        rolled = now;
+        return recent;
+    }
+
+    public String getOperation() { return operation; }
+    public long getCount() { return latencies.snapshot().count(); }
+    public long getErrors() { return errors.sum(); }
+    public double getMeanMillis() { return latencies.snapshot().meanNanos() / 1e6; }
+    public double getP50Millis() { return latencies.snapshot().percentileNanos(0.50) / 1e6; }
+    public double getP90Millis() { return latencies.snapshot().percentileNanos(0.90) / 1e6; }
+    public double getP99Millis() { return latencies.snapshot().percentileNanos(0.99) / 1e6; }
+    public double getMaxMillis() { return latencies.snapshot().maxNanos() / 1e6; }
+    public long getRecentCount() { return recent.count(); }
+    public double getRecentP50Millis() { return recent.percentileNanos(0.50) / 1e6; }
+    public double getRecentP99Millis() { return recent.percentileNanos(0.99) / 1e6; }
+    public double getRecentMaxMillis() { return recent.maxNanos() / 1e6; }
+}
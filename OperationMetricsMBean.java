@@ -0,0 +1,18 @@
+// JMX view of one instrumented operation, registered as
+// FoodInventory:type=Operation,name=<operation>. The plain attributes cover
+// everything since startup; the Recent ones cover the last completed
+// reporting interval, which is what shows a trend.
+public interface OperationMetricsMBean {
+    String getOperation();
+    long getCount();
+    long getErrors();
+    double getMeanMillis();
+    double getP50Millis();
+    double getP90Millis();
+    double getP99Millis();
+    double getMaxMillis();
+    long getRecentCount();
+    double getRecentP50Millis();
+    double getRecentP99Millis();
+    double getRecentMaxMillis();
+}
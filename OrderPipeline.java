@@ -0,0 +1,145 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// Deducts the ingredients of point-of-sale orders through the recipe book.
+// submit() blocks while the queue is full, so a fast reader is held back to
+// the pace the inventory can take instead of piling up work behind it. A
+// single applier thread takes whatever has queued up, at most MAX_BATCH
+// orders, sums the batch's ingredients per SKU and consumes them with one
+// InventoryService.consumeAll: each SKU is locked, journalled and shown once
+// per batch rather than once per order.
+//
+// A batch is all or nothing. If it cannot be filled, its orders are applied
+// one at a time and only those that cannot be filled are rejected, so the
+// outcome is the same as applying the orders in sequence.
+class OrderPipeline {
+    static final int DEFAULT_CAPACITY = 16_384;
+    static final int MAX_BATCH = 1_024;
+    private static final int MAX_REPORTED_ERRORS = 20;
+    private static final PosOrder END = new PosOrder(null, "", 1);
+
+    private final InventoryService service;
+    private final RecipeBook recipes;
+    private final BlockingQueue<PosOrder> queue;
+    private final Thread applier;
+    private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+    private volatile boolean closed;
+    private volatile RuntimeException failure;
+    private volatile long applied;
+    private volatile long rejected;
+    private volatile long unknown;
+    private volatile long batches;
+
+    public OrderPipeline(InventoryService service, RecipeBook recipes) {
+        this(service, recipes, DEFAULT_CAPACITY);
+    }
+
+    public OrderPipeline(InventoryService service, RecipeBook recipes, int capacity) {
+        this.service = service;
+        this.recipes = recipes;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        applier = new Thread(this::run, "order-pipeline");
+        applier.setDaemon(true);
+        applier.start();
+    }
+
+    // Blocks while the queue is full.
+    public void submit(PosOrder order) throws InterruptedException {
+        if (closed) throw new IllegalStateException("The order pipeline is closed.");
+        if (failure != null) throw new IllegalStateException("The order pipeline stopped: " + failure.getMessage(), failure);
+        queue.put(order);
+    }
+
+    // Waits until every order submitted so far has been applied.
+    public void close() throws InterruptedException {
+        if (closed) return;
+        closed = true;
+        queue.put(END);
+        applier.join();
+        if (failure != null) throw new IllegalStateException("The order pipeline stopped: " + failure.getMessage(), failure);
+    }
+
+    public long getApplied() { return applied; }
+    public long getRejected() { return rejected; }
+    public long getUnknown() { return unknown; }
+    public long getBatches() { return batches; }
+    public List<String> getErrors() { return errors; }
+
+    private void run() {
+        List<PosOrder> batch = new ArrayList<>(MAX_BATCH);
+        try {
+            boolean end = false;
+            while (!end) {
+                batch.add(queue.take());
+                queue.drainTo(batch, MAX_BATCH - 1);
+                end = batch.removeIf(order -> order == END);
+                // After a failure the queue is still drained, so producers
+                // blocked in submit() are released.
+                if (failure == null && !batch.isEmpty()) {
+                    try {
+                        apply(batch);
+                    } catch (RuntimeException e) {
+                        failure = e;
+                    }
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void apply(List<PosOrder> batch) {
+        List<PosOrder> known = new ArrayList<>(batch.size());
+        List<Recipe> used = new ArrayList<>(batch.size());
+        for (PosOrder order : batch) {
+            Recipe recipe = recipes.get(order.menuItem());
+            if (recipe == null) {
+                report(order, "no recipe for this item");
+                unknown++;
+                continue;
+            }
+            known.add(order);
+            used.add(recipe);
+        }
+        batches++;
+        if (known.isEmpty()) return;
+
+        Map<String, Integer> totals = new HashMap<>();
+        try {
+            for (int i = 0; i < known.size(); i++) expand(used.get(i), known.get(i).quantity(), totals);
+            service.consumeAll(totals);
+            applied += known.size();
+            return;
+        } catch (IllegalArgumentException | IllegalStateException | ArithmeticException e) {
+            // Some order cannot be filled; find out which, in order.
+        }
+        for (int i = 0; i < known.size(); i++) {
+            totals.clear();
+            try {
+                expand(used.get(i), known.get(i).quantity(), totals);
+                service.consumeAll(totals);
+                applied++;
+            } catch (IllegalArgumentException | IllegalStateException | ArithmeticException e) {
+                report(known.get(i), e.getMessage());
+                rejected++;
+            }
+        }
+    }
+
+    private static void expand(Recipe recipe, int servings, Map<String, Integer> totals) {
+        for (Map.Entry<String, Integer> line : recipe.ingredients().entrySet())
+            totals.merge(line.getKey(), Math.multiplyExact(line.getValue(), servings), Math::addExact);
+    }
+
+    private void report(PosOrder order, String message) {
+        if (rejected + unknown < MAX_REPORTED_ERRORS)
+            errors.add((order.orderId() != null ? "Order " + order.orderId() + ", " : "")
+                    + order.quantity() + " x " + order.menuItem() + ": " + message);
+    }
+}
@@ -0,0 +1,154 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Replays a file of POS orders against an in-memory inventory stocked for
+// the sample menu, first one consumeAll per order and then through
+// OrderPipeline, and reports orders per second for each. Afterwards it
+// checks that every SKU went down by exactly what the orders' recipes add
+// up to.
+//
+//   java OrderReplay [--file=orders.json] [--generate=1000000] [--indexes]
+//
+// Without --file it writes --generate random orders to a temporary file
+// first. --indexes attaches the indexes the GUI uses, to include their cost.
+final class OrderReplay {
+    private static final int INITIAL_QUANTITY = 1_000_000_000;
+
+    private OrderReplay() {}
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path file = null;
+        int generate = 1_000_000;
+        boolean indexes = false;
+        for (String arg : args) {
+            if (arg.startsWith("--file=")) file = Paths.get(arg.substring(7));
+            else if (arg.startsWith("--generate=")) generate = Integer.parseInt(arg.substring(11));
+            else if (arg.equals("--indexes")) indexes = true;
+            else throw new IllegalArgumentException("Unknown option: " + arg);
+        }
+        RecipeBook recipes = RecipeBook.defaults();
+        boolean temporary = file == null;
+        if (temporary) {
+            file = Files.createTempFile("orders", ".json");
+            generate(file, generate, recipes, 42);
+        }
+        try {
+            System.out.println(String.format("%,d orders, %d recipes%s", read(file).size(), recipes.size(), indexes ? ", with indexes" : ""));
+            System.out.println(String.format("%-12s %14s %10s %8s", "mode", "orders/s", "batches", "check"));
+            // The first round warms up the JIT.
+            for (int round = 0; round < 2; round++) {
+                report(round, "per order", perOrder(file, recipes, indexes));
+                report(round, "pipeline", pipelined(file, recipes, indexes));
+            }
+        } finally {
+            if (temporary) Files.deleteIfExists(file);
+        }
+    }
+
+    private record Result(long orders, long nanos, long batches, boolean consistent) {}
+
+    private static void report(int round, String mode, Result result) {
+        if (round == 0) return;
+        System.out.println(String.format("%-12s %,14.0f %,10d %8s", mode, result.orders() / (result.nanos() / 1e9),
+                result.batches(), result.consistent() ? "ok" : "FAILED"));
+    }
+
+    static void generate(Path file, int count, RecipeBook recipes, long seed) throws IOException {
+        List<String> items = new ArrayList<>();
+        for (Recipe recipe : recipes.recipes()) items.add(recipe.menuItem());
+        items.sort(null);
+        Random random = new Random(seed);
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("[\n");
+            for (int i = 0; i < count; i++) {
+                out.write(String.format("{\"order\": \"%d\", \"item\": \"%s\", \"quantity\": %d}%s\n", i / 3,
+                        items.get(random.nextInt(items.size())), 1 + random.nextInt(3), i + 1 < count ? "," : ""));
+            }
+            out.write("]\n");
+        }
+    }
+
+    private static List<PosOrder> read(Path file) throws IOException {
+        List<PosOrder> orders = new ArrayList<>();
+        try (JsonObjectReader reader = new JsonObjectReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+            Map<String, String> fields;
+            while ((fields = reader.next()) != null) orders.add(PosOrder.fromJson(fields));
+        }
+        return orders;
+    }
+
+    private static Result perOrder(Path file, RecipeBook recipes, boolean indexes) throws IOException {
+        InventoryService service = stocked(recipes, indexes);
+        long count = 0;
+        long start = System.nanoTime();
+        try (JsonObjectReader reader = new JsonObjectReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+            Map<String, String> fields;
+            while ((fields = reader.next()) != null) {
+                PosOrder order = PosOrder.fromJson(fields);
+                Map<String, Integer> needed = new HashMap<>();
+                for (Map.Entry<String, Integer> line : recipes.get(order.menuItem()).ingredients().entrySet())
+                    needed.put(line.getKey(), line.getValue() * order.quantity());
+                service.consumeAll(needed);
+                count++;
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        return new Result(count, nanos, count, consistent(service, read(file), recipes));
+    }
+
+    // Both modes include reading and parsing the file, as the GUI's replay does.
+    private static Result pipelined(Path file, RecipeBook recipes, boolean indexes) throws IOException, InterruptedException {
+        InventoryService service = stocked(recipes, indexes);
+        OrderPipeline pipeline = new OrderPipeline(service, recipes);
+        long start = System.nanoTime();
+        try (JsonObjectReader reader = new JsonObjectReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+            Map<String, String> fields;
+            while ((fields = reader.next()) != null) pipeline.submit(PosOrder.fromJson(fields));
+        }
+        pipeline.close();
+        long nanos = System.nanoTime() - start;
+        List<PosOrder> orders = read(file);
+        return new Result(pipeline.getApplied(), nanos, pipeline.getBatches(),
+                pipeline.getRejected() == 0 && consistent(service, orders, recipes));
+    }
+
+    private static InventoryService stocked(RecipeBook recipes, boolean indexes) {
+        InventoryService service = new InventoryService();
+        if (indexes) {
+            service.addInventoryListener(new LowStockIndex(LowStockIndex.DEFAULT_THRESHOLD));
+            service.addInventoryListener(new ExpiryIndex());
+            service.addInventoryListener(new SearchIndex());
+            service.addInventoryListener(new QueryIndex());
+            service.addInventoryListener(new InventoryAnalytics(7));
+        }
+        LocalDate expiry = LocalDate.now().plusMonths(1);
+        for (Recipe recipe : recipes.recipes()) {
+            for (String sku : recipe.ingredients().keySet()) {
+                if (service.get(sku) != null) continue;
+                String[] parts = sku.split("/", 2);
+                service.add(new Ingredient(parts[1], parts[0], INITIAL_QUANTITY, expiry, 1.0));
+            }
+        }
+        return service;
+    }
+
+    private static boolean consistent(InventoryService service, List<PosOrder> orders, RecipeBook recipes) {
+        Map<String, Long> used = new HashMap<>();
+        for (PosOrder order : orders)
+            for (Map.Entry<String, Integer> line : recipes.get(order.menuItem()).ingredients().entrySet())
+                used.merge(line.getKey(), (long) line.getValue() * order.quantity(), Long::sum);
+        for (Ingredient ingredient : service.snapshot())
+            if (ingredient.getQuantity() != INITIAL_QUANTITY - used.getOrDefault(ingredient.getSku(), 0L)) return false;
+        return true;
+    }
+}
@@ -0,0 +1,68 @@
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+// Replays a file of POS orders (a JSON array of PosOrder objects) through an
+// OrderPipeline on a background thread. The pipeline's bounded queue paces
+// the reader, and the table and low-stock window pick up the deductions
+// through their coalescing listeners. Progress is the fraction of the file
+// read (0-100); the result is the time taken in nanoseconds, including
+// waiting for the last batch.
+class OrderReplayWorker extends BackgroundTask<Long> {
+    static final int PROGRESS_INTERVAL = 10_000;
+    private static final int MAX_REPORTED_ERRORS = 20;
+
+    private final Path file;
+    private final OrderPipeline pipeline;
+    private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+    private volatile long read;
+    private volatile long invalid;
+
+    public OrderReplayWorker(Path file, InventoryService service, RecipeBook recipes) {
+        this.file = file;
+        this.pipeline = new OrderPipeline(service, recipes);
+    }
+
+    protected Long doInBackground() throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             JsonObjectReader reader = new JsonObjectReader(Channels.newReader(channel, StandardCharsets.UTF_8))) {
+            long size = Math.max(1, channel.size());
+            while (!isCancelled()) {
+                PosOrder order;
+                try {
+                    Map<String, String> fields = reader.next();
+                    if (fields == null) break;
+                    order = PosOrder.fromJson(fields);
+                } catch (IllegalArgumentException e) {
+                    if (invalid++ < MAX_REPORTED_ERRORS)
+                        errors.add("Order " + reader.position() + ": " + e.getMessage());
+                    continue;
+                }
+                pipeline.submit(order);
+                if (++read % PROGRESS_INTERVAL == 0)
+                    setProgress((int) Math.min(99, channel.position() * 100 / size));
+            }
+        } finally {
+            // Cancelling interrupts this thread. Orders already queued are
+            // still applied, so the counts match the inventory.
+            boolean interrupted = Thread.interrupted();
+            pipeline.close();
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+        return System.nanoTime() - start;
+    }
+
+    // Valid once the worker is done.
+    public long getRead() { return read; }
+    public long getInvalid() { return invalid; }
+    public List<String> getErrors() { return errors; }
+    public OrderPipeline getPipeline() { return pipeline; }
+}
@@ -0,0 +1,77 @@
+import java.util.ArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+// Takes a listener's events off the movement path. The service's thread
+// queues each event on one of several queues picked by SKU, under that
+// queue's own lock, so one SKU's events stay in order and threads moving
+// different SKUs rarely meet. The listener applies what is queued under its
+// own lock when it is next read, or when a queue fills up.
+//
+// An event is an (old, updated) pair: old is null for an addition and
+// updated null for a removal. A rename is queued as a removal under the old
+// SKU and an addition under the new one, since the two may sit on different
+// queues.
+final class PendingEvents {
+    private static final int QUEUES = 64;
+    // The thread that fills a queue this far applies everything queued.
+    private static final int DRAIN_AT = 512;
+
+    private final Queue[] queues = new Queue[QUEUES];
+
+    PendingEvents() {
+        for (int i = 0; i < QUEUES; i++) queues[i] = new Queue();
+    }
+
+    // Pairs are stored flat, old then updated. A drain swaps the list out
+    // and applies it without the queue's lock.
+    private static final class Queue {
+        final ReentrantLock lock = new ReentrantLock();
+        ArrayList<Ingredient> events = new ArrayList<>();
+    }
+
+    // Returns true when the caller should drain.
+    boolean added(Ingredient ingredient) {
+        return offer(ingredient.getSku(), null, ingredient);
+    }
+
+    boolean removed(Ingredient ingredient) {
+        return offer(ingredient.getSku(), ingredient, null);
+    }
+
+    boolean updated(Ingredient old, Ingredient updated) {
+        if (old.getSku().equals(updated.getSku())) return offer(old.getSku(), old, updated);
+        boolean full = offer(old.getSku(), old, null);
+        return offer(updated.getSku(), null, updated) || full;
+    }
+
+    // Applies every queued event, each queue in order. Called with the
+    // listener's lock held, so drains never overlap.
+    void drain(BiConsumer<Ingredient, Ingredient> apply) {
+        for (Queue queue : queues) {
+            ArrayList<Ingredient> events;
+            queue.lock.lock();
+            try {
+                events = queue.events;
+                if (events.isEmpty()) continue;
+                queue.events = new ArrayList<>(events.size());
+            } finally {
+                queue.lock.unlock();
+            }
+            for (int i = 0; i < events.size(); i += 2) apply.accept(events.get(i), events.get(i + 1));
+        }
+    }
+
+    private boolean offer(String sku, Ingredient old, Ingredient updated) {
+        int h = sku.hashCode();
+        Queue queue = queues[(h ^ (h >>> 16)) & (QUEUES - 1)];
+        queue.lock.lock();
+        try {
+            queue.events.add(old);
+            queue.events.add(updated);
+            return queue.events.size() >= 2 * DRAIN_AT;
+        } finally {
+            queue.lock.unlock();
+        }
+    }
+}
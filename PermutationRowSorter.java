@@ -0,0 +1,506 @@
+import javax.swing.RowFilter;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+// Row sorter for tables of a million rows. The sort order and the filtered
+// view are int arrays of model rows, each with its inverse, so converting an
+// index either way is an array read and the table only touches the rows it
+// paints. Model changes are applied in place instead of by re-sorting: an
+// edited row is moved by binary search, inserted rows are merged in and
+// deleted rows are cut out. Filter results are kept per row, so only the
+// rows that change are tested again.
+//
+// Sorting more than SYNC_LIMIT rows reads the sort columns on the EDT and
+// sorts them on the task scheduler; the previous order stays on screen, and
+// keeps following edits, until the new one is ready.
+class PermutationRowSorter extends RowSorter<IngredientTableModel> {
+    private static final int SYNC_LIMIT = 20_000;
+    // More inserted rows than this are sorted among themselves and merged.
+    private static final int MERGE_LIMIT = 64;
+    // More updated rows than this are treated as a change to every row.
+    private static final int UPDATE_LIMIT = 1024;
+    private static final int MAX_SORT_KEYS = 3;
+    private static final String SORT_TASK = "tableSort";
+    private static final SortEngine.Key[] COLUMN_KEYS = {SortEngine.Key.NAME, SortEngine.Key.CATEGORY,
+            SortEngine.Key.QUANTITY, SortEngine.Key.EXPIRY, SortEngine.Key.PRICE};
+
+    private final IngredientTableModel model;
+    private final TaskScheduler tasks;
+    private final FilterEntry entry = new FilterEntry();
+    private List<SortKey> sortKeys = List.of();
+    // What sorted is actually ordered by; behind sortKeys while a sort runs.
+    private List<SortEngine.Key> activeKeys = List.of();
+    private boolean[] activeDescending = new boolean[0];
+    private RowFilter<? super IngredientTableModel, ? super Integer> filter;
+    private int size;
+    private int[] sorted = new int[0];
+    private int[] sortedPos = new int[0];
+    // Filter result per model row; only kept while there is a filter.
+    private boolean[] included = new boolean[0];
+    // Without a filter these are sorted and sortedPos themselves.
+    private int[] view = sorted;
+    private int[] viewPos = sortedPos;
+    private int viewCount;
+    private BackgroundTask<int[]> pending;
+    private boolean insertedOrDeleted;
+    private final BitSet touched = new BitSet();
+
+    public PermutationRowSorter(IngredientTableModel model, TaskScheduler tasks) {
+        this.model = model;
+        this.tasks = tasks;
+        allRowsChanged();
+    }
+
+    public IngredientTableModel getModel() {
+        return model;
+    }
+
+    public List<? extends SortKey> getSortKeys() {
+        return sortKeys;
+    }
+
+    public void setSortKeys(List<? extends SortKey> keys) {
+        List<SortKey> requested = keys == null ? List.of() : List.copyOf(keys);
+        for (SortKey key : requested) checkColumn(key.getColumn());
+        if (requested.equals(sortKeys)) return;
+        sortKeys = requested;
+        fireSortOrderChanged();
+        List<SortEngine.Key> engineKeys = engineKeys();
+        boolean[] descending = descending();
+        cancelSort();
+        if (engineKeys.isEmpty() || size <= SYNC_LIMIT) {
+            int[] previous = Arrays.copyOf(view, viewCount);
+            install(order(engineKeys, descending), engineKeys, descending);
+            fireRowSorterChanged(previous);
+        } else {
+            startSort(engineKeys, descending);
+        }
+    }
+
+    // The ascending sort keys for an engine order.
+    private static List<SortKey> sortKeys(List<SortEngine.Key> keys) {
+        List<SortKey> columns = new ArrayList<>(keys.size());
+        for (SortEngine.Key key : keys)
+            columns.add(new SortKey(Arrays.asList(COLUMN_KEYS).indexOf(key), SortOrder.ASCENDING));
+        return columns;
+    }
+
+    // Shows an order sorted elsewhere by the ascending keys, such as the
+    // demo sort's, as the table's order. It has to be of the model as of
+    // modelVersion; if the model changed since, the keys are sorted here
+    // instead. Either way later edits are placed by the same keys.
+    void showOrder(List<SortEngine.Key> keys, int[] order, long modelVersion) {
+        List<SortKey> requested = sortKeys(keys);
+        if (model.getVersion() != modelVersion || order.length != size) {
+            setSortKeys(requested);
+            return;
+        }
+        cancelSort();
+        sortKeys = requested;
+        fireSortOrderChanged();
+        int[] previous = Arrays.copyOf(view, viewCount);
+        install(order, engineKeys(), descending());
+        fireRowSorterChanged(previous);
+    }
+
+    // Clicking a header makes its column the primary key, ascending, or
+    // reverses it if it already was.
+    public void toggleSortOrder(int column) {
+        checkColumn(column);
+        List<SortKey> keys = new ArrayList<>(sortKeys);
+        SortOrder order = SortOrder.ASCENDING;
+        for (int i = 0; i < keys.size(); i++) {
+            if (keys.get(i).getColumn() != column) continue;
+            if (i == 0 && keys.get(0).getSortOrder() == SortOrder.ASCENDING) order = SortOrder.DESCENDING;
+            keys.remove(i);
+            break;
+        }
+        keys.add(0, new SortKey(column, order));
+        setSortKeys(keys.size() > MAX_SORT_KEYS ? keys.subList(0, MAX_SORT_KEYS) : keys);
+    }
+
+    public RowFilter<? super IngredientTableModel, ? super Integer> getRowFilter() {
+        return filter;
+    }
+
+    public void setRowFilter(RowFilter<? super IngredientTableModel, ? super Integer> filter) {
+        int[] previous = Arrays.copyOf(view, viewCount);
+        this.filter = filter;
+        if (filter != null) {
+            if (included.length < sorted.length) included = new boolean[sorted.length];
+            for (int row = 0; row < size; row++) included[row] = test(row);
+        }
+        rebuildView();
+        fireRowSorterChanged(previous);
+    }
+
+    public int convertRowIndexToModel(int index) {
+        if (index < 0 || index >= viewCount) throw new IndexOutOfBoundsException("Invalid index " + index);
+        return view[index];
+    }
+
+    public int convertRowIndexToView(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Invalid index " + index);
+        return viewPos[index];
+    }
+
+    public int getViewRowCount() {
+        return viewCount;
+    }
+
+    public int getModelRowCount() {
+        return size;
+    }
+
+    public void modelStructureChanged() {
+        allRowsChanged();
+    }
+
+    public void allRowsChanged() {
+        cancelSort();
+        size = model.getRowCount();
+        included = new boolean[size];
+        if (filter != null)
+            for (int row = 0; row < size; row++) included[row] = test(row);
+        install(order(List.of(), null), List.of(), new boolean[0]);
+        resort();
+        fireRowSorterChanged(null);
+    }
+
+    public void rowsInserted(int firstRow, int endRow) {
+        if (firstRow < 0 || endRow < firstRow || firstRow > size || model.getRowCount() != size + endRow - firstRow + 1)
+            throw new IndexOutOfBoundsException("Invalid range");
+        int count = endRow - firstRow + 1;
+        int existing = size;
+        if (pending != null) insertedOrDeleted = true;
+        ensureCapacity(size + count);
+        if (firstRow < size) {
+            for (int i = 0; i < size; i++)
+                if (sorted[i] >= firstRow) sorted[i] += count;
+            if (filter != null) System.arraycopy(included, firstRow, included, endRow + 1, size - firstRow);
+        }
+        size += count;
+        if (filter != null)
+            for (int row = firstRow; row <= endRow; row++) included[row] = test(row);
+
+        if (activeKeys.isEmpty()) {
+            for (int i = firstRow; i < size; i++) sorted[i] = i;
+        } else if (count <= MERGE_LIMIT) {
+            int filled = existing;
+            for (int row = firstRow; row <= endRow; row++) {
+                int at = search(model.getIngredient(row), row, 0, filled);
+                System.arraycopy(sorted, at, sorted, at + 1, filled - at);
+                sorted[at] = row;
+                filled++;
+            }
+        } else {
+            mergeInserted(firstRow, count, existing);
+        }
+        for (int i = 0; i < size; i++) sortedPos[sorted[i]] = i;
+        rebuildView();
+        fireRowSorterChanged(null);
+    }
+
+    public void rowsDeleted(int firstRow, int endRow) {
+        if (firstRow < 0 || endRow < firstRow || endRow >= size || model.getRowCount() != size - (endRow - firstRow + 1))
+            throw new IndexOutOfBoundsException("Invalid range");
+        int count = endRow - firstRow + 1;
+        if (pending != null) insertedOrDeleted = true;
+        // Removing the last row renumbers nothing, so only the rows after
+        // its position move.
+        int start = count == 1 && endRow == size - 1 ? sortedPos[endRow] : 0;
+        int out = start;
+        for (int i = start; i < size; i++) {
+            int row = sorted[i];
+            if (row < firstRow) sorted[out++] = row;
+            else if (row > endRow) sorted[out++] = row - count;
+        }
+        if (filter != null) System.arraycopy(included, endRow + 1, included, firstRow, size - endRow - 1);
+        size -= count;
+        for (int i = start; i < size; i++) sortedPos[sorted[i]] = i;
+        rebuildView();
+        fireRowSorterChanged(null);
+    }
+
+    public void rowsUpdated(int firstRow, int endRow) {
+        if (firstRow < 0 || endRow < firstRow || endRow >= size) throw new IndexOutOfBoundsException("Invalid range");
+        if (endRow - firstRow >= UPDATE_LIMIT) {
+            if (filter != null)
+                for (int row = firstRow; row <= endRow; row++) included[row] = test(row);
+            resort();
+            fireRowSorterChanged(null);
+            return;
+        }
+        boolean changed = false;
+        for (int row = firstRow; row <= endRow; row++) changed |= reposition(row);
+        if (changed) fireRowSorterChanged(null);
+    }
+
+    public void rowsUpdated(int firstRow, int endRow, int column) {
+        rowsUpdated(firstRow, endRow);
+    }
+
+    // Puts an edited row back in order and re-tests it. The rows between its
+    // old and new position shift by one; nothing else moves.
+    private boolean reposition(int row) {
+        if (pending != null) touched.set(row);
+        Ingredient item = model.getIngredient(row);
+        int from = sortedPos[row];
+        int to = from;
+        if (from > 0 && compare(item, row, sorted[from - 1]) < 0) to = search(item, row, 0, from);
+        else if (from < size - 1 && compare(item, row, sorted[from + 1]) > 0) to = search(item, row, from + 1, size) - 1;
+        if (to < from) System.arraycopy(sorted, to, sorted, to + 1, from - to);
+        else if (to > from) System.arraycopy(sorted, from + 1, sorted, from, to - from);
+        sorted[to] = row;
+        int low = Math.min(from, to);
+        int high = Math.max(from, to);
+        for (int i = low; i <= high; i++) sortedPos[sorted[i]] = i;
+        if (filter == null) return to != from;
+
+        boolean wasIncluded = included[row];
+        included[row] = test(row);
+        if (to == from && wasIncluded == included[row]) return false;
+        // The included rows of that stretch of the order sit together in the
+        // view; rewrite them, shifting the rest if the count changed.
+        int start = 0;
+        for (int i = low - 1; i >= 0; i--) {
+            if (included[sorted[i]]) {
+                start = viewPos[sorted[i]] + 1;
+                break;
+            }
+        }
+        int now = 0;
+        for (int i = low; i <= high; i++)
+            if (included[sorted[i]]) now++;
+        int before = now - (included[row] ? 1 : 0) + (wasIncluded ? 1 : 0);
+        if (now != before) {
+            System.arraycopy(view, start + before, view, start + now, viewCount - start - before);
+            viewCount += now - before;
+            for (int v = start + now; v < viewCount; v++) viewPos[view[v]] = v;
+        }
+        int v = start;
+        for (int i = low; i <= high; i++) {
+            int r = sorted[i];
+            if (included[r]) {
+                view[v] = r;
+                viewPos[r] = v++;
+            } else {
+                viewPos[r] = -1;
+            }
+        }
+        return true;
+    }
+
+    // Sorts the new rows among themselves, then finds each one's place in
+    // the existing order, searching only from the previous one's place on.
+    private void mergeInserted(int firstRow, int count, int existing) {
+        int[] fresh = SortEngine.columns(count, i -> model.getIngredient(firstRow + i), activeKeys, activeDescending)
+                .sort(ForkJoinPool.commonPool());
+        int[] merged = new int[sorted.length];
+        int from = 0;
+        int out = 0;
+        for (int index : fresh) {
+            int row = firstRow + index;
+            int at = search(model.getIngredient(row), row, from, existing);
+            System.arraycopy(sorted, from, merged, out, at - from);
+            out += at - from;
+            merged[out++] = row;
+            from = at;
+        }
+        System.arraycopy(sorted, from, merged, out, existing - from);
+        sorted = merged;
+    }
+
+    // Orders every row by the current sort keys again, in the background if
+    // there are many; until then the current order stands.
+    private void resort() {
+        cancelSort();
+        List<SortEngine.Key> engineKeys = engineKeys();
+        boolean[] descending = descending();
+        if (engineKeys.isEmpty() || size <= SYNC_LIMIT) {
+            install(order(engineKeys, descending), engineKeys, descending);
+        } else {
+            rebuildView();
+            startSort(engineKeys, descending);
+        }
+    }
+
+    private void startSort(List<SortEngine.Key> engineKeys, boolean[] descending) {
+        SortEngine.Columns columns = SortEngine.columns(size, model::getIngredient, engineKeys, descending);
+        insertedOrDeleted = false;
+        touched.clear();
+        BackgroundTask<int[]> task = new BackgroundTask<>() {
+            protected int[] doInBackground() {
+                return columns.sort(ForkJoinPool.commonPool());
+            }
+
+            protected void done() {
+                if (pending != this) return;
+                pending = null;
+                int[] order;
+                try {
+                    order = get();
+                } catch (ExecutionException e) {
+                    // Rare enough (out of memory) to simply sort here instead.
+                    order = order(engineKeys, descending);
+                    touched.clear();
+                }
+                // Rows added or removed since the columns were read are not
+                // in the result; read them again.
+                if (insertedOrDeleted || touched.cardinality() > UPDATE_LIMIT) {
+                    startSort(engineKeys, descending);
+                    return;
+                }
+                applySort(order, engineKeys, descending);
+            }
+        };
+        pending = task;
+        tasks.submit(SORT_TASK, task);
+    }
+
+    // Rows edited while sorting were placed by their old values: take them
+    // out and put them back by their current ones.
+    private void applySort(int[] order, List<SortEngine.Key> engineKeys, boolean[] descending) {
+        int[] previous = Arrays.copyOf(view, viewCount);
+        if (!touched.isEmpty()) {
+            int out = 0;
+            for (int i = 0; i < size; i++)
+                if (!touched.get(order[i])) order[out++] = order[i];
+            sorted = order;
+            activeKeys = engineKeys;
+            activeDescending = descending;
+            for (int row = touched.nextSetBit(0); row >= 0; row = touched.nextSetBit(row + 1)) {
+                int at = search(model.getIngredient(row), row, 0, out);
+                System.arraycopy(order, at, order, at + 1, out - at);
+                order[at] = row;
+                out++;
+            }
+            touched.clear();
+        }
+        install(order, engineKeys, descending);
+        fireRowSorterChanged(previous);
+    }
+
+    private void cancelSort() {
+        if (pending == null) return;
+        BackgroundTask<int[]> task = pending;
+        pending = null;
+        task.cancel();
+    }
+
+    private int[] order(List<SortEngine.Key> engineKeys, boolean[] descending) {
+        if (!engineKeys.isEmpty())
+            return SortEngine.columns(size, model::getIngredient, engineKeys, descending).sort(ForkJoinPool.commonPool());
+        int[] identity = new int[size];
+        for (int i = 0; i < size; i++) identity[i] = i;
+        return identity;
+    }
+
+    private void install(int[] order, List<SortEngine.Key> engineKeys, boolean[] descending) {
+        sorted = order;
+        activeKeys = engineKeys;
+        activeDescending = descending;
+        if (sortedPos.length < sorted.length) sortedPos = new int[sorted.length];
+        if (included.length < sorted.length) included = Arrays.copyOf(included, sorted.length);
+        for (int i = 0; i < size; i++) sortedPos[sorted[i]] = i;
+        rebuildView();
+    }
+
+    private void rebuildView() {
+        if (filter == null) {
+            view = sorted;
+            viewPos = sortedPos;
+            viewCount = size;
+            return;
+        }
+        if (view == sorted || view.length < sorted.length) {
+            view = new int[sorted.length];
+            viewPos = new int[sorted.length];
+        }
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int row = sorted[i];
+            if (included[row]) {
+                view[count] = row;
+                viewPos[row] = count++;
+            } else {
+                viewPos[row] = -1;
+            }
+        }
+        viewCount = count;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (sorted.length >= capacity) return;
+        int grown = Math.max(capacity, sorted.length + (sorted.length >> 1));
+        sorted = Arrays.copyOf(sorted, grown);
+        sortedPos = Arrays.copyOf(sortedPos, grown);
+        included = Arrays.copyOf(included, grown);
+    }
+
+    // First position in sorted[from, to) whose row sorts after the given one.
+    private int search(Ingredient item, int row, int from, int to) {
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (compare(item, row, sorted[mid]) > 0) from = mid + 1;
+            else to = mid;
+        }
+        return from;
+    }
+
+    // The order SortEngine sorts by, with ties broken on model row.
+    private int compare(Ingredient item, int row, int other) {
+        int c = SortEngine.compare(item, model.getIngredient(other), activeKeys, activeDescending);
+        return c != 0 ? c : Integer.compare(row, other);
+    }
+
+    private boolean test(int row) {
+        entry.row = row;
+        return filter.include(entry);
+    }
+
+    private List<SortEngine.Key> engineKeys() {
+        List<SortEngine.Key> keys = new ArrayList<>(sortKeys.size());
+        for (SortKey key : sortKeys)
+            if (key.getSortOrder() != SortOrder.UNSORTED) keys.add(COLUMN_KEYS[key.getColumn()]);
+        return keys;
+    }
+
+    private boolean[] descending() {
+        boolean[] descending = new boolean[sortKeys.size()];
+        int k = 0;
+        for (SortKey key : sortKeys)
+            if (key.getSortOrder() != SortOrder.UNSORTED) descending[k++] = key.getSortOrder() == SortOrder.DESCENDING;
+        return descending;
+    }
+
+    private static void checkColumn(int column) {
+        if (column < 0 || column >= COLUMN_KEYS.length) throw new IndexOutOfBoundsException("Invalid column " + column);
+    }
+
+    private final class FilterEntry extends RowFilter.Entry<IngredientTableModel, Integer> {
+        int row;
+
+        public IngredientTableModel getModel() {
+            return model;
+        }
+
+        public int getValueCount() {
+            return model.getColumnCount();
+        }
+
+        public Object getValue(int index) {
+            return model.getValueAt(row, index);
+        }
+
+        public Integer getIdentifier() {
+            return row;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+import java.util.Map;
+
+// One line of a point-of-sale order: quantity servings of a menu item.
+record PosOrder(String orderId, String menuItem, int quantity) {
+
+    // Reads {"order": "A-1042", "item": "Pepperoni Pizza", "quantity": 2}.
+    // The order id is optional and the quantity defaults to one.
+    static PosOrder fromJson(Map<String, String> fields) {
+        String item = fields.get("item");
+        if (item == null || item.isBlank()) throw new IllegalArgumentException("missing item");
+        String quantity = fields.get("quantity");
+        int parsed;
+        try {
+            parsed = quantity == null ? 1 : Integer.parseInt(quantity.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid quantity '" + quantity + "'");
+        }
+        if (parsed <= 0) throw new IllegalArgumentException("quantity must be positive");
+        return new PosOrder(fields.get("order"), item, parsed);
+    }
+}
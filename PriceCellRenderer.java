@@ -0,0 +1,19 @@
+import javax.swing.table.DefaultTableCellRenderer;
+
+class PriceCellRenderer extends DefaultTableCellRenderer {
+    protected void setValue(Object value) {
+        setText(value == null ? "" : formatCents((Long) value));
+    }
+
+    static String formatCents(long cents) {
+        StringBuilder text = new StringBuilder(12);
+        if (cents < 0) {
+            text.append('-');
+            cents = -cents;
+        }
+        long fraction = cents % 100;
+        text.append('₱').append(cents / 100).append('.');
+        if (fraction < 10) text.append('0');
+        return text.append(fraction).toString();
+    }
+}
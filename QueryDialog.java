@@ -0,0 +1,142 @@
+import javax.swing.*;
+import java.awt.*;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+
+// Non-modal form for an InventoryQuery. Apply hands the query to the owner,
+// which filters the table and reports back through showResult(); closing the
+// window drops the query again. Blank fields are not used.
+class QueryDialog extends JDialog {
+    private final Consumer<InventoryQuery> onApply;
+    private final JCheckBox[] categoryBoxes;
+    private final JTextField minQuantityField = new JTextField(6);
+    private final JTextField maxQuantityField = new JTextField(6);
+    private final JTextField expiryDaysField = new JTextField(6);
+    private final JTextField minPriceField = new JTextField(6);
+    private final JTextField maxPriceField = new JTextField(6);
+    private final JLabel summary = new JLabel("Choose any combination of conditions.");
+
+    public QueryDialog(Frame owner, String[] categories, Consumer<InventoryQuery> onApply) {
+        super(owner, "Advanced Query", false);
+        this.onApply = onApply;
+
+        JPanel categoryPanel = new JPanel(new GridLayout(0, 4, 8, 4));
+        categoryPanel.setBorder(BorderFactory.createTitledBorder("Category (any of)"));
+        categoryBoxes = new JCheckBox[categories.length];
+        for (int i = 0; i < categories.length; i++) {
+            categoryBoxes[i] = new JCheckBox(categories[i]);
+            categoryPanel.add(categoryBoxes[i]);
+        }
+
+        JPanel form = new JPanel(new GridBagLayout());
+        form.setBorder(BorderFactory.createEmptyBorder(6, 10, 6, 10));
+        addRow(form, 0, "Quantity from", minQuantityField, "to", maxQuantityField);
+        addRow(form, 1, "Expiring within", expiryDaysField, "days", null);
+        addRow(form, 2, "Price (₱) from", minPriceField, "to", maxPriceField);
+
+        JButton applyButton = new JButton("Apply");
+        JButton clearButton = new JButton("Clear");
+        JButton closeButton = new JButton("Close");
+        applyButton.addActionListener(e -> apply());
+        clearButton.addActionListener(e -> clear());
+        closeButton.addActionListener(e -> dispose());
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttons.add(applyButton);
+        buttons.add(clearButton);
+        buttons.add(closeButton);
+        getRootPane().setDefaultButton(applyButton);
+
+        JPanel center = new JPanel(new BorderLayout());
+        center.add(categoryPanel, BorderLayout.NORTH);
+        center.add(form, BorderLayout.CENTER);
+        summary.setBorder(BorderFactory.createEmptyBorder(6, 10, 6, 10));
+        JPanel south = new JPanel(new BorderLayout());
+        south.add(summary, BorderLayout.CENTER);
+        south.add(buttons, BorderLayout.EAST);
+
+        add(center, BorderLayout.CENTER);
+        add(south, BorderLayout.SOUTH);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        pack();
+        setLocationRelativeTo(owner);
+    }
+
+    public void showResult(InventoryQuery query, QueryIndex.Result result) {
+        if (result == null) {
+            summary.setText("Showing all ingredients.");
+            return;
+        }
+        summary.setText(String.format(Locale.ROOT, "%,d matches in %.2f ms: %s", result.count(),
+                result.getNanos() / 1e6, query.describe()));
+    }
+
+    public void dispose() {
+        onApply.accept(null);
+        super.dispose();
+    }
+
+    private void apply() {
+        InventoryQuery query;
+        try {
+            Set<String> categories = new LinkedHashSet<>();
+            for (JCheckBox box : categoryBoxes)
+                if (box.isSelected()) categories.add(box.getText());
+            query = new InventoryQuery(categories,
+                    parseInt(minQuantityField, "minimum quantity"), parseInt(maxQuantityField, "maximum quantity"),
+                    parseInt(expiryDaysField, "number of days"),
+                    parseCents(minPriceField, "minimum price"), parseCents(maxPriceField, "maximum price"));
+        } catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(this, e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        onApply.accept(query);
+    }
+
+    private void clear() {
+        for (JCheckBox box : categoryBoxes) box.setSelected(false);
+        for (JTextField field : new JTextField[] {minQuantityField, maxQuantityField, expiryDaysField, minPriceField, maxPriceField})
+            field.setText("");
+        onApply.accept(null);
+    }
+
+    private static Integer parseInt(JTextField field, String what) {
+        String text = field.getText().trim();
+        if (text.isEmpty()) return null;
+        try {
+            return Integer.valueOf(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Please enter a whole number for the " + what + ".");
+        }
+    }
+
+    private static Long parseCents(JTextField field, String what) {
+        String text = field.getText().trim().replace("₱", "").replace(",", "");
+        if (text.isEmpty()) return null;
+        try {
+            return new BigDecimal(text).movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new IllegalArgumentException("Please enter a valid amount for the " + what + ".");
+        }
+    }
+
+    private static void addRow(JPanel form, int row, String label, JTextField first, String between, JTextField second) {
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(4, 4, 4, 4);
+        gbc.anchor = GridBagConstraints.WEST;
+        gbc.gridy = row;
+        gbc.gridx = 0;
+        form.add(new JLabel(label), gbc);
+        gbc.gridx = 1;
+        form.add(first, gbc);
+        gbc.gridx = 2;
+        form.add(new JLabel(between), gbc);
+        if (second != null) {
+            gbc.gridx = 3;
+            form.add(second, gbc);
+        }
+    }
+}
@@ -0,0 +1,332 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntPredicate;
+import java.util.function.IntToLongFunction;
+import java.util.function.LongUnaryOperator;
+
+// Bitmap indexes for InventoryQuery. Every SKU gets a dense id; category maps
+// to a bitmap of ids, and quantity, expiry and price are split into buckets
+// with one bitmap each. A query ORs the bitmaps of each predicate and ANDs
+// the predicates smallest first. Actual values are only read for the final
+// ids that came from a bucket straddling a bound, or once so few candidates
+// remain that checking them beats building another union.
+//
+// Ids are never reused, so a result can be kept and checked against later
+// SKUs without mistaking a new item for an old match.
+//
+// Movements are queued on PendingEvents rather than applied on the
+// service's thread, so they never wait for the index lock; a query applies
+// them first. The lock is then held for one predicate's bitmap work at a
+// time, not for the whole query. A result reflects each predicate as of the
+// step that read it.
+class QueryIndex implements InventoryListener {
+    // How many times more ids a predicate's bitmaps must hold than there are
+    // candidates left before checking the candidates directly is cheaper.
+    private static final int PROBE_RATIO = 8;
+
+    // Concurrent so results can map SKUs to ids without the index lock.
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final PendingEvents pending = new PendingEvents();
+    private final RoaringBitmap all = new RoaringBitmap();
+    private final Map<String, RoaringBitmap> byCategory = new HashMap<>();
+    private final RangeIndex byQuantity = new RangeIndex(QueryIndex::logBucket);
+    private final RangeIndex byExpiry = new RangeIndex(day -> Math.floorDiv(day, 7));
+    private final RangeIndex byPrice = new RangeIndex(QueryIndex::logBucket);
+    private String[] category = new String[1024];
+    private int[] quantity = new int[1024];
+    private int[] expiry = new int[1024];
+    private long[] price = new long[1024];
+    private int nextId;
+
+    // Four buckets per power of two, so a bucket spans at most a quarter of
+    // its magnitude. Monotonic, which is what RangeIndex relies on.
+    static long logBucket(long value) {
+        if (value < 4) return Math.max(0, value);
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        return msb * 4L + ((value >>> (msb - 2)) & 3);
+    }
+
+    public void ingredientAdded(Ingredient ingredient) {
+        if (pending.added(ingredient)) drain();
+    }
+
+    public void ingredientRemoved(Ingredient ingredient) {
+        if (pending.removed(ingredient)) drain();
+    }
+
+    public void ingredientUpdated(Ingredient old, Ingredient updated) {
+        if (pending.updated(old, updated)) drain();
+    }
+
+    private synchronized void drain() {
+        pending.drain(this::apply);
+    }
+
+    private void apply(Ingredient old, Ingredient updated) {
+        if (old == null) add(updated);
+        else if (updated == null) remove(old);
+        else update(old, updated);
+    }
+
+    private void add(Ingredient ingredient) {
+        String sku = ingredient.getSku();
+        if (ids.containsKey(sku)) return;
+        int id = nextId++;
+        if (id == quantity.length) grow();
+        ids.put(sku, id);
+        all.add(id);
+        index(id, ingredient);
+    }
+
+    private void remove(Ingredient ingredient) {
+        Integer id = ids.remove(ingredient.getSku());
+        if (id == null) return;
+        all.remove(id);
+        unindex(id);
+    }
+
+    // Movements keep the SKU and category, so only the changed ranges move.
+    private void update(Ingredient old, Ingredient updated) {
+        Integer id = ids.get(old.getSku());
+        if (id == null || !category[id].equals(updated.getCategory().toLowerCase(Locale.ROOT))) {
+            remove(old);
+            add(updated);
+            return;
+        }
+        byQuantity.move(id, quantity[id], updated.getQuantity());
+        byExpiry.move(id, expiry[id], updated.getExpiryEpochDay());
+        byPrice.move(id, price[id], updated.getPriceCents());
+        quantity[id] = updated.getQuantity();
+        expiry[id] = updated.getExpiryEpochDay();
+        price[id] = updated.getPriceCents();
+    }
+
+    public synchronized int size() {
+        drain();
+        return ids.size();
+    }
+
+    public Result evaluate(InventoryQuery query, int today) {
+        long start = System.nanoTime();
+        List<Term> terms;
+        synchronized (this) {
+            drain();
+            terms = terms(query, today);
+            if (terms.isEmpty()) return new Result(all.copy(), System.nanoTime() - start);
+            terms.sort(Comparator.comparingLong(Term::estimate));
+        }
+
+        // Start from the most selective predicate. Each further predicate is
+        // intersected as a bitmap while the candidates are comparable in
+        // size, and checked id by id against the value columns once they are
+        // far fewer than the ids its bitmaps hold. Intersections work on
+        // copies, outside the lock.
+        RoaringBitmap matches = null;
+        List<Term> unchecked = new ArrayList<>();
+        for (Term term : terms) {
+            boolean probe;
+            RoaringBitmap candidates;
+            synchronized (this) {
+                probe = matches != null && (long) matches.cardinality() * PROBE_RATIO <= term.estimate();
+                candidates = probe ? term.filter(matches) : term.candidates();
+            }
+            if (probe) {
+                matches = candidates;
+            } else {
+                matches = matches == null ? candidates : RoaringBitmap.and(matches, candidates);
+                if (!term.edges().isEmpty()) unchecked.add(term);
+            }
+            if (matches.isEmpty()) return new Result(matches, System.nanoTime() - start);
+        }
+
+        // Buckets straddling a bound were taken whole. Check the values of
+        // the survivors that came from one, after intersecting, when they are
+        // fewest.
+        if (!unchecked.isEmpty()) {
+            RoaringBitmap rejected = new RoaringBitmap();
+            synchronized (this) {
+                List<RoaringBitmap> edges = new ArrayList<>();
+                for (Term term : unchecked) edges.addAll(term.edges());
+                RoaringBitmap.and(matches, RoaringBitmap.or(edges)).forEach(id -> {
+                    for (Term term : unchecked) {
+                        if (!term.test().test(id)) {
+                            rejected.add(id);
+                            return;
+                        }
+                    }
+                });
+            }
+            if (!rejected.isEmpty()) matches = RoaringBitmap.andNot(matches, rejected);
+        }
+        return new Result(matches, System.nanoTime() - start);
+    }
+
+    // Called with the lock held; the terms read the live bitmaps and
+    // columns, so they are only used under it.
+    private List<Term> terms(InventoryQuery query, int today) {
+        List<Term> terms = new ArrayList<>();
+        if (!query.categories().isEmpty()) {
+            Set<String> keys = new HashSet<>();
+            List<RoaringBitmap> parts = new ArrayList<>();
+            for (String name : query.categories()) {
+                String key = name.toLowerCase(Locale.ROOT);
+                RoaringBitmap ids = byCategory.get(key);
+                if (ids != null && keys.add(key)) parts.add(ids);
+            }
+            terms.add(new Term(parts, List.of(), id -> keys.contains(category[id])));
+        }
+        if (query.minQuantity() != null || query.maxQuantity() != null)
+            terms.add(byQuantity.select(id -> quantity[id], bound(query.minQuantity(), Long.MIN_VALUE), bound(query.maxQuantity(), Long.MAX_VALUE)));
+        if (query.expiresWithinDays() != null)
+            terms.add(byExpiry.select(id -> expiry[id], Long.MIN_VALUE, (long) today + query.expiresWithinDays()));
+        if (query.minPriceCents() != null || query.maxPriceCents() != null)
+            terms.add(byPrice.select(id -> price[id], bound(query.minPriceCents(), Long.MIN_VALUE), bound(query.maxPriceCents(), Long.MAX_VALUE)));
+        return terms;
+    }
+
+    private static long bound(Number value, long open) {
+        return value == null ? open : value.longValue();
+    }
+
+    // The ids matched by a query, in a bitmap of its own. includes() maps a
+    // SKU to its current id without the index lock, so a row filter can test
+    // every row while writers carry on; rows added since the query simply do
+    // not match.
+    final class Result {
+        private final RoaringBitmap matches;
+        private final long nanos;
+
+        private Result(RoaringBitmap matches, long nanos) {
+            this.matches = matches;
+            this.nanos = nanos;
+        }
+
+        public boolean includes(String sku) {
+            Integer id = ids.get(sku);
+            return id != null && matches.contains(id);
+        }
+
+        public int count() {
+            return matches.cardinality();
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+    }
+
+    private void index(int id, Ingredient ingredient) {
+        String key = ingredient.getCategory().toLowerCase(Locale.ROOT);
+        category[id] = key;
+        quantity[id] = ingredient.getQuantity();
+        expiry[id] = ingredient.getExpiryEpochDay();
+        price[id] = ingredient.getPriceCents();
+        byCategory.computeIfAbsent(key, k -> new RoaringBitmap()).add(id);
+        byQuantity.add(id, quantity[id]);
+        byExpiry.add(id, expiry[id]);
+        byPrice.add(id, price[id]);
+    }
+
+    private void unindex(int id) {
+        RoaringBitmap bucket = byCategory.get(category[id]);
+        bucket.remove(id);
+        if (bucket.isEmpty()) byCategory.remove(category[id]);
+        byQuantity.remove(id, quantity[id]);
+        byExpiry.remove(id, expiry[id]);
+        byPrice.remove(id, price[id]);
+        category[id] = null;
+    }
+
+    private void grow() {
+        int capacity = quantity.length * 2;
+        category = Arrays.copyOf(category, capacity);
+        quantity = Arrays.copyOf(quantity, capacity);
+        expiry = Arrays.copyOf(expiry, capacity);
+        price = Arrays.copyOf(price, capacity);
+    }
+
+    // One predicate: the buckets wholly inside its range, the buckets
+    // straddling a bound, and the exact test for one id.
+    private record Term(List<RoaringBitmap> parts, List<RoaringBitmap> edges, IntPredicate test) {
+        long estimate() {
+            long total = 0;
+            for (RoaringBitmap part : parts) total += part.cardinality();
+            for (RoaringBitmap edge : edges) total += edge.cardinality();
+            return total;
+        }
+
+        // A superset of the matches: every id in the predicate's buckets.
+        RoaringBitmap candidates() {
+            List<RoaringBitmap> all = new ArrayList<>(parts);
+            all.addAll(edges);
+            return RoaringBitmap.or(all);
+        }
+
+        // Ids arrive in ascending order, so each add appends.
+        RoaringBitmap filter(RoaringBitmap ids) {
+            RoaringBitmap kept = new RoaringBitmap();
+            ids.forEach(id -> {
+                if (test.test(id)) kept.add(id);
+            });
+            return kept;
+        }
+    }
+
+    // Ids bucketed by a monotonic function of their value. Buckets strictly
+    // between the buckets of the two bounds lie wholly inside the range.
+    private static final class RangeIndex {
+        private final LongUnaryOperator bucketOf;
+        private final TreeMap<Long, RoaringBitmap> buckets = new TreeMap<>();
+
+        RangeIndex(LongUnaryOperator bucketOf) {
+            this.bucketOf = bucketOf;
+        }
+
+        void add(int id, long value) {
+            buckets.computeIfAbsent(bucketOf.applyAsLong(value), b -> new RoaringBitmap()).add(id);
+        }
+
+        void remove(int id, long value) {
+            long bucket = bucketOf.applyAsLong(value);
+            RoaringBitmap ids = buckets.get(bucket);
+            ids.remove(id);
+            if (ids.isEmpty()) buckets.remove(bucket);
+        }
+
+        void move(int id, long from, long to) {
+            if (bucketOf.applyAsLong(from) == bucketOf.applyAsLong(to)) return;
+            remove(id, from);
+            add(id, to);
+        }
+
+        Term select(IntToLongFunction value, long low, long high) {
+            IntPredicate test = id -> {
+                long v = value.applyAsLong(id);
+                return v >= low && v <= high;
+            };
+            if (low > high || buckets.isEmpty()) return new Term(List.of(), List.of(), test);
+            long first = low == Long.MIN_VALUE ? buckets.firstKey() : bucketOf.applyAsLong(low);
+            long last = high == Long.MAX_VALUE ? buckets.lastKey() : bucketOf.applyAsLong(high);
+            // An open end takes the outermost bucket, which may lie past the
+            // other bound when nothing indexed is in range.
+            if (first > last) return new Term(List.of(), List.of(), test);
+            List<RoaringBitmap> parts = new ArrayList<>();
+            List<RoaringBitmap> edges = new ArrayList<>(2);
+            for (Map.Entry<Long, RoaringBitmap> bucket : buckets.subMap(first, true, last, true).entrySet()) {
+                boolean straddles = (low != Long.MIN_VALUE && bucket.getKey() == first)
+                        || (high != Long.MAX_VALUE && bucket.getKey() == last);
+                (straddles ? edges : parts).add(bucket.getValue());
+            }
+            return new Term(parts, edges, test);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+import java.util.Map;
+
+// What one serving of a menu item uses: units of each ingredient by SKU.
+record Recipe(String menuItem, Map<String, Integer> ingredients) {
+
+    Recipe {
+        if (ingredients.isEmpty()) throw new IllegalArgumentException(menuItem + " has no ingredients.");
+        ingredients = Map.copyOf(ingredients);
+    }
+}
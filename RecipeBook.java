@@ -0,0 +1,105 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Recipes by menu item, matched without regard to case. The data directory
+// may hold a recipes.json with one object per ingredient line:
+//
+//   {"item": "Margherita Pizza", "sku": "dairy/mozzarella", "quantity": 2}
+//
+// where the SKU may also be given as name and category, as for a movement.
+// Without one, the book holds recipes for the sample pizzeria menu.
+class RecipeBook {
+    private final Map<String, Recipe> recipes = new HashMap<>();
+
+    public RecipeBook(Collection<Recipe> recipes) {
+        for (Recipe recipe : recipes) {
+            if (this.recipes.putIfAbsent(recipe.menuItem().toLowerCase(Locale.ROOT), recipe) != null)
+                throw new IllegalArgumentException("Duplicate recipe for " + recipe.menuItem() + ".");
+        }
+    }
+
+    public static RecipeBook load(Path dataDir) throws IOException {
+        Path file = dataDir.resolve("recipes.json");
+        if (!Files.exists(file)) return defaults();
+        // Lines of one item are summed, in the order the items first appear.
+        Map<String, String> names = new LinkedHashMap<>();
+        Map<String, Map<String, Integer>> lines = new HashMap<>();
+        try (JsonObjectReader reader = new JsonObjectReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+            Map<String, String> fields;
+            while ((fields = reader.next()) != null) {
+                String item = fields.get("item");
+                String sku = fields.get("sku");
+                if (sku == null && fields.get("name") != null && fields.get("category") != null)
+                    sku = Ingredient.skuOf(fields.get("name"), fields.get("category"));
+                if (item == null || item.isBlank() || sku == null)
+                    throw new IOException("Recipe line " + reader.position() + " in " + file + " needs an item and a sku");
+                int quantity;
+                try {
+                    quantity = Integer.parseInt(String.valueOf(fields.get("quantity")).trim());
+                } catch (NumberFormatException e) {
+                    throw new IOException("Invalid quantity on recipe line " + reader.position() + " in " + file, e);
+                }
+                if (quantity <= 0)
+                    throw new IOException("Quantity on recipe line " + reader.position() + " in " + file + " must be positive");
+                String key = item.trim().toLowerCase(Locale.ROOT);
+                names.putIfAbsent(key, item.trim());
+                lines.computeIfAbsent(key, k -> new LinkedHashMap<>())
+                        .merge(sku.trim().toLowerCase(Locale.ROOT), quantity, Integer::sum);
+            }
+        }
+        List<Recipe> recipes = new ArrayList<>(names.size());
+        for (Map.Entry<String, String> item : names.entrySet())
+            recipes.add(new Recipe(item.getValue(), lines.get(item.getKey())));
+        return new RecipeBook(recipes);
+    }
+
+    // The sample menu, in units of the sample inventory.
+    public static RecipeBook defaults() {
+        String[] pizza = {"dry goods/pizza flour", "dry goods/yeast", "produce/pizza sauce", "dairy/mozzarella"};
+        List<Recipe> recipes = new ArrayList<>();
+        recipes.add(recipe("Margherita Pizza", pizza, "spices/basil", "produce/tomatoes"));
+        recipes.add(recipe("Pepperoni Pizza", pizza, "meat/pepperoni"));
+        recipes.add(recipe("Hawaiian Pizza", pizza, "meat/ham", "produce/pineapple"));
+        recipes.add(recipe("Meat Lovers Pizza", pizza, "meat/pepperoni", "meat/italian sausage", "meat/ham", "meat/bacon"));
+        recipes.add(recipe("Veggie Pizza", pizza, "produce/mushrooms", "produce/green peppers", "produce/onions",
+                "produce/black olives", "produce/spinach"));
+        recipes.add(recipe("Supreme Pizza", pizza, "meat/pepperoni", "meat/italian sausage", "produce/mushrooms",
+                "produce/green peppers", "produce/onions", "produce/black olives"));
+        recipes.add(recipe("Seafood Pizza", new String[] {"dry goods/pizza flour", "dry goods/yeast", "produce/garlic puree",
+                "dairy/mozzarella"}, "seafood/shrimp", "seafood/clams", "seafood/anchovies"));
+        recipes.add(recipe("Garlic Bread", new String[] {"frozen/garlic bread"}));
+        recipes.add(recipe("Mozzarella Sticks", new String[] {"frozen/mozzarella sticks"}));
+        recipes.add(recipe("French Fries", new String[] {"frozen/french fries"}));
+        for (String drink : new String[] {"Cola", "Lemonade", "Iced Tea", "Orange Soda"})
+            recipes.add(recipe(drink, new String[] {"beverages/" + drink.toLowerCase(Locale.ROOT)}));
+        return new RecipeBook(recipes);
+    }
+
+    private static Recipe recipe(String menuItem, String[] base, String... extras) {
+        Map<String, Integer> ingredients = new LinkedHashMap<>();
+        for (String sku : base) ingredients.merge(sku, 1, Integer::sum);
+        for (String sku : extras) ingredients.merge(sku, 1, Integer::sum);
+        return new Recipe(menuItem, ingredients);
+    }
+
+    public Recipe get(String menuItem) {
+        return recipes.get(menuItem.trim().toLowerCase(Locale.ROOT));
+    }
+
+    public int size() {
+        return recipes.size();
+    }
+
+    public Collection<Recipe> recipes() {
+        return recipes.values();
+    }
+}
@@ -0,0 +1,18 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+
+// Streams the rows of one tabular report. Values are Strings, Numbers or
+// anything whose toString() is its text, such as a LocalDate; only Numbers
+// are written unquoted in JSON. Nothing is buffered beyond the writer.
+interface ReportWriter extends Closeable {
+    void row(Object... values) throws IOException;
+
+    static ReportWriter open(String format, Writer writer, String... columns) throws IOException {
+        return switch (format) {
+            case "json" -> new JsonReportWriter(writer, columns);
+            case "csv" -> new CsvReportWriter(writer, columns);
+            default -> throw new IllegalArgumentException("Unknown report format: " + format);
+        };
+    }
+}
@@ -0,0 +1,322 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.IntConsumer;
+
+// Compressed set of non-negative ints in the Roaring layout: values are split
+// by their high 16 bits into chunks, and each chunk stores its low 16 bits
+// either as a sorted short array (up to 4096 values, 2 bytes each) or as a
+// 65536-bit bitmap (8 KB), whichever is smaller. AND and OR work chunk by
+// chunk without decompressing.
+//
+// Not thread-safe; QueryIndex guards its bitmaps and hands out copies.
+final class RoaringBitmap {
+    private static final int ARRAY_MAX = 4096;
+    private static final int WORDS = 1024;
+
+    private char[] keys = new char[4];
+    private Chunk[] chunks = new Chunk[4];
+    private int size;
+
+    public RoaringBitmap copy() {
+        RoaringBitmap copy = new RoaringBitmap();
+        copy.keys = Arrays.copyOf(keys, Math.max(4, size));
+        copy.chunks = new Chunk[copy.keys.length];
+        for (int i = 0; i < size; i++) copy.chunks[i] = chunks[i].copy();
+        copy.size = size;
+        return copy;
+    }
+
+    public void add(int value) {
+        char key = (char) (value >>> 16);
+        // Ascending adds, as when filtering another bitmap, hit the last chunk.
+        int i = size > 0 && keys[size - 1] == key ? size - 1 : find(key);
+        if (i < 0) {
+            i = -i - 1;
+            insertChunk(i, key, new Chunk());
+        }
+        chunks[i].add((char) value);
+    }
+
+    public void remove(int value) {
+        int i = find((char) (value >>> 16));
+        if (i < 0) return;
+        chunks[i].remove((char) value);
+        if (chunks[i].cardinality == 0) removeChunk(i);
+    }
+
+    public boolean contains(int value) {
+        int i = find((char) (value >>> 16));
+        return i >= 0 && chunks[i].contains((char) value);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int cardinality() {
+        int total = 0;
+        for (int i = 0; i < size; i++) total += chunks[i].cardinality;
+        return total;
+    }
+
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            int high = keys[i] << 16;
+            Chunk chunk = chunks[i];
+            if (chunk.bits == null) {
+                for (int j = 0; j < chunk.cardinality; j++) action.accept(high | chunk.array[j]);
+            } else {
+                for (int w = 0; w < WORDS; w++) {
+                    long word = chunk.bits[w];
+                    while (word != 0) {
+                        action.accept(high | (w << 6) | Long.numberOfTrailingZeros(word));
+                        word &= word - 1;
+                    }
+                }
+            }
+        }
+    }
+
+    public static RoaringBitmap and(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0, j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                Chunk chunk = a.chunks[i].and(b.chunks[j]);
+                if (chunk.cardinality > 0) result.insertChunk(result.size, a.keys[i], chunk);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    // The values of a that are not in b.
+    public static RoaringBitmap andNot(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap result = new RoaringBitmap();
+        int j = 0;
+        for (int i = 0; i < a.size; i++) {
+            while (j < b.size && b.keys[j] < a.keys[i]) j++;
+            Chunk chunk = j < b.size && b.keys[j] == a.keys[i] ? a.chunks[i].andNot(b.chunks[j]) : a.chunks[i].copy();
+            if (chunk.cardinality > 0) result.insertChunk(result.size, a.keys[i], chunk);
+        }
+        return result;
+    }
+
+    // Union of any number of bitmaps in one pass per chunk: values are set
+    // straight into a chunk bitmap rather than merged pairwise.
+    public static RoaringBitmap or(Collection<RoaringBitmap> bitmaps) {
+        RoaringBitmap result = new RoaringBitmap();
+        TreeSet<Character> keys = new TreeSet<>();
+        for (RoaringBitmap bitmap : bitmaps)
+            for (int i = 0; i < bitmap.size; i++) keys.add(bitmap.keys[i]);
+        List<Chunk> parts = new ArrayList<>();
+        for (char key : keys) {
+            parts.clear();
+            for (RoaringBitmap bitmap : bitmaps) {
+                int i = bitmap.find(key);
+                if (i >= 0) parts.add(bitmap.chunks[i]);
+            }
+            result.insertChunk(result.size, key, parts.size() == 1 ? parts.get(0).copy() : Chunk.union(parts));
+        }
+        return result;
+    }
+
+    private int find(char key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insertChunk(int i, char key, Chunk chunk) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            chunks = Arrays.copyOf(chunks, size * 2);
+        }
+        System.arraycopy(keys, i, keys, i + 1, size - i);
+        System.arraycopy(chunks, i, chunks, i + 1, size - i);
+        keys[i] = key;
+        chunks[i] = chunk;
+        size++;
+    }
+
+    private void removeChunk(int i) {
+        System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+        System.arraycopy(chunks, i + 1, chunks, i, size - i - 1);
+        chunks[--size] = null;
+    }
+
+    // Low 16 bits of one chunk: a sorted array while sparse (bits == null),
+    // a bitmap once it holds more than ARRAY_MAX values. Results of AND/OR
+    // always take the smaller form.
+    private static final class Chunk {
+        char[] array = new char[4];
+        long[] bits;
+        int cardinality;
+
+        Chunk copy() {
+            Chunk copy = new Chunk();
+            copy.array = array == null ? null : Arrays.copyOf(array, Math.max(4, cardinality));
+            copy.bits = bits == null ? null : bits.clone();
+            copy.cardinality = cardinality;
+            return copy;
+        }
+
+        boolean contains(char low) {
+            if (bits != null) return (bits[low >>> 6] & (1L << low)) != 0;
+            return Arrays.binarySearch(array, 0, cardinality, low) >= 0;
+        }
+
+        void add(char low) {
+            if (bits != null) {
+                long before = bits[low >>> 6];
+                bits[low >>> 6] = before | (1L << low);
+                if (before != bits[low >>> 6]) cardinality++;
+                return;
+            }
+            int i = cardinality == 0 || low > array[cardinality - 1] ? -cardinality - 1
+                    : Arrays.binarySearch(array, 0, cardinality, low);
+            if (i >= 0) return;
+            if (cardinality == ARRAY_MAX) {
+                toBits();
+                add(low);
+                return;
+            }
+            i = -i - 1;
+            if (cardinality == array.length) array = Arrays.copyOf(array, Math.min(ARRAY_MAX, cardinality * 2));
+            System.arraycopy(array, i, array, i + 1, cardinality - i);
+            array[i] = low;
+            cardinality++;
+        }
+
+        void remove(char low) {
+            if (bits != null) {
+                long before = bits[low >>> 6];
+                bits[low >>> 6] = before & ~(1L << low);
+                // Converting back only at half the limit avoids flapping when a
+                // chunk hovers around ARRAY_MAX.
+                if (before != bits[low >>> 6] && --cardinality <= ARRAY_MAX / 2) toArray();
+                return;
+            }
+            int i = Arrays.binarySearch(array, 0, cardinality, low);
+            if (i < 0) return;
+            System.arraycopy(array, i + 1, array, i, cardinality - i - 1);
+            cardinality--;
+        }
+
+        Chunk and(Chunk other) {
+            Chunk result = new Chunk();
+            if (bits != null && other.bits != null) {
+                result.bits = new long[WORDS];
+                for (int w = 0; w < WORDS; w++) {
+                    result.bits[w] = bits[w] & other.bits[w];
+                    result.cardinality += Long.bitCount(result.bits[w]);
+                }
+                result.array = null;
+                if (result.cardinality <= ARRAY_MAX) result.toArray();
+            } else if (bits == null && other.bits == null && Math.min(cardinality, other.cardinality) * 16 < Math.max(cardinality, other.cardinality)) {
+                // Far apart in size: look each value of the small side up in
+                // the large one instead of walking both.
+                Chunk small = cardinality < other.cardinality ? this : other;
+                Chunk large = small == this ? other : this;
+                result.array = new char[Math.max(4, small.cardinality)];
+                int from = 0;
+                for (int i = 0; i < small.cardinality && from < large.cardinality; i++) {
+                    int at = Arrays.binarySearch(large.array, from, large.cardinality, small.array[i]);
+                    if (at >= 0) result.array[result.cardinality++] = small.array[i];
+                    from = at >= 0 ? at + 1 : -at - 1;
+                }
+            } else if (bits == null && other.bits == null) {
+                result.array = new char[Math.max(4, Math.min(cardinality, other.cardinality))];
+                int i = 0, j = 0;
+                while (i < cardinality && j < other.cardinality) {
+                    if (array[i] < other.array[j]) i++;
+                    else if (array[i] > other.array[j]) j++;
+                    else {
+                        result.array[result.cardinality++] = array[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                Chunk sparse = bits == null ? this : other;
+                Chunk dense = bits == null ? other : this;
+                result.array = new char[Math.max(4, sparse.cardinality)];
+                for (int i = 0; i < sparse.cardinality; i++)
+                    if (dense.contains(sparse.array[i])) result.array[result.cardinality++] = sparse.array[i];
+            }
+            return result;
+        }
+
+        Chunk andNot(Chunk other) {
+            Chunk result = new Chunk();
+            if (bits != null) {
+                result.bits = bits.clone();
+                result.array = null;
+                if (other.bits != null) {
+                    for (int w = 0; w < WORDS; w++) result.bits[w] &= ~other.bits[w];
+                } else {
+                    for (int i = 0; i < other.cardinality; i++) result.bits[other.array[i] >>> 6] &= ~(1L << other.array[i]);
+                }
+                for (int w = 0; w < WORDS; w++) result.cardinality += Long.bitCount(result.bits[w]);
+                if (result.cardinality <= ARRAY_MAX) result.toArray();
+            } else {
+                result.array = new char[Math.max(4, cardinality)];
+                int j = 0;
+                for (int i = 0; i < cardinality; i++) {
+                    char low = array[i];
+                    boolean removed;
+                    if (other.bits != null) {
+                        removed = other.contains(low);
+                    } else {
+                        while (j < other.cardinality && other.array[j] < low) j++;
+                        removed = j < other.cardinality && other.array[j] == low;
+                    }
+                    if (!removed) result.array[result.cardinality++] = low;
+                }
+            }
+            return result;
+        }
+
+        static Chunk union(List<Chunk> parts) {
+            Chunk result = new Chunk();
+            result.bits = new long[WORDS];
+            result.array = null;
+            for (Chunk part : parts) {
+                if (part.bits != null) {
+                    for (int w = 0; w < WORDS; w++) result.bits[w] |= part.bits[w];
+                } else {
+                    for (int i = 0; i < part.cardinality; i++) result.bits[part.array[i] >>> 6] |= 1L << part.array[i];
+                }
+            }
+            for (int w = 0; w < WORDS; w++) result.cardinality += Long.bitCount(result.bits[w]);
+            if (result.cardinality <= ARRAY_MAX) result.toArray();
+            return result;
+        }
+
+        private void toBits() {
+            bits = new long[WORDS];
+            for (int i = 0; i < cardinality; i++) bits[array[i] >>> 6] |= 1L << array[i];
+            array = null;
+        }
+
+        private void toArray() {
+            char[] values = new char[Math.max(4, cardinality)];
+            int n = 0;
+            for (int w = 0; w < WORDS; w++) {
+                long word = bits[w];
+                while (word != 0) {
+                    values[n++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            array = values;
+            bits = null;
+        }
+    }
+}
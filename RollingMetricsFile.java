@@ -0,0 +1,71 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// Append-only text file that rolls over by size: when it would grow past
+// maxBytes it becomes name.1, the previous name.1 becomes name.2 and so on,
+// and at most keep rolled files are kept. Every file starts with the
+// header, so each one can be read on its own.
+class RollingMetricsFile {
+    private final Path file;
+    private final long maxBytes;
+    private final int keep;
+    private final String header;
+    private Writer writer;
+    private long size;
+
+    public RollingMetricsFile(Path file, long maxBytes, int keep, String header) {
+        this.file = file;
+        this.maxBytes = maxBytes;
+        this.keep = keep;
+        this.header = header;
+    }
+
+    public synchronized void append(String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (writer == null) open();
+        if (size > 0 && size + bytes.length > maxBytes) {
+            close();
+            roll();
+            open();
+        }
+        writer.write(text);
+        writer.flush();
+        size += bytes.length;
+    }
+
+    public synchronized void close() throws IOException {
+        if (writer != null) writer.close();
+        writer = null;
+    }
+
+    private void open() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        size = Files.exists(file) ? Files.size(file) : 0;
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        if (size == 0) {
+            writer.write(header);
+            writer.write(System.lineSeparator());
+            size = header.getBytes(StandardCharsets.UTF_8).length + System.lineSeparator().length();
+        }
+    }
+
+    private void roll() throws IOException {
+        Files.deleteIfExists(sibling(keep));
+        for (int i = keep - 1; i >= 1; i--) {
+            Path older = sibling(i);
+            if (Files.exists(older)) Files.move(older, sibling(i + 1), StandardCopyOption.REPLACE_EXISTING);
+        }
+        if (keep >= 1) Files.move(file, sibling(1), StandardCopyOption.REPLACE_EXISTING);
+        else Files.delete(file);
+    }
+
+    private Path sibling(int generation) {
+        return file.resolveSibling(file.getFileName() + "." + generation);
+    }
+}
@@ -0,0 +1,113 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Trigram index over the lower-cased name and category of every ingredient.
+// Updated from whichever thread changes the service, under that SKU's
+// stripe lock, and queried from the search and HTTP threads, so changes to
+// the postings are synchronized on the index.
+//
+// Postings hold SKUs, and the current version of each item sits in a
+// concurrent map beside them. A stock movement keeps the name and category,
+// so it only replaces that version, without the lock; the service delivers
+// the events for one SKU in order.
+class SearchIndex implements InventoryListener {
+    private static final int GRAM = 3;
+    private static final char FIELD_SEPARATOR = '\u0000';
+
+    private final Map<String, Set<String>> postings = new HashMap<>();
+    private final Map<String, String> keys = new HashMap<>();
+    private final Map<String, Ingredient> current = new ConcurrentHashMap<>();
+    private long version;
+
+    public synchronized void ingredientAdded(Ingredient ingredient) {
+        String sku = ingredient.getSku();
+        String key = keyOf(ingredient);
+        keys.put(sku, key);
+        current.put(sku, ingredient);
+        for (String gram : gramsOf(key))
+            postings.computeIfAbsent(gram, g -> new HashSet<>()).add(sku);
+        version++;
+    }
+
+    public synchronized void ingredientRemoved(Ingredient ingredient) {
+        String sku = ingredient.getSku();
+        if (!current.remove(sku, ingredient)) return;
+        for (String gram : gramsOf(keys.remove(sku))) {
+            Set<String> posting = postings.get(gram);
+            if (posting != null && posting.remove(sku) && posting.isEmpty())
+                postings.remove(gram);
+        }
+        version++;
+    }
+
+    // The version is not bumped: the same SKUs still match the same queries.
+    public void ingredientUpdated(Ingredient old, Ingredient updated) {
+        if (old.getSku().equals(updated.getSku()) && old.getName().equals(updated.getName())
+                && old.getCategory().equals(updated.getCategory())
+                && current.replace(old.getSku(), old, updated))
+            return;
+        synchronized (this) {
+            ingredientRemoved(old);
+            ingredientAdded(updated);
+        }
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    // Returns every indexed ingredient whose name or category contains the
+    // query. When candidates is non-null only those ingredients are checked,
+    // which lets a growing query narrow the previous result set. Matches are
+    // the current version of each item.
+    public synchronized Set<Ingredient> search(String query, Collection<Ingredient> candidates) {
+        String needle = query.toLowerCase(Locale.ROOT);
+        Collection<String> skus;
+        if (candidates == null) {
+            skus = needle.length() >= GRAM ? smallestPosting(needle) : keys.keySet();
+        } else {
+            skus = new ArrayList<>(candidates.size());
+            for (Ingredient ingredient : candidates) skus.add(ingredient.getSku());
+        }
+
+        Set<Ingredient> matches = new HashSet<>();
+        for (String sku : skus) {
+            String key = keys.get(sku);
+            if (key != null && key.contains(needle))
+                matches.add(current.get(sku));
+        }
+        return matches;
+    }
+
+    private Collection<String> smallestPosting(String needle) {
+        Collection<String> smallest = null;
+        for (String gram : gramsOf(needle)) {
+            Set<String> posting = postings.get(gram);
+            if (posting == null) return Set.of();
+            if (smallest == null || posting.size() < smallest.size())
+                smallest = posting;
+        }
+        return smallest;
+    }
+
+    private static String keyOf(Ingredient ingredient) {
+        return ingredient.getName().toLowerCase(Locale.ROOT) + FIELD_SEPARATOR + ingredient.getCategory().toLowerCase(Locale.ROOT);
+    }
+
+    private static List<String> gramsOf(String text) {
+        List<String> grams = new ArrayList<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            String gram = text.substring(i, i + GRAM);
+            if (gram.indexOf(FIELD_SEPARATOR) < 0 && !grams.contains(gram))
+                grams.add(gram);
+        }
+        return grams;
+    }
+}
@@ -0,0 +1,335 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntFunction;
+
+// Sorts an index array over a fixed array of ingredients instead of moving
+// the ingredients themselves. Every algorithm breaks ties on the original
+// index, so all of them produce the same stable order for a multi-key sort.
+final class SortEngine {
+    enum Key {
+        NAME("Name"), CATEGORY("Category"), EXPIRY("Expiry"), QUANTITY("Quantity"), PRICE("Price");
+
+        final String label;
+
+        Key(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final int INSERTION_THRESHOLD = 16;
+    private static final int PARALLEL_THRESHOLD = 1 << 13;
+
+    private SortEngine() {}
+
+    static String describe(List<Key> keys) {
+        List<String> labels = new ArrayList<>();
+        for (Key key : keys) labels.add(key.label);
+        return String.join(", ", labels);
+    }
+
+    static int[] identity(int n) {
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        return order;
+    }
+
+    // O(n^2); kept for the classroom demo. Long enough on a big inventory
+    // that it stops when its thread is interrupted.
+    static int[] bubbleSort(Ingredient[] items, List<Key> keys) {
+        int[] order = identity(items.length);
+        IndexComparator cmp = new IndexComparator(items, keys);
+        for (int i = 0; i < order.length - 1; i++) {
+            if (Thread.currentThread().isInterrupted()) throw new CancellationException("Sort was cancelled.");
+            boolean swapped = false;
+            for (int j = 0; j < order.length - i - 1; j++) {
+                if (cmp.compare(order[j], order[j + 1]) > 0) {
+                    swap(order, j, j + 1);
+                    swapped = true;
+                }
+            }
+            if (!swapped) break;
+        }
+        return order;
+    }
+
+    static int[] introsort(Ingredient[] items, List<Key> keys) {
+        int[] order = identity(items.length);
+        int depthLimit = 2 * (32 - Integer.numberOfLeadingZeros(Math.max(1, items.length)));
+        introsort(order, 0, order.length - 1, depthLimit, new IndexComparator(items, keys));
+        return order;
+    }
+
+    static int[] parallelMergeSort(Ingredient[] items, List<Key> keys, ForkJoinPool pool) {
+        return columns(items.length, i -> items[i], keys, null).sort(pool);
+    }
+
+    // Reads the sort columns of rows 0..size-1 now, so that the sort itself
+    // can run on another thread while the rows go on changing. descending
+    // may be null for all ascending.
+    static Columns columns(int size, IntFunction<Ingredient> rows, List<Key> keys, boolean[] descending) {
+        return new Columns(size, new IndexComparator(size, rows, keys, descending));
+    }
+
+    static final class Columns {
+        private final int size;
+        private final IndexComparator cmp;
+
+        private Columns(int size, IndexComparator cmp) {
+            this.size = size;
+            this.cmp = cmp;
+        }
+
+        int[] sort(ForkJoinPool pool) {
+            int[] order = identity(size);
+            pool.invoke(new MergeSortTask(order, new int[size], 0, size, cmp));
+            return order;
+        }
+    }
+
+    // Compares two rows the way a sort over the same keys orders them, short
+    // of the final tie-break on index. Used to keep a sorted order current
+    // one row at a time.
+    static int compare(Ingredient a, Ingredient b, List<Key> keys, boolean[] descending) {
+        for (int k = 0; k < keys.size(); k++) {
+            int c = switch (keys.get(k)) {
+                case NAME -> String.CASE_INSENSITIVE_ORDER.compare(a.getName(), b.getName());
+                case CATEGORY -> a.getCategory().compareTo(b.getCategory());
+                case EXPIRY -> Integer.compare(a.getExpiryEpochDay(), b.getExpiryEpochDay());
+                case QUANTITY -> Integer.compare(a.getQuantity(), b.getQuantity());
+                case PRICE -> Long.compare(a.getPriceCents(), b.getPriceCents());
+            };
+            if (c != 0) return descending != null && descending[k] ? -c : c;
+        }
+        return 0;
+    }
+
+    private static void introsort(int[] a, int low, int high, int depthLimit, IndexComparator cmp) {
+        while (high - low >= INSERTION_THRESHOLD) {
+            if (depthLimit-- == 0) {
+                heapSort(a, low, high, cmp);
+                return;
+            }
+            int p = partition(a, low, high, cmp);
+            // Recurse into the smaller side so the stack stays O(log n).
+            if (p - low < high - p) {
+                introsort(a, low, p - 1, depthLimit, cmp);
+                low = p + 1;
+            } else {
+                introsort(a, p + 1, high, depthLimit, cmp);
+                high = p - 1;
+            }
+        }
+        insertionSort(a, low, high, cmp);
+    }
+
+    private static int partition(int[] a, int low, int high, IndexComparator cmp) {
+        int mid = (low + high) >>> 1;
+        if (cmp.compare(a[mid], a[low]) < 0) swap(a, mid, low);
+        if (cmp.compare(a[high], a[low]) < 0) swap(a, high, low);
+        if (cmp.compare(a[high], a[mid]) < 0) swap(a, high, mid);
+        swap(a, mid, high - 1);
+        int pivot = a[high - 1];
+        int i = low;
+        int j = high - 1;
+        while (true) {
+            while (cmp.compare(a[++i], pivot) < 0) { }
+            while (cmp.compare(a[--j], pivot) > 0) { }
+            if (i >= j) break;
+            swap(a, i, j);
+        }
+        swap(a, i, high - 1);
+        return i;
+    }
+
+    private static void heapSort(int[] a, int low, int high, IndexComparator cmp) {
+        int n = high - low + 1;
+        for (int i = n / 2 - 1; i >= 0; i--)
+            siftDown(a, low, i, n, cmp);
+        for (int end = n - 1; end > 0; end--) {
+            swap(a, low, low + end);
+            siftDown(a, low, 0, end, cmp);
+        }
+    }
+
+    private static void siftDown(int[] a, int base, int node, int n, IndexComparator cmp) {
+        while (true) {
+            int child = 2 * node + 1;
+            if (child >= n) return;
+            if (child + 1 < n && cmp.compare(a[base + child + 1], a[base + child]) > 0) child++;
+            if (cmp.compare(a[base + node], a[base + child]) >= 0) return;
+            swap(a, base + node, base + child);
+            node = child;
+        }
+    }
+
+    private static void insertionSort(int[] a, int low, int high, IndexComparator cmp) {
+        for (int i = low + 1; i <= high; i++) {
+            int value = a[i];
+            int j = i - 1;
+            while (j >= low && cmp.compare(a[j], value) > 0) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = value;
+        }
+    }
+
+    private static void swap(int[] a, int i, int j) {
+        int t = a[i];
+        a[i] = a[j];
+        a[j] = t;
+    }
+
+    // Extracts every sort key into a primitive column (or, for names, a String
+    // column) up front, so comparisons never go through getters or LocalDate.
+    // Categories are few, so they are replaced by their rank.
+    private static final class IndexComparator {
+        private final long[][] numeric;
+        private final String[][] text;
+        private final boolean[] descending;
+
+        IndexComparator(Ingredient[] items, List<Key> keys) {
+            this(items.length, i -> items[i], keys, null);
+        }
+
+        IndexComparator(int size, IntFunction<Ingredient> rows, List<Key> keys, boolean[] descending) {
+            numeric = new long[keys.size()][];
+            text = new String[keys.size()][];
+            this.descending = descending;
+            for (int k = 0; k < keys.size(); k++) {
+                Key key = keys.get(k);
+                if (key == Key.NAME) text[k] = new String[size];
+                else numeric[k] = new long[size];
+            }
+            Map<String, Long> categories = new HashMap<>();
+            String[] category = keys.contains(Key.CATEGORY) ? new String[size] : null;
+            // One pass over the rows, since reading a row may not be free.
+            for (int i = 0; i < size; i++) {
+                Ingredient item = rows.apply(i);
+                for (int k = 0; k < keys.size(); k++) {
+                    switch (keys.get(k)) {
+                        case NAME -> text[k][i] = item.getName();
+                        case CATEGORY -> categories.putIfAbsent(category[i] = item.getCategory(), 0L);
+                        case EXPIRY -> numeric[k][i] = item.getExpiryEpochDay();
+                        case QUANTITY -> numeric[k][i] = item.getQuantity();
+                        case PRICE -> numeric[k][i] = item.getPriceCents();
+                    }
+                }
+            }
+            if (category != null) {
+                List<String> sorted = new ArrayList<>(categories.keySet());
+                Collections.sort(sorted);
+                for (int r = 0; r < sorted.size(); r++) categories.put(sorted.get(r), (long) r);
+                for (int k = 0; k < keys.size(); k++)
+                    if (keys.get(k) == Key.CATEGORY)
+                        for (int i = 0; i < size; i++) numeric[k][i] = categories.get(category[i]);
+            }
+        }
+
+        int compare(int a, int b) {
+            for (int k = 0; k < numeric.length; k++) {
+                int c = numeric[k] != null ? Long.compare(numeric[k][a], numeric[k][b])
+                        : String.CASE_INSENSITIVE_ORDER.compare(text[k][a], text[k][b]);
+                if (c != 0) return descending != null && descending[k] ? -c : c;
+            }
+            return Integer.compare(a, b);
+        }
+    }
+
+    // Sorts order[from, to) using buffer[from, to) as scratch. Halves are
+    // sorted in parallel and then merged in parallel by splitting the larger
+    // run at its midpoint and binary-searching the split point in the other.
+    private static final class MergeSortTask extends RecursiveAction {
+        private final int[] order;
+        private final int[] buffer;
+        private final int from;
+        private final int to;
+        private final IndexComparator cmp;
+
+        MergeSortTask(int[] order, int[] buffer, int from, int to, IndexComparator cmp) {
+            this.order = order;
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+            this.cmp = cmp;
+        }
+
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                int depthLimit = 2 * (32 - Integer.numberOfLeadingZeros(Math.max(1, to - from)));
+                introsort(order, from, to - 1, depthLimit, cmp);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new MergeSortTask(order, buffer, from, mid, cmp),
+                    new MergeSortTask(order, buffer, mid, to, cmp));
+            System.arraycopy(order, from, buffer, from, to - from);
+            new MergeTask(buffer, from, mid, mid, to, order, from, cmp).compute();
+        }
+    }
+
+    private static final class MergeTask extends RecursiveAction {
+        private final int[] src;
+        private final int leftFrom, leftTo, rightFrom, rightTo;
+        private final int[] dst;
+        private final int dstFrom;
+        private final IndexComparator cmp;
+
+        MergeTask(int[] src, int leftFrom, int leftTo, int rightFrom, int rightTo, int[] dst, int dstFrom, IndexComparator cmp) {
+            this.src = src;
+            this.leftFrom = leftFrom;
+            this.leftTo = leftTo;
+            this.rightFrom = rightFrom;
+            this.rightTo = rightTo;
+            this.dst = dst;
+            this.dstFrom = dstFrom;
+            this.cmp = cmp;
+        }
+
+        protected void compute() {
+            int leftSize = leftTo - leftFrom;
+            int rightSize = rightTo - rightFrom;
+            if (leftSize + rightSize <= PARALLEL_THRESHOLD) {
+                mergeSequential();
+                return;
+            }
+            // Indices are unique, so comparisons never tie and the split is exact.
+            if (leftSize >= rightSize) {
+                int leftMid = (leftFrom + leftTo) >>> 1;
+                int rightMid = lowerBound(rightFrom, rightTo, src[leftMid]);
+                int dstMid = dstFrom + (leftMid - leftFrom) + (rightMid - rightFrom);
+                invokeAll(new MergeTask(src, leftFrom, leftMid, rightFrom, rightMid, dst, dstFrom, cmp),
+                        new MergeTask(src, leftMid, leftTo, rightMid, rightTo, dst, dstMid, cmp));
+            } else {
+                int rightMid = (rightFrom + rightTo) >>> 1;
+                int leftMid = lowerBound(leftFrom, leftTo, src[rightMid]);
+                int dstMid = dstFrom + (leftMid - leftFrom) + (rightMid - rightFrom);
+                invokeAll(new MergeTask(src, leftFrom, leftMid, rightFrom, rightMid, dst, dstFrom, cmp),
+                        new MergeTask(src, leftMid, leftTo, rightMid, rightTo, dst, dstMid, cmp));
+            }
+        }
+
+        private int lowerBound(int from, int to, int key) {
+            while (from < to) {
+                int mid = (from + to) >>> 1;
+                if (cmp.compare(src[mid], key) < 0) from = mid + 1;
+                else to = mid;
+            }
+            return from;
+        }
+
+        private void mergeSequential() {
+            int i = leftFrom, j = rightFrom, k = dstFrom;
+            while (i < leftTo && j < rightTo)
+                dst[k++] = cmp.compare(src[i], src[j]) <= 0 ? src[i++] : src[j++];
+            while (i < leftTo) dst[k++] = src[i++];
+            while (j < rightTo) dst[k++] = src[j++];
+        }
+    }
+}
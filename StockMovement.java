@@ -0,0 +1,62 @@
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.Map;
+
+// One stock movement against the InventoryService, as posted by POS
+// terminals, delivery intake or waste logging. toSku is only used by a
+// transfer; expires, when a receipt has it, makes the receipt its own lot.
+record StockMovement(Type type, String sku, int quantity, String toSku, LocalDate expires) {
+    enum Type { RECEIVE, CONSUME, ADJUST, TRANSFER }
+
+    // Reads {"op": "consume", "sku": "dairy/mozzarella", "quantity": 2}. The
+    // SKU may also be given as name and category; a transfer names its
+    // target with "to", and a receipt may carry "expires": "2024-06-30".
+    static StockMovement fromJson(Map<String, String> fields) {
+        String op = fields.get("op");
+        if (op == null) throw new IllegalArgumentException("missing op");
+        Type type;
+        try {
+            type = Type.valueOf(op.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("unknown op '" + op + "'");
+        }
+        String sku = fields.get("sku");
+        if (sku == null && fields.get("name") != null && fields.get("category") != null)
+            sku = Ingredient.skuOf(fields.get("name"), fields.get("category"));
+        if (sku == null) throw new IllegalArgumentException("missing sku");
+        String quantity = fields.get("quantity");
+        int parsed;
+        try {
+            parsed = Integer.parseInt(quantity == null ? "" : quantity.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid quantity '" + quantity + "'");
+        }
+        String to = fields.get("to");
+        if (type == Type.TRANSFER && to == null) throw new IllegalArgumentException("missing transfer target 'to'");
+        String expires = fields.get("expires");
+        LocalDate expiry = null;
+        if (expires != null) {
+            if (type != Type.RECEIVE) throw new IllegalArgumentException("only a receive can carry 'expires'");
+            try {
+                expiry = LocalDate.parse(expires.trim());
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("invalid expires '" + expires + "'");
+            }
+        }
+        return new StockMovement(type, sku.toLowerCase(Locale.ROOT), parsed, to == null ? null : to.toLowerCase(Locale.ROOT), expiry);
+    }
+
+    // Returns the updated ingredient at sku.
+    Ingredient apply(InventoryService service) {
+        return switch (type) {
+            case RECEIVE -> expires == null ? service.receive(sku, quantity) : service.receiveLot(sku, quantity, expires);
+            case CONSUME -> service.consume(sku, quantity);
+            case ADJUST -> service.adjust(sku, quantity);
+            case TRANSFER -> {
+                service.transfer(sku, toSku, quantity);
+                yield service.get(sku);
+            }
+        };
+    }
+}
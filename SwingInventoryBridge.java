@@ -0,0 +1,90 @@
+import javax.swing.SwingUtilities;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Mirrors InventoryService events into the table model. Events may arrive on
+// any thread; they are queued in order and applied on the EDT by a single
+// drain, so a burst of changes costs one invokeLater, consecutive adds are
+// inserted as one batch and repeated updates to a row are painted once.
+class SwingInventoryBridge implements InventoryListener {
+    // old == null for an add, updated == null for a removal.
+    private record Change(Ingredient old, Ingredient updated) {}
+
+    private final IngredientTableModel model;
+    private final InventoryMetrics metrics;
+    private final ConcurrentLinkedQueue<Change> changes = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    public SwingInventoryBridge(IngredientTableModel model, InventoryMetrics metrics) {
+        this.model = model;
+        this.metrics = metrics;
+    }
+
+    public void ingredientAdded(Ingredient ingredient) {
+        enqueue(new Change(null, ingredient));
+    }
+
+    public void ingredientRemoved(Ingredient ingredient) {
+        enqueue(new Change(ingredient, null));
+    }
+
+    public void ingredientUpdated(Ingredient old, Ingredient updated) {
+        enqueue(new Change(old, updated));
+    }
+
+    private void enqueue(Change change) {
+        changes.add(change);
+        if (scheduled.compareAndSet(false, true))
+            SwingUtilities.invokeLater(this::drain);
+    }
+
+    // Updates to the same SKU within a drain collapse into one, from the
+    // first old value to the last new one, so a SKU that moved a thousand
+    // times since the last drain is repainted once. Pending adds and
+    // updates are flushed before a change of the other kind, a removal or a
+    // rename, keeping the order the service made them in.
+    private void drain() {
+        scheduled.set(false);
+        long start = System.nanoTime();
+        List<Ingredient> added = new ArrayList<>();
+        Map<String, Change> updated = new LinkedHashMap<>();
+        Change change;
+        while ((change = changes.poll()) != null) {
+            if (change.old() == null) {
+                flushUpdates(updated);
+                added.add(change.updated());
+                continue;
+            }
+            if (!added.isEmpty()) {
+                model.addIngredients(added);
+                added = new ArrayList<>();
+            }
+            String sku = change.old().getSku();
+            if (change.updated() != null && sku.equals(change.updated().getSku())) {
+                Change earlier = updated.get(sku);
+                updated.put(sku, earlier == null ? change : new Change(earlier.old(), change.updated()));
+                continue;
+            }
+            flushUpdates(updated);
+            int row = model.indexOfSku(sku);
+            if (row < 0) continue;
+            if (change.updated() == null) model.removeIngredient(row);
+            else model.updateIngredient(row, change.updated());
+        }
+        flushUpdates(updated);
+        model.addIngredients(added);
+        metrics.record(InventoryMetrics.Operation.TABLE_REFRESH, System.nanoTime() - start);
+    }
+
+    private void flushUpdates(Map<String, Change> updated) {
+        for (Change change : updated.values()) {
+            int row = model.indexOfSku(change.old().getSku());
+            if (row >= 0) model.updateIngredient(row, change.updated());
+        }
+        updated.clear();
+    }
+}
@@ -0,0 +1,37 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+// Generates reproducible inventories for benchmarks and load tests. The
+// distribution controls the order of the name column, which is the key the
+// demo sorts use.
+final class SyntheticInventory {
+    enum Distribution { RANDOM, SORTED, REVERSE_SORTED, MANY_DUPLICATES }
+
+    private static final String[] WORDS = {"Mozzarella", "Pepperoni", "Basil", "Tomato", "Flour", "Olive", "Garlic",
+            "Onion", "Shrimp", "Salami", "Ricotta", "Pesto", "Yeast", "Oregano", "Cola", "Spinach"};
+
+    private SyntheticInventory() {}
+
+    static List<Ingredient> generate(int size, Distribution distribution, long seed) {
+        Random random = new Random(seed);
+        LocalDate today = LocalDate.now();
+        List<Ingredient> ingredients = new ArrayList<>(size);
+        int distinctNames = distribution == Distribution.MANY_DUPLICATES ? Math.max(1, size / 100) : size;
+        for (int i = 0; i < size; i++) {
+            int id = distribution == Distribution.MANY_DUPLICATES ? random.nextInt(distinctNames) : i;
+            String name = String.format("%s %07d", WORDS[id % WORDS.length], id);
+            ingredients.add(Ingredient.ofCents(name, Ingredient.CATEGORIES[random.nextInt(Ingredient.CATEGORIES.length)],
+                    1 + random.nextInt(100), today.plusDays(random.nextInt(365)), 1_000 + random.nextInt(60_000)));
+        }
+        switch (distribution) {
+            case RANDOM -> Collections.shuffle(ingredients, random);
+            case SORTED -> ingredients.sort((a, b) -> a.getName().compareToIgnoreCase(b.getName()));
+            case REVERSE_SORTED -> ingredients.sort((a, b) -> b.getName().compareToIgnoreCase(a.getName()));
+            case MANY_DUPLICATES -> { }
+        }
+        return ingredients;
+    }
+}
@@ -0,0 +1,120 @@
+import javax.swing.SwingUtilities;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs the GUI's heavy work (sorts, searches, queries, reports, imports and
+// exports) on a small pool of daemon threads with a bounded queue, so a
+// burst of requests cannot grow without limit.
+//
+// Tasks submitted under the same key replace each other: the newer one
+// cancels the older, whose done() then sees isCancelled(). Typing in the
+// search box or re-running a sort only ever publishes the latest answer.
+//
+// Results come back the way SwingInventoryBridge brings back changes: tasks
+// that finish or report progress are queued, and a single EDT drain
+// delivers everything that has accumulated, so the EDT is woken once per
+// burst rather than once per task or progress tick.
+class TaskScheduler {
+    private final ThreadPoolExecutor pool;
+    private final Map<String, BackgroundTask<?>> latest = new HashMap<>();
+    private final Map<BackgroundTask<?>, String> keys = new HashMap<>();
+    private final ConcurrentLinkedQueue<BackgroundTask<?>> finished = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<BackgroundTask<?>> progressed = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    public TaskScheduler(int threads, int queueCapacity) {
+        AtomicInteger count = new AtomicInteger();
+        pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity), r -> {
+            Thread thread = new Thread(r, "inventory-task-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.allowCoreThreadTimeOut(true);
+    }
+
+    // Sized for the machine but small: the EDT and the service's own
+    // writers still need cores.
+    public static TaskScheduler create() {
+        return new TaskScheduler(Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() / 2)), 256);
+    }
+
+    // Runs the task, first cancelling any unfinished task with the same key.
+    // A null key never replaces anything. If the queue is full, the task
+    // fails with a RejectedExecutionException.
+    public void submit(String key, BackgroundTask<?> task) {
+        task.bind(this);
+        if (key != null) {
+            BackgroundTask<?> previous;
+            synchronized (this) {
+                previous = latest.put(key, task);
+                keys.put(task, key);
+            }
+            if (previous != null) previous.cancel();
+        }
+        try {
+            pool.execute(() -> {
+                task.run();
+                complete(task);
+            });
+        } catch (RejectedExecutionException e) {
+            task.fail(new RejectedExecutionException("Too many background tasks are waiting; please try again."));
+            complete(task);
+        }
+    }
+
+    // Cancels the unfinished task with this key, if there is one.
+    public void cancel(String key) {
+        BackgroundTask<?> task;
+        synchronized (this) {
+            task = latest.get(key);
+        }
+        if (task != null) task.cancel();
+    }
+
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    void progressed(BackgroundTask<?> task) {
+        progressed.add(task);
+        wake();
+    }
+
+    private void complete(BackgroundTask<?> task) {
+        synchronized (this) {
+            String key = keys.remove(task);
+            if (key != null) latest.remove(key, task);
+        }
+        finished.add(task);
+        wake();
+    }
+
+    private void wake() {
+        if (scheduled.compareAndSet(false, true))
+            SwingUtilities.invokeLater(this::drain);
+    }
+
+    private void drain() {
+        scheduled.set(false);
+        List<BackgroundTask<?>> done = new ArrayList<>();
+        BackgroundTask<?> task;
+        while ((task = finished.poll()) != null) done.add(task);
+        // Progress is only reported for tasks still running, once each.
+        Set<BackgroundTask<?>> moving = new LinkedHashSet<>();
+        while ((task = progressed.poll()) != null) moving.add(task);
+        moving.removeAll(done);
+        for (BackgroundTask<?> running : moving) running.deliverProgress();
+        for (BackgroundTask<?> completed : done) completed.deliverDone();
+    }
+}